@@ -1,10 +1,13 @@
 package com.jnape.palatable.shoki.api;
 
+import com.jnape.palatable.lambda.adt.Maybe;
 import com.jnape.palatable.lambda.functions.specialized.BiPredicate;
 
 import java.util.Comparator;
 import java.util.Objects;
 
+import static com.jnape.palatable.lambda.adt.Maybe.just;
+import static com.jnape.palatable.lambda.adt.Maybe.nothing;
 import static java.util.Comparator.naturalOrder;
 
 /**
@@ -26,6 +29,17 @@ public interface EquivalenceRelation<A> extends BiPredicate<A, A> {
         return BiPredicate.super.and(other)::apply;
     }
 
+    /**
+     * The total ordering this {@link EquivalenceRelation} is consistent with, if one is known; that is, a
+     * {@link Comparator} that orders two terms as equal exactly when they are equivalent. Structures that group
+     * equivalent terms may use it to keep those groups sorted.
+     *
+     * @return {@link Maybe} the consistent {@link Comparator}
+     */
+    default Maybe<Comparator<? super A>> ordering() {
+        return nothing();
+    }
+
     /**
      * An {@link EquivalenceRelation} implemented in terms of {@link Objects#equals(Object, Object)}.
      *
@@ -48,7 +62,8 @@ public interface EquivalenceRelation<A> extends BiPredicate<A, A> {
 
     /**
      * An {@link EquivalenceRelation} implemented in terms of the given {@link Comparator Comparator's}
-     * {@link Comparator#compare(Object, Object) compare} method.
+     * {@link Comparator#compare(Object, Object) compare} method, which reports the {@link Comparator} as its
+     * {@link EquivalenceRelation#ordering() ordering}.
      *
      * @param comparator the {@link Comparator}
      * @param <A>        the type to equate
@@ -56,7 +71,17 @@ public interface EquivalenceRelation<A> extends BiPredicate<A, A> {
      * {@link Comparator#compare(Object, Object) compare} method.
      */
     static <A> EquivalenceRelation<A> comparablyEquals(Comparator<? super A> comparator) {
-        return (x, y) -> comparator.compare(x, y) == 0;
+        return new EquivalenceRelation<A>() {
+            @Override
+            public Boolean checkedApply(A x, A y) {
+                return comparator.compare(x, y) == 0;
+            }
+
+            @Override
+            public Maybe<Comparator<? super A>> ordering() {
+                return just(comparator);
+            }
+        };
     }
 
     /**
@@ -2,8 +2,10 @@ package com.jnape.palatable.shoki.api;
 
 import com.jnape.palatable.lambda.adt.Maybe;
 import com.jnape.palatable.lambda.adt.hlist.Tuple2;
+import com.jnape.palatable.lambda.functions.Fn1;
 import com.jnape.palatable.lambda.semigroup.Semigroup;
 
+import static com.jnape.palatable.lambda.adt.Maybe.just;
 import static com.jnape.palatable.lambda.functions.Fn2.curried;
 import static com.jnape.palatable.lambda.functions.builtin.fn2.Into.into;
 import static com.jnape.palatable.lambda.functions.builtin.fn3.FoldLeft.foldLeft;
@@ -72,7 +74,64 @@ public interface Map<Size extends Number, K, V> extends
     Map<Size, K, V> tail();
 
     /**
-     * {@link Map#put(Object, Object) Put} each entry in <code>map</code> in this {@link Map}, relying on
+     * Update the association for <code>k</code> inside this {@link Map} by applying <code>fn</code> to {@link Maybe}
+     * the value currently associated to <code>k</code>: if <code>fn</code> produces {@link Maybe#just(Object) just} a
+     * value, <code>k</code> is associated with that value; otherwise, any association for <code>k</code> is
+     * {@link Map#remove(Object) removed}.
+     * <p>
+     * By default, this method simply {@link Map#get(Object) gets} the current value and then either
+     * {@link Map#put(Object, Object) puts} or {@link Map#remove(Object) removes} <code>k</code>, but implementations
+     * may be able to locate <code>k</code> only once.
+     *
+     * @param k  the key
+     * @param fn the function from {@link Maybe} the current value to {@link Maybe} the updated value
+     * @return the updated {@link Map}
+     */
+    default Map<Size, K, V> update(K k, Fn1<? super Maybe<V>, ? extends Maybe<V>> fn) {
+        return fn.apply(get(k)).match(__ -> remove(k), v -> put(k, v));
+    }
+
+    /**
+     * If <code>k</code> is associated to a value inside this {@link Map}, associate it instead to the result of
+     * applying <code>fn</code> to that value; otherwise, leave this {@link Map} unchanged.
+     *
+     * @param k  the key
+     * @param fn the function to apply to the current value
+     * @return the updated {@link Map}
+     * @see Map#update(Object, Fn1)
+     */
+    default Map<Size, K, V> adjust(K k, Fn1<? super V, ? extends V> fn) {
+        return update(k, current -> current.fmap(fn));
+    }
+
+    /**
+     * Associate <code>k</code> with <code>v</code> inside this {@link Map}, unless <code>k</code> is already
+     * associated to a value.
+     *
+     * @param k the key
+     * @param v the value
+     * @return the updated {@link Map}
+     * @see Map#update(Object, Fn1)
+     */
+    default Map<Size, K, V> putIfAbsent(K k, V v) {
+        return update(k, current -> just(current.orElse(v)));
+    }
+
+    /**
+     * Associate <code>k</code> with the result of applying <code>fn</code> to <code>k</code> inside this {@link Map},
+     * unless <code>k</code> is already associated to a value, in which case <code>fn</code> is never applied.
+     *
+     * @param k  the key
+     * @param fn the function producing the value to associate
+     * @return the updated {@link Map}
+     * @see Map#update(Object, Fn1)
+     */
+    default Map<Size, K, V> computeIfAbsent(K k, Fn1<? super K, ? extends V> fn) {
+        return update(k, current -> just(current.orElseGet(() -> fn.apply(k))));
+    }
+
+    /**
+     * {@link Map#update(Object, Fn1) Update} this {@link Map} with each entry in <code>map</code>, relying on
      * <code>semigroup</code> to consolidate colliding values in the case of duplicate keys.
      *
      * @param other     the other {@link Map}
@@ -80,7 +139,8 @@ public interface Map<Size extends Number, K, V> extends
      * @return the merged {@link Map}
      */
     default Map<Size, K, V> merge(Map<Size, K, V> other, Semigroup<V> semigroup) {
-        return foldLeft(curried(m -> into((k, v) -> m.put(k, m.get(k).fmap(semigroup.flip().apply(v)).orElse(v)))),
+        return foldLeft(curried(m -> into((k, v) -> m.update(k, current -> just(current.fmap(semigroup.flip().apply(v))
+                                                                                         .orElse(v))))),
                         this,
                         other);
     }
@@ -4,6 +4,11 @@ import static java.lang.Math.max;
 import static java.lang.System.arraycopy;
 
 final class Arrays {
+
+    public static final Object[] EMPTY_OBJECTS = new Object[0];
+    public static final int[]    EMPTY_INTS    = new int[0];
+    public static final long[]   EMPTY_LONGS   = new long[0];
+
     private Arrays() {
     }
 
@@ -50,4 +55,59 @@ final class Arrays {
         }
         return copy;
     }
+
+    public static Object[] insertPairAt(int index, Object[] array, Object first, Object second) {
+        Object[] copy = new Object[array.length + 2];
+        arraycopy(array, 0, copy, 0, index);
+        arraycopy(array, index, copy, index + 2, array.length - index);
+        copy[index] = first;
+        copy[index + 1] = second;
+        return copy;
+    }
+
+    public static Object[] deletePairAt(int index, Object[] array) {
+        if (array.length == 2)
+            return EMPTY_OBJECTS;
+
+        Object[] copy = new Object[array.length - 2];
+        arraycopy(array, 0, copy, 0, index);
+        arraycopy(array, index + 2, copy, index, copy.length - index);
+        return copy;
+    }
+
+    public static int[] insertAt(int index, int[] array, int value) {
+        int[] copy = new int[array.length + 1];
+        arraycopy(array, 0, copy, 0, index);
+        arraycopy(array, index, copy, index + 1, array.length - index);
+        copy[index] = value;
+        return copy;
+    }
+
+    public static int[] deleteAt(int index, int[] array) {
+        if (array.length == 1)
+            return EMPTY_INTS;
+
+        int[] copy = new int[array.length - 1];
+        arraycopy(array, 0, copy, 0, index);
+        arraycopy(array, index + 1, copy, index, copy.length - index);
+        return copy;
+    }
+
+    public static long[] insertAt(int index, long[] array, long value) {
+        long[] copy = new long[array.length + 1];
+        arraycopy(array, 0, copy, 0, index);
+        arraycopy(array, index, copy, index + 1, array.length - index);
+        copy[index] = value;
+        return copy;
+    }
+
+    public static long[] deleteAt(int index, long[] array) {
+        if (array.length == 1)
+            return EMPTY_LONGS;
+
+        long[] copy = new long[array.length - 1];
+        arraycopy(array, 0, copy, 0, index);
+        arraycopy(array, index + 1, copy, index, copy.length - index);
+        return copy;
+    }
 }
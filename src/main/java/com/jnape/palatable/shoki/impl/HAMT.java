@@ -1,267 +1,1876 @@
 package com.jnape.palatable.shoki.impl;
 
 import com.jnape.palatable.lambda.adt.Maybe;
+import com.jnape.palatable.lambda.adt.hlist.HList;
 import com.jnape.palatable.lambda.adt.hlist.Tuple2;
-import com.jnape.palatable.lambda.adt.product.Product2;
+import com.jnape.palatable.lambda.functions.Fn1;
+import com.jnape.palatable.lambda.functions.Fn2;
+import com.jnape.palatable.lambda.semigroup.Semigroup;
 import com.jnape.palatable.shoki.api.EquivalenceRelation;
-import com.jnape.palatable.shoki.api.HashingAlgorithm;
 
+import java.util.Comparator;
 import java.util.Iterator;
-import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
 
 import static com.jnape.palatable.lambda.adt.Maybe.just;
 import static com.jnape.palatable.lambda.adt.Maybe.nothing;
-import static com.jnape.palatable.lambda.adt.hlist.HList.tuple;
-import static com.jnape.palatable.lambda.functions.builtin.fn1.Flatten.flatten;
-import static com.jnape.palatable.lambda.functions.builtin.fn2.Eq.eq;
-import static com.jnape.palatable.lambda.functions.builtin.fn2.Find.find;
-import static com.jnape.palatable.lambda.functions.builtin.fn2.Map.map;
-import static com.jnape.palatable.lambda.functions.builtin.fn3.FoldLeft.foldLeft;
-import static com.jnape.palatable.shoki.api.Natural.one;
 import static com.jnape.palatable.shoki.impl.Bitmap32.bitmap32;
-import static com.jnape.palatable.shoki.impl.Bitmap32.fillUpTo;
 import static java.lang.Math.ceil;
-import static java.util.Arrays.asList;
-import static java.util.Collections.singleton;
 
 interface HAMT<K, V> extends Iterable<Tuple2<K, V>> {
 
     int LEVEL_SIZE = 5;
     int MAX_LEVEL  = (int) ceil(32D / LEVEL_SIZE);
 
-    HAMT<K, V> put(K key, V value, Bitmap32 keyHash, EquivalenceRelation<K> keyEqRel, HashingAlgorithm<K> keyHashAlg,
-                   int level);
+    default HAMT<K, V> put(K key, V value, int keyHash, EquivalenceRelation<K> keyEqRel, int level, Object edit) {
+        return put(key, value, keyHash, (existing, replacement) -> replacement, keyEqRel, level, edit);
+    }
+
+    HAMT<K, V> put(K key, V value, int keyHash, Semigroup<V> semigroup, EquivalenceRelation<K> keyEqRel, int level,
+                   Object edit);
+
+    HAMT<K, V> update(K key, int keyHash, Fn1<? super Maybe<V>, ? extends Maybe<V>> fn,
+                      EquivalenceRelation<K> keyEqRel, int level, Object edit);
+
+    Maybe<V> get(K key, int keyHash, EquivalenceRelation<K> keyEqRel, int level);
+
+    V getOrDefault(K key, V defaultValue, int keyHash, EquivalenceRelation<K> keyEqRel, int level);
+
+    boolean contains(K key, int keyHash, EquivalenceRelation<K> keyEqRel, int level);
+
+    HAMT<K, V> remove(K key, int keyHash, EquivalenceRelation<K> keyEqRel, int level);
+
+    HAMT<K, V> removeFirst();
+
+    HAMT<K, V> merge(HAMT<K, V> other, Semigroup<V> semigroup, EquivalenceRelation<K> keyEqRel, int level,
+                     Object edit);
+
+    HAMT<K, V> intersect(HAMT<K, ?> other, EquivalenceRelation<K> keyEqRel, int level);
+
+    HAMT<K, V> subtract(HAMT<K, ?> other, EquivalenceRelation<K> keyEqRel, int level);
+
+    HAMT<K, Tuple2<V, V>> changed(HAMT<K, V> other, EquivalenceRelation<K> keyEqRel, int level);
+
+    HAMT<K, V> filter(Fn2<? super K, ? super V, ? extends Boolean> predicate);
+
+    <W> HAMT<K, W> mapValues(Fn2<? super K, ? super V, ? extends W> fn);
+
+    boolean sameEntries(HAMT<K, V> other, EquivalenceRelation<K> keyEqRel);
+
+    boolean sameKeys(HAMT<K, ?> other, EquivalenceRelation<K> keyEqRel);
 
-    Maybe<V> get(K key, Bitmap32 keyHash, EquivalenceRelation<K> keyEqRel, int level);
+    int size();
 
-    Maybe<HAMT<K, V>> remove(K key, Bitmap32 keyHash, EquivalenceRelation<K> keyEqRel, int level);
+    int hash();
+
+    int keyHashSum();
+
+    int payloadArity();
+
+    int nodeArity();
+
+    K keyAt(int dataIndex);
+
+    V valueAt(int dataIndex);
+
+    int hashAt(int dataIndex);
+
+    HAMT<K, V> nodeAt(int nodeIndex);
+
+    static int entryHash(int keyHash, Object value) {
+        return 31 * keyHash + Objects.hashCode(value);
+    }
 
     final class Node<K, V> implements HAMT<K, V> {
 
-        private static final Node<?, ?> ROOT = new Node<>(Bitmap32.empty(), new Object[0]);
+        private static final int        SLOT_MASK = (1 << LEVEL_SIZE) - 1;
+        private static final Node<?, ?> ROOT      = new Node<>(0, 0, Arrays.EMPTY_OBJECTS, Arrays.EMPTY_INTS);
 
-        private final Bitmap32 bitmap;
-        private final Object[] table;
+        private final Object   edit;
+        private       int      dataMap;
+        private       int      nodeMap;
+        private       Object[] table;
+        private       int[]    hashes;
+        private       int      size;
+        private       int      hash;
+        private       int      keyHashSum;
+
+        public Node(int dataMap, int nodeMap, Object[] table, int[] hashes) {
+            this(dataMap, nodeMap, table, hashes, null);
+        }
 
-        public Node(Bitmap32 bitmap, Object[] table) {
-            this.bitmap = bitmap;
+        Node(int dataMap, int nodeMap, Object[] table, int[] hashes, Object edit) {
+            this(dataMap, nodeMap, table, hashes, 0, 0, 0, edit);
+            int payloadArity = payloadArity();
+            for (int i = 0; i < payloadArity; i++) {
+                size++;
+                hash += entryHash(hashes[i], valueAt(i));
+                keyHashSum += hashes[i];
+            }
+
+            int nodeArity = nodeArity();
+            for (int i = 0; i < nodeArity; i++) {
+                HAMT<K, V> child = nodeAt(i);
+                size += child.size();
+                hash += child.hash();
+                keyHashSum += child.keyHashSum();
+            }
+        }
+
+        private Node(int dataMap, int nodeMap, Object[] table, int[] hashes, int size, int hash, int keyHashSum,
+                     Object edit) {
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
             this.table = table;
+            this.hashes = hashes;
+            this.size = size;
+            this.hash = hash;
+            this.keyHashSum = keyHashSum;
+            this.edit = edit;
+        }
+
+        @Override
+        public Maybe<V> get(K key, int keyHash, EquivalenceRelation<K> keyEqRel, int level) {
+            int bitpos = bitpos(keyHash, level);
+            if ((dataMap & bitpos) != 0) {
+                int dataIndex = index(dataMap, bitpos);
+                return hashes[dataIndex] == keyHash && keyEqRel.apply(key, keyAt(dataIndex))
+                       ? just(valueAt(dataIndex))
+                       : nothing();
+            }
+
+            return (nodeMap & bitpos) != 0
+                   ? nodeAt(index(nodeMap, bitpos)).get(key, keyHash, keyEqRel, level + 1)
+                   : nothing();
         }
 
         @Override
-        public Maybe<V> get(K key, Bitmap32 keyHash, EquivalenceRelation<K> keyEqRel, int level) {
-            int bitmapIndex = bitmapIndex(keyHash, level);
-            return bitmap.populatedAtIndex(bitmapIndex)
-                   ? valueAtIndex(tableIndex(bitmapIndex)).get(key, keyHash, keyEqRel, level + 1)
-                   : Maybe.nothing();
+        public V getOrDefault(K key, V defaultValue, int keyHash, EquivalenceRelation<K> keyEqRel, int level) {
+            int bitpos = bitpos(keyHash, level);
+            if ((dataMap & bitpos) != 0) {
+                int dataIndex = index(dataMap, bitpos);
+                return hashes[dataIndex] == keyHash && keyEqRel.apply(key, keyAt(dataIndex))
+                       ? valueAt(dataIndex)
+                       : defaultValue;
+            }
+
+            return (nodeMap & bitpos) != 0
+                   ? nodeAt(index(nodeMap, bitpos)).getOrDefault(key, defaultValue, keyHash, keyEqRel, level + 1)
+                   : defaultValue;
         }
 
         @Override
-        public Node<K, V> put(K key, V value, Bitmap32 keyHash, EquivalenceRelation<K> keyEqRel,
-                              HashingAlgorithm<K> keyHashAlg, int level) {
-            int bitmapIndex = bitmapIndex(keyHash, level);
-            int tableIndex  = tableIndex(bitmapIndex);
-            return bitmap.populatedAtIndex(bitmapIndex)
-                   ? overrideAt(tableIndex,
-                                valueAtIndex(tableIndex).put(key, value, keyHash, keyEqRel, keyHashAlg, level + 1))
-                   : insertAt(tableIndex, bitmapIndex, new Entry<>(key, value));
+        public boolean contains(K key, int keyHash, EquivalenceRelation<K> keyEqRel, int level) {
+            int bitpos = bitpos(keyHash, level);
+            if ((dataMap & bitpos) != 0) {
+                int dataIndex = index(dataMap, bitpos);
+                return hashes[dataIndex] == keyHash && keyEqRel.apply(key, keyAt(dataIndex));
+            }
+
+            return (nodeMap & bitpos) != 0
+                    && nodeAt(index(nodeMap, bitpos)).contains(key, keyHash, keyEqRel, level + 1);
+        }
+
+        @Override
+        public Node<K, V> put(K key, V value, int keyHash, Semigroup<V> semigroup, EquivalenceRelation<K> keyEqRel,
+                              int level, Object edit) {
+            int bitpos = bitpos(keyHash, level);
+            if ((dataMap & bitpos) != 0) {
+                int dataIndex       = index(dataMap, bitpos);
+                int existingKeyHash = hashes[dataIndex];
+                K   existingKey     = keyAt(dataIndex);
+                V   existing        = valueAt(dataIndex);
+                if (existingKeyHash == keyHash && keyEqRel.apply(key, existingKey)) {
+                    V combined = semigroup.apply(existing, value);
+                    return combined == existing
+                           ? this
+                           : setValue(dataIndex, key, combined,
+                                      hash - entryHash(keyHash, existing) + entryHash(keyHash, combined), edit);
+                }
+
+                HAMT<K, V> node = mergeTwo(existingKey, existing, existingKeyHash,
+                                           key, value, keyHash, keyEqRel, level + 1, edit);
+                return migrateToNode(bitpos, dataIndex, node,
+                                     size + 1, hash - entryHash(existingKeyHash, existing) + node.hash(), edit);
+            }
+
+            if ((nodeMap & bitpos) != 0) {
+                int        nodeIndex = index(nodeMap, bitpos);
+                HAMT<K, V> child     = nodeAt(nodeIndex);
+                int        childSize = child.size();
+                int        childHash = child.hash();
+                int        childSum  = child.keyHashSum();
+                HAMT<K, V> updated   = child.put(key, value, keyHash, semigroup, keyEqRel, level + 1, edit);
+                if (updated == child && updated.size() == childSize && updated.hash() == childHash)
+                    return this;
+
+                return setNode(nodeIndex, updated, size + updated.size() - childSize, hash + updated.hash() - childHash,
+                               keyHashSum + updated.keyHashSum() - childSum, edit);
+            }
+
+            return insertValue(bitpos, index(dataMap, bitpos), key, value, keyHash,
+                               size + 1, hash + entryHash(keyHash, value), edit);
+        }
+
+        @Override
+        public HAMT<K, V> update(K key, int keyHash, Fn1<? super Maybe<V>, ? extends Maybe<V>> fn,
+                                 EquivalenceRelation<K> keyEqRel, int level, Object edit) {
+            int bitpos = bitpos(keyHash, level);
+            if ((dataMap & bitpos) != 0) {
+                int dataIndex       = index(dataMap, bitpos);
+                int existingKeyHash = hashes[dataIndex];
+                K   existingKey     = keyAt(dataIndex);
+                V   existing        = valueAt(dataIndex);
+                if (existingKeyHash == keyHash && keyEqRel.apply(key, existingKey)) {
+                    return fn.apply(just(existing)).<HAMT<K, V>>match(
+                            __ -> removeValue(bitpos, dataIndex,
+                                              size - 1, hash - entryHash(keyHash, existing), edit),
+                            value -> value == existing
+                                     ? this
+                                     : setValue(dataIndex, key, value,
+                                                hash - entryHash(keyHash, existing) + entryHash(keyHash, value),
+                                                edit));
+                }
+
+                return fn.apply(nothing()).<HAMT<K, V>>match(__ -> this, value -> {
+                    HAMT<K, V> node = mergeTwo(existingKey, existing, existingKeyHash,
+                                               key, value, keyHash, keyEqRel, level + 1, edit);
+                    return migrateToNode(bitpos, dataIndex, node,
+                                         size + 1, hash - entryHash(existingKeyHash, existing) + node.hash(), edit);
+                });
+            }
+
+            if ((nodeMap & bitpos) != 0) {
+                int        nodeIndex = index(nodeMap, bitpos);
+                HAMT<K, V> child     = nodeAt(nodeIndex);
+                int        childSize = child.size();
+                int        childHash = child.hash();
+                int        childSum  = child.keyHashSum();
+                HAMT<K, V> updated   = child.update(key, keyHash, fn, keyEqRel, level + 1, edit);
+                if (updated == child && updated.size() == childSize && updated.hash() == childHash)
+                    return this;
+
+                int size       = this.size + updated.size() - childSize;
+                int hash       = this.hash + updated.hash() - childHash;
+                int keyHashSum = this.keyHashSum + updated.keyHashSum() - childSum;
+                if (updated.size() == 1) {
+                    HAMT<K, V> payload = leftmostPayload(updated);
+                    return migrateToData(bitpos, nodeIndex, payload.keyAt(0), payload.valueAt(0), payload.hashAt(0),
+                                         size, hash, keyHashSum, edit);
+                }
+                return setNode(nodeIndex, updated, size, hash, keyHashSum, edit);
+            }
+
+            return fn.apply(nothing()).<HAMT<K, V>>match(
+                    __ -> this,
+                    value -> insertValue(bitpos, index(dataMap, bitpos), key, value, keyHash,
+                                         size + 1, hash + entryHash(keyHash, value), edit));
         }
 
         @Override
         public Iterator<Tuple2<K, V>> iterator() {
-            @SuppressWarnings("unchecked")
-            List<HAMT<K, V>> bodies = (List<HAMT<K, V>>) (Object) asList(table);
-            return flatten(bodies).iterator();
+            return new Cursor<>(this, HList::tuple);
+        }
+
+        @Override
+        public Node<K, V> remove(K key, int keyHash, EquivalenceRelation<K> keyEqRel, int level) {
+            int bitpos = bitpos(keyHash, level);
+            if ((dataMap & bitpos) != 0) {
+                int dataIndex = index(dataMap, bitpos);
+                if (hashes[dataIndex] != keyHash || !keyEqRel.apply(key, keyAt(dataIndex)))
+                    return this;
+
+                return removeValue(bitpos, dataIndex, size - 1, hash - entryHash(keyHash, valueAt(dataIndex)),
+                                   null);
+            }
+
+            if ((nodeMap & bitpos) == 0)
+                return this;
+
+            int        nodeIndex = index(nodeMap, bitpos);
+            HAMT<K, V> child     = nodeAt(nodeIndex);
+            HAMT<K, V> updated   = child.remove(key, keyHash, keyEqRel, level + 1);
+            if (updated == child)
+                return this;
+
+            int size       = this.size + updated.size() - child.size();
+            int hash       = this.hash + updated.hash() - child.hash();
+            int keyHashSum = this.keyHashSum + updated.keyHashSum() - child.keyHashSum();
+            if (updated.size() == 1) {
+                HAMT<K, V> payload = leftmostPayload(updated);
+                return migrateToData(bitpos, nodeIndex, payload.keyAt(0), payload.valueAt(0), payload.hashAt(0),
+                                     size, hash, keyHashSum, null);
+            }
+            return setNode(nodeIndex, updated, size, hash, keyHashSum, null);
+        }
+
+        @Override
+        public Node<K, V> removeFirst() {
+            if (dataMap != 0)
+                return removeValue(Integer.lowestOneBit(dataMap), 0, size - 1, hash - entryHash(hashes[0], valueAt(0)),
+                                   null);
+
+            if (nodeMap == 0)
+                return this;
+
+            HAMT<K, V> child      = nodeAt(0);
+            HAMT<K, V> updated    = child.removeFirst();
+            int        bitpos     = Integer.lowestOneBit(nodeMap);
+            int        size       = this.size + updated.size() - child.size();
+            int        hash       = this.hash + updated.hash() - child.hash();
+            int        keyHashSum = this.keyHashSum + updated.keyHashSum() - child.keyHashSum();
+            if (updated.size() == 1) {
+                HAMT<K, V> payload = leftmostPayload(updated);
+                return migrateToData(bitpos, 0, payload.keyAt(0), payload.valueAt(0), payload.hashAt(0), size, hash,
+                                     keyHashSum, null);
+            }
+            return setNode(0, updated, size, hash, keyHashSum, null);
+        }
+
+        @Override
+        public HAMT<K, V> merge(HAMT<K, V> other, Semigroup<V> semigroup, EquivalenceRelation<K> keyEqRel,
+                                int level, Object edit) {
+            if (other.size() == 0)
+                return this;
+            if (size == 0)
+                return other;
+            if (other instanceof Chain<?, ?>) {
+                Chain<K, V> chain = (Chain<K, V>) other;
+                return mergeNode(chain.bitpos, chain.child, semigroup, keyEqRel, level, edit);
+            }
+
+            Node<K, V> node   = (Node<K, V>) other;
+            Node<K, V> merged = this;
+            for (int bitmap = node.dataMap | node.nodeMap; bitmap != 0; bitmap &= bitmap - 1) {
+                int bitpos = Integer.lowestOneBit(bitmap);
+                if ((node.dataMap & bitpos) != 0) {
+                    int dataIndex = index(node.dataMap, bitpos);
+                    merged = merged.put(node.keyAt(dataIndex), node.valueAt(dataIndex), node.hashes[dataIndex],
+                                        semigroup, keyEqRel, level, edit);
+                } else {
+                    merged = merged.mergeNode(bitpos, node.nodeAt(index(node.nodeMap, bitpos)),
+                                              semigroup, keyEqRel, level, edit);
+                }
+            }
+            return merged;
+        }
+
+        @Override
+        public HAMT<K, V> intersect(HAMT<K, ?> other, EquivalenceRelation<K> keyEqRel, int level) {
+            if (other == this)
+                return this;
+
+            Node<K, ?>    node    = asNode(other);
+            int           shared  = node.dataMap | node.nodeMap;
+            Builder<K, V> builder = null;
+            for (int bitmap = dataMap | nodeMap; bitmap != 0; bitmap &= bitmap - 1) {
+                int bitpos = Integer.lowestOneBit(bitmap);
+                if ((dataMap & bitpos) != 0) {
+                    int dataIndex = index(dataMap, bitpos);
+                    K   key       = keyAt(dataIndex);
+                    int keyHash   = hashes[dataIndex];
+                    if ((shared & bitpos) != 0 && node.contains(key, keyHash, keyEqRel, level)) {
+                        if (builder != null)
+                            builder.inline(bitpos, key, valueAt(dataIndex), keyHash);
+                    } else if (builder == null) {
+                        builder = builderBefore(bitpos);
+                    }
+                } else {
+                    HAMT<K, V> child  = nodeAt(index(nodeMap, bitpos));
+                    HAMT<K, V> result = (shared & bitpos) == 0
+                                        ? rootNode()
+                                        : child.intersect(node.subtreeAt(bitpos, level + 1), keyEqRel, level + 1);
+                    if (result != child && builder == null)
+                        builder = builderBefore(bitpos);
+                    if (builder != null)
+                        builder.slot(bitpos, result);
+                }
+            }
+            return builder == null ? this : builder.build(null);
+        }
+
+        @Override
+        public HAMT<K, V> subtract(HAMT<K, ?> other, EquivalenceRelation<K> keyEqRel, int level) {
+            if (other == this)
+                return rootNode();
+
+            Node<K, ?>    node    = asNode(other);
+            int           shared  = node.dataMap | node.nodeMap;
+            Builder<K, V> builder = null;
+            for (int bitmap = dataMap | nodeMap; bitmap != 0; bitmap &= bitmap - 1) {
+                int bitpos = Integer.lowestOneBit(bitmap);
+                if ((dataMap & bitpos) != 0) {
+                    int dataIndex = index(dataMap, bitpos);
+                    K   key       = keyAt(dataIndex);
+                    int keyHash   = hashes[dataIndex];
+                    if ((shared & bitpos) == 0 || !node.contains(key, keyHash, keyEqRel, level)) {
+                        if (builder != null)
+                            builder.inline(bitpos, key, valueAt(dataIndex), keyHash);
+                    } else if (builder == null) {
+                        builder = builderBefore(bitpos);
+                    }
+                } else {
+                    HAMT<K, V> child  = nodeAt(index(nodeMap, bitpos));
+                    HAMT<K, V> result = (shared & bitpos) == 0
+                                        ? child
+                                        : child.subtract(node.subtreeAt(bitpos, level + 1), keyEqRel, level + 1);
+                    if (result != child && builder == null)
+                        builder = builderBefore(bitpos);
+                    if (builder != null)
+                        builder.slot(bitpos, result);
+                }
+            }
+            return builder == null ? this : builder.build(null);
+        }
+
+        @Override
+        public HAMT<K, Tuple2<V, V>> changed(HAMT<K, V> other, EquivalenceRelation<K> keyEqRel, int level) {
+            if (other == this)
+                return rootNode();
+
+            Node<K, V>               node    = asNode(other);
+            Builder<K, Tuple2<V, V>> builder = null;
+            for (int bitmap = (dataMap | nodeMap) & (node.dataMap | node.nodeMap); bitmap != 0; bitmap &= bitmap - 1) {
+                int bitpos = Integer.lowestOneBit(bitmap);
+                if ((dataMap & bitpos) != 0) {
+                    int          dataIndex = index(dataMap, bitpos);
+                    K            key       = keyAt(dataIndex);
+                    V            value     = valueAt(dataIndex);
+                    int          keyHash   = hashes[dataIndex];
+                    Tuple2<V, V> change    = node.get(key, keyHash, keyEqRel, level)
+                            .filter(otherValue -> !Objects.equals(value, otherValue))
+                            .<Tuple2<V, V>>fmap(otherValue -> HList.tuple(value, otherValue))
+                            .orElse(null);
+                    if (change != null)
+                        builder = (builder == null ? new Builder<K, Tuple2<V, V>>() : builder)
+                                .inline(bitpos, key, change, keyHash);
+                } else {
+                    HAMT<K, Tuple2<V, V>> result = nodeAt(index(nodeMap, bitpos))
+                            .changed(node.subtreeAt(bitpos, level + 1), keyEqRel, level + 1);
+                    if (result.size() != 0)
+                        builder = (builder == null ? new Builder<K, Tuple2<V, V>>() : builder).slot(bitpos, result);
+                }
+            }
+            return builder == null ? rootNode() : builder.build(null);
+        }
+
+        @Override
+        public HAMT<K, V> filter(Fn2<? super K, ? super V, ? extends Boolean> predicate) {
+            Builder<K, V> builder = null;
+            for (int bitmap = dataMap | nodeMap; bitmap != 0; bitmap &= bitmap - 1) {
+                int bitpos = Integer.lowestOneBit(bitmap);
+                if ((dataMap & bitpos) != 0) {
+                    int dataIndex = index(dataMap, bitpos);
+                    K   key       = keyAt(dataIndex);
+                    V   value     = valueAt(dataIndex);
+                    if (predicate.apply(key, value)) {
+                        if (builder != null)
+                            builder.inline(bitpos, key, value, hashes[dataIndex]);
+                    } else if (builder == null) {
+                        builder = builderBefore(bitpos);
+                    }
+                } else {
+                    HAMT<K, V> child  = nodeAt(index(nodeMap, bitpos));
+                    HAMT<K, V> result = child.filter(predicate);
+                    if (result != child && builder == null)
+                        builder = builderBefore(bitpos);
+                    if (builder != null)
+                        builder.slot(bitpos, result);
+                }
+            }
+            return builder == null ? this : builder.build(null);
+        }
+
+        Builder<K, V> builderBefore(int bitpos) {
+            Builder<K, V> builder = new Builder<>();
+            for (int bitmap = (dataMap | nodeMap) & (bitpos - 1); bitmap != 0; bitmap &= bitmap - 1) {
+                builder.copy(Integer.lowestOneBit(bitmap), this);
+            }
+            return builder;
+        }
+
+        @Override
+        public <W> HAMT<K, W> mapValues(Fn2<? super K, ? super V, ? extends W> fn) {
+            if (size == 0)
+                return rootNode();
+
+            Object[] table        = new Object[this.table.length];
+            int      hash         = 0;
+            int      payloadArity = payloadArity();
+            for (int i = 0; i < payloadArity; i++) {
+                K key   = keyAt(i);
+                W value = fn.apply(key, valueAt(i));
+                table[2 * i] = key;
+                table[2 * i + 1] = value;
+                hash += entryHash(hashes[i], value);
+            }
+
+            int nodeArity = nodeArity();
+            for (int i = 0; i < nodeArity; i++) {
+                HAMT<K, W> child = nodeAt(i).mapValues(fn);
+                table[table.length - 1 - i] = child;
+                hash += child.hash();
+            }
+            return new Node<>(dataMap, nodeMap, table, hashes, size, hash, keyHashSum, null);
+        }
+
+        @Override
+        public boolean sameEntries(HAMT<K, V> other, EquivalenceRelation<K> keyEqRel) {
+            if (other == this)
+                return true;
+            if (other instanceof Chain<?, ?>)
+                return other.sameEntries(this, keyEqRel);
+            if (!(other instanceof Node<?, ?>))
+                return false;
+
+            Node<K, V> node = (Node<K, V>) other;
+            if (size != node.size || hash != node.hash || dataMap != node.dataMap || nodeMap != node.nodeMap
+                    || !java.util.Arrays.equals(hashes, node.hashes))
+                return false;
+
+            int payloadArity = payloadArity();
+            for (int i = 0; i < payloadArity; i++) {
+                if (!keyEqRel.apply(keyAt(i), node.keyAt(i)) || !Objects.equals(valueAt(i), node.valueAt(i)))
+                    return false;
+            }
+
+            int nodeArity = nodeArity();
+            for (int i = 0; i < nodeArity; i++) {
+                HAMT<K, V> child = nodeAt(i);
+                if (child != node.nodeAt(i) && !child.sameEntries(node.nodeAt(i), keyEqRel))
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean sameKeys(HAMT<K, ?> other, EquivalenceRelation<K> keyEqRel) {
+            if (other == this)
+                return true;
+            if (other instanceof Chain<?, ?>)
+                return ((Chain<K, ?>) other).sameKeys(this, keyEqRel);
+            if (!(other instanceof Node<?, ?>))
+                return false;
+
+            Node<K, ?> node = (Node<K, ?>) other;
+            if (size != node.size || dataMap != node.dataMap || nodeMap != node.nodeMap
+                    || !java.util.Arrays.equals(hashes, node.hashes))
+                return false;
+
+            int payloadArity = payloadArity();
+            for (int i = 0; i < payloadArity; i++) {
+                if (!keyEqRel.apply(keyAt(i), node.keyAt(i)))
+                    return false;
+            }
+
+            int nodeArity = nodeArity();
+            for (int i = 0; i < nodeArity; i++) {
+                HAMT<K, V> child = nodeAt(i);
+                if (child != node.nodeAt(i) && !child.sameKeys(node.nodeAt(i), keyEqRel))
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public int hash() {
+            return hash;
+        }
+
+        @Override
+        public int keyHashSum() {
+            return keyHashSum;
+        }
+
+        @Override
+        public int payloadArity() {
+            return Integer.bitCount(dataMap);
+        }
+
+        @Override
+        public int nodeArity() {
+            return Integer.bitCount(nodeMap);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public K keyAt(int dataIndex) {
+            return (K) table[2 * dataIndex];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V valueAt(int dataIndex) {
+            return (V) table[2 * dataIndex + 1];
         }
 
         @Override
-        public Maybe<HAMT<K, V>> remove(K key, Bitmap32 keyHash, EquivalenceRelation<K> keyEqRel, int level) {
-            int bitmapIndex = bitmapIndex(keyHash, level);
-            if (!bitmap.populatedAtIndex(bitmapIndex))
-                return just(this);
+        public int hashAt(int dataIndex) {
+            return hashes[dataIndex];
+        }
 
-            int tableIndex = tableIndex(bitmapIndex);
-            return just(valueAtIndex(tableIndex)
-                                .remove(key, keyHash, keyEqRel, level + 1)
-                                .fmap(override -> overrideAt(tableIndex, override))
-                                .orElseGet(() -> deleteAt(bitmapIndex, tableIndex)));
+        @Override
+        @SuppressWarnings("unchecked")
+        public HAMT<K, V> nodeAt(int nodeIndex) {
+            return (HAMT<K, V>) table[table.length - 1 - nodeIndex];
         }
 
         @Override
         public boolean equals(Object other) {
+            if (other instanceof Chain<?, ?>)
+                return other.equals(this);
             if (other instanceof Node<?, ?>) {
                 Node<?, ?> node = (Node<?, ?>) other;
-                return Objects.equals(bitmap, node.bitmap) &&
-                        java.util.Arrays.equals(table, node.table);
+                return dataMap == node.dataMap &&
+                        nodeMap == node.nodeMap &&
+                        size == node.size &&
+                        hash == node.hash &&
+                        java.util.Arrays.equals(table, node.table) &&
+                        java.util.Arrays.equals(hashes, node.hashes);
             }
             return false;
         }
 
         @Override
         public int hashCode() {
-            int result = Objects.hash(bitmap);
+            int result = dataMap;
+            result = 31 * result + nodeMap;
             result = 31 * result + java.util.Arrays.hashCode(table);
+            result = 31 * result + java.util.Arrays.hashCode(hashes);
             return result;
         }
 
-        private int tableIndex(int bitmapIndex) {
-            return bitmap.lowerBits(bitmapIndex).populationCount();
+        @Override
+        public String toString() {
+            return "Node{dataMap=" + bitmap32(dataMap) +
+                    ", nodeMap=" + bitmap32(nodeMap) +
+                    ", table=" + java.util.Arrays.toString(table) + "}";
         }
 
-        private int bitmapIndex(Bitmap32 keyHash, int level) {
-            int shift = (level - 1) * LEVEL_SIZE;
-            return keyHash.and(fillUpTo(LEVEL_SIZE).shiftL(shift))
-                    .signedShiftR(shift)
-                    .bits();
+        private static int slot(int keyHash, int level) {
+            return (keyHash >>> ((level - 1) * LEVEL_SIZE)) & SLOT_MASK;
         }
 
-        @SuppressWarnings("unchecked")
-        private HAMT<K, V> valueAtIndex(int tableIndex) {
-            return (HAMT<K, V>) table[tableIndex];
+        private static int bitpos(int keyHash, int level) {
+            return 1 << slot(keyHash, level);
         }
 
-        private Node<K, V> insertAt(int tableIndex, int bitmapIndex, HAMT<K, V> valueForSlot) {
-            return new Node<>(bitmap.populateAtIndex(bitmapIndex), Arrays.insertAt(tableIndex, table, valueForSlot));
+        private static int index(int bitmap, int bitpos) {
+            return Integer.bitCount(bitmap & (bitpos - 1));
         }
 
-        private Node<K, V> overrideAt(int tableIndex, HAMT<K, V> valueForSlot) {
-            return new Node<>(bitmap, Arrays.overrideAt(tableIndex, table, valueForSlot));
+        private boolean ownedBy(Object edit) {
+            return edit != null && edit == this.edit;
         }
 
-        private Node<K, V> deleteAt(int bitmapIndex, int tableIndex) {
-            return new Node<>(bitmap.evictAtIndex(bitmapIndex), Arrays.deleteAt(tableIndex, table));
+        private HAMT<K, V> subtreeAt(int bitpos, int level) {
+            if ((dataMap & bitpos) == 0)
+                return nodeAt(index(nodeMap, bitpos));
+
+            int dataIndex = index(dataMap, bitpos);
+            return singleton(keyAt(dataIndex), valueAt(dataIndex), hashes[dataIndex], level, null);
+        }
+
+        private Node<K, V> mergeNode(int bitpos, HAMT<K, V> node, Semigroup<V> semigroup,
+                                     EquivalenceRelation<K> keyEqRel, int level, Object edit) {
+            if ((dataMap & bitpos) != 0) {
+                int        dataIndex = index(dataMap, bitpos);
+                int        keyHash   = hashes[dataIndex];
+                V          value     = valueAt(dataIndex);
+                HAMT<K, V> merged    = singleton(keyAt(dataIndex), value, keyHash, level + 1, edit)
+                        .merge(node, semigroup, keyEqRel, level + 1, edit);
+                return migrateToNode(bitpos, dataIndex, merged,
+                                     size - 1 + merged.size(), hash - entryHash(keyHash, value) + merged.hash(),
+                                     edit);
+            }
+
+            if ((nodeMap & bitpos) != 0) {
+                int        nodeIndex = index(nodeMap, bitpos);
+                HAMT<K, V> child     = nodeAt(nodeIndex);
+                int        childSize = child.size();
+                int        childHash = child.hash();
+                int        childSum  = child.keyHashSum();
+                HAMT<K, V> merged    = child.merge(node, semigroup, keyEqRel, level + 1, edit);
+                if (merged == child && merged.size() == childSize && merged.hash() == childHash)
+                    return this;
+
+                return setNode(nodeIndex, merged, size + merged.size() - childSize, hash + merged.hash() - childHash,
+                               keyHashSum + merged.keyHashSum() - childSum, edit);
+            }
+
+            return insertNode(bitpos, node, size + node.size(), hash + node.hash(), edit);
+        }
+
+        private Node<K, V> setValue(int dataIndex, K key, V value, int hash, Object edit) {
+            if (ownedBy(edit)) {
+                table[2 * dataIndex] = key;
+                table[2 * dataIndex + 1] = value;
+                this.hash = hash;
+                return this;
+            }
+
+            Object[] copy = table.clone();
+            copy[2 * dataIndex] = key;
+            copy[2 * dataIndex + 1] = value;
+            return new Node<>(dataMap, nodeMap, copy, hashes, size, hash, keyHashSum, edit);
+        }
+
+        private Node<K, V> setNode(int nodeIndex, HAMT<K, V> node, int size, int hash, int keyHashSum,
+                                   Object edit) {
+            int tableIndex = table.length - 1 - nodeIndex;
+            if (ownedBy(edit)) {
+                table[tableIndex] = node;
+                this.size = size;
+                this.hash = hash;
+                this.keyHashSum = keyHashSum;
+                return this;
+            }
+            return new Node<>(dataMap, nodeMap, Arrays.overrideAt(tableIndex, table, node), hashes, size, hash,
+                              keyHashSum, edit);
+        }
+
+        private Node<K, V> insertValue(int bitpos, int dataIndex, K key, V value, int keyHash, int size, int hash,
+                                       Object edit) {
+            int      dataMap    = this.dataMap | bitpos;
+            Object[] table      = Arrays.insertPairAt(2 * dataIndex, this.table, key, value);
+            int[]    hashes     = Arrays.insertAt(dataIndex, this.hashes, keyHash);
+            int      keyHashSum = this.keyHashSum + keyHash;
+            if (ownedBy(edit)) {
+                this.dataMap = dataMap;
+                this.table = table;
+                this.hashes = hashes;
+                this.size = size;
+                this.hash = hash;
+                this.keyHashSum = keyHashSum;
+                return this;
+            }
+            return new Node<>(dataMap, nodeMap, table, hashes, size, hash, keyHashSum, edit);
+        }
+
+        private Node<K, V> insertNode(int bitpos, HAMT<K, V> node, int size, int hash, Object edit) {
+            int      nodeMap    = this.nodeMap | bitpos;
+            Object[] table      = Arrays.insertAt(this.table.length - index(this.nodeMap, bitpos), this.table, node);
+            int      keyHashSum = this.keyHashSum + node.keyHashSum();
+            if (ownedBy(edit)) {
+                this.nodeMap = nodeMap;
+                this.table = table;
+                this.size = size;
+                this.hash = hash;
+                this.keyHashSum = keyHashSum;
+                return this;
+            }
+            return new Node<>(dataMap, nodeMap, table, hashes, size, hash, keyHashSum, edit);
+        }
+
+        private Node<K, V> removeValue(int bitpos, int dataIndex, int size, int hash, Object edit) {
+            int      dataMap    = this.dataMap ^ bitpos;
+            Object[] table      = Arrays.deletePairAt(2 * dataIndex, this.table);
+            int[]    hashes     = Arrays.deleteAt(dataIndex, this.hashes);
+            int      keyHashSum = this.keyHashSum - this.hashes[dataIndex];
+            if (ownedBy(edit)) {
+                this.dataMap = dataMap;
+                this.table = table;
+                this.hashes = hashes;
+                this.size = size;
+                this.hash = hash;
+                this.keyHashSum = keyHashSum;
+                return this;
+            }
+            return new Node<>(dataMap, nodeMap, table, hashes, size, hash, keyHashSum, edit);
+        }
+
+        private Node<K, V> migrateToNode(int bitpos, int dataIndex, HAMT<K, V> node, int size, int hash,
+                                         Object edit) {
+            int      oldIndex = 2 * dataIndex;
+            int      newIndex = table.length - 2 - index(nodeMap, bitpos);
+            Object[] table    = new Object[this.table.length - 1];
+            System.arraycopy(this.table, 0, table, 0, oldIndex);
+            System.arraycopy(this.table, oldIndex + 2, table, oldIndex, newIndex - oldIndex);
+            table[newIndex] = node;
+            System.arraycopy(this.table, newIndex + 2, table, newIndex + 1, this.table.length - newIndex - 2);
+
+            int   dataMap    = this.dataMap ^ bitpos;
+            int   nodeMap    = this.nodeMap | bitpos;
+            int[] hashes     = Arrays.deleteAt(dataIndex, this.hashes);
+            int   keyHashSum = this.keyHashSum - this.hashes[dataIndex] + node.keyHashSum();
+            if (ownedBy(edit)) {
+                this.dataMap = dataMap;
+                this.nodeMap = nodeMap;
+                this.table = table;
+                this.hashes = hashes;
+                this.size = size;
+                this.hash = hash;
+                this.keyHashSum = keyHashSum;
+                return this;
+            }
+            return new Node<>(dataMap, nodeMap, table, hashes, size, hash, keyHashSum, edit);
+        }
+
+        private Node<K, V> migrateToData(int bitpos, int nodeIndex, K key, V value, int keyHash, int size,
+                                         int hash, int keyHashSum, Object edit) {
+            int      dataIndex = index(dataMap, bitpos);
+            int      oldIndex  = this.table.length - 1 - nodeIndex;
+            int      newIndex  = 2 * dataIndex;
+            Object[] table     = new Object[this.table.length + 1];
+            System.arraycopy(this.table, 0, table, 0, newIndex);
+            table[newIndex] = key;
+            table[newIndex + 1] = value;
+            System.arraycopy(this.table, newIndex, table, newIndex + 2, oldIndex - newIndex);
+            System.arraycopy(this.table, oldIndex + 1, table, oldIndex + 2, this.table.length - oldIndex - 1);
+            int   dataMap = this.dataMap | bitpos;
+            int   nodeMap = this.nodeMap ^ bitpos;
+            int[] hashes  = Arrays.insertAt(dataIndex, this.hashes, keyHash);
+            if (ownedBy(edit)) {
+                this.dataMap = dataMap;
+                this.nodeMap = nodeMap;
+                this.table = table;
+                this.hashes = hashes;
+                this.size = size;
+                this.hash = hash;
+                this.keyHashSum = keyHashSum;
+                return this;
+            }
+            return new Node<>(dataMap, nodeMap, table, hashes, size, hash, keyHashSum, edit);
+        }
+
+        static <K, V> HAMT<K, V> mergeTwo(K existingKey, V existing, int existingKeyHash,
+                                          K key, V value, int keyHash,
+                                          EquivalenceRelation<K> keyEqRel, int level, Object edit) {
+            if (level > MAX_LEVEL)
+                return Collision.of(existingKey, existing, key, value, keyHash, keyEqRel);
+
+            int existingSlot = slot(existingKeyHash, level);
+            int slot         = slot(keyHash, level);
+            if (existingSlot == slot) {
+                HAMT<K, V> node = mergeTwo(existingKey, existing, existingKeyHash, key, value, keyHash,
+                                           keyEqRel, level + 1, edit);
+                return new Chain<>(1 << slot, node);
+            }
+
+            return new Node<>(1 << existingSlot | 1 << slot,
+                              0,
+                              existingSlot < slot
+                              ? new Object[]{existingKey, existing, key, value}
+                              : new Object[]{key, value, existingKey, existing},
+                              existingSlot < slot
+                              ? new int[]{existingKeyHash, keyHash}
+                              : new int[]{keyHash, existingKeyHash},
+                              2,
+                              entryHash(existingKeyHash, existing) + entryHash(keyHash, value),
+                              existingKeyHash + keyHash,
+                              edit);
+        }
+
+        static <K, V> HAMT<K, V> singleton(K key, V value, int keyHash, int level, Object edit) {
+            return level > MAX_LEVEL
+                   ? new Collision<>(keyHash, new Object[]{key, value})
+                   : new Node<>(bitpos(keyHash, level), 0, new Object[]{key, value}, new int[]{keyHash},
+                                1, entryHash(keyHash, value), keyHash, edit);
+        }
+
+        @SuppressWarnings("unchecked")
+        static <K, V> HAMT<K, V> bulkLoad(Object[] entries, int[] keyHashes, int count,
+                                          EquivalenceRelation<K> keyEqRel) {
+            if (count == 0)
+                return rootNode();
+
+            int[] order = new int[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            Builder<K, V>[] builders = (Builder<K, V>[]) new Builder<?, ?>[MAX_LEVEL];
+            for (int i = 0; i < MAX_LEVEL; i++) {
+                builders[i] = new Builder<>();
+            }
+            return bulkLoad(entries, keyHashes, order, new int[count], 0, count, keyEqRel, 1, builders);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <K, V> HAMT<K, V> bulkLoad(Object[] entries, int[] keyHashes, int[] order, int[] scratch,
+                                                  int from, int to, EquivalenceRelation<K> keyEqRel, int level,
+                                                  Builder<K, V>[] builders) {
+            if (level > MAX_LEVEL) {
+                int        first     = order[from];
+                HAMT<K, V> collision = singleton((K) entries[2 * first], (V) entries[2 * first + 1],
+                                                 keyHashes[first], level, null);
+                for (int i = from + 1; i < to; i++) {
+                    int entry = order[i];
+                    collision = collision.put((K) entries[2 * entry], (V) entries[2 * entry + 1], keyHashes[entry],
+                                              keyEqRel, level, null);
+                }
+                return collision;
+            }
+
+            int[] bounds = new int[(1 << LEVEL_SIZE) + 1];
+            for (int i = from; i < to; i++) {
+                bounds[slot(keyHashes[order[i]], level) + 1]++;
+            }
+            for (int slot = 0; slot < 1 << LEVEL_SIZE; slot++) {
+                bounds[slot + 1] += bounds[slot];
+            }
+            for (int i = from; i < to; i++) {
+                int entry = order[i];
+                scratch[from + bounds[slot(keyHashes[entry], level)]++] = entry;
+            }
+            System.arraycopy(scratch, from, order, from, to - from);
+
+            Builder<K, V> builder = builders[level - 1];
+            int           start   = from;
+            for (int slot = 0; slot < 1 << LEVEL_SIZE; slot++) {
+                int end = from + bounds[slot];
+                if (end - start == 1) {
+                    int entry = order[start];
+                    builder.inline(1 << slot, (K) entries[2 * entry], (V) entries[2 * entry + 1], keyHashes[entry]);
+                } else if (end - start > 1) {
+                    builder.slot(1 << slot, bulkLoad(entries, keyHashes, order, scratch, start, end, keyEqRel,
+                                                     level + 1, builders));
+                }
+                start = end;
+            }
+            HAMT<K, V> node = builder.build(null);
+            builder.clear();
+            return node;
         }
 
         @SuppressWarnings("unchecked")
         static <K, V> HAMT<K, V> rootNode() {
             return (HAMT<K, V>) ROOT;
         }
+
+        static <K, V> HAMT<K, V> leftmostPayload(HAMT<K, V> hamt) {
+            while (hamt.payloadArity() == 0) {
+                hamt = hamt.nodeAt(0);
+            }
+            return hamt;
+        }
+
+        static <K, V> Node<K, V> asNode(HAMT<K, V> hamt) {
+            if (hamt instanceof Chain<?, ?>) {
+                Chain<K, V> chain = (Chain<K, V>) hamt;
+                return new Node<>(0, chain.bitpos, new Object[]{chain.child}, Arrays.EMPTY_INTS, chain.size(),
+                                  chain.hash(), chain.keyHashSum(), null);
+            }
+            return (Node<K, V>) hamt;
+        }
+
+        static final class Builder<K, V> {
+            private final Object[] payload = new Object[2 << LEVEL_SIZE];
+            private final int[]    hashes  = new int[1 << LEVEL_SIZE];
+            private final Object[] nodes   = new Object[1 << LEVEL_SIZE];
+            private       int      dataMap;
+            private       int      nodeMap;
+            private       int      payloadArity;
+            private       int      nodeArity;
+            private       int      size;
+            private       int      hash;
+            private       int      keyHashSum;
+
+            Builder<K, V> inline(int bitpos, K key, V value, int keyHash) {
+                dataMap |= bitpos;
+                payload[2 * payloadArity] = key;
+                payload[2 * payloadArity + 1] = value;
+                hashes[payloadArity++] = keyHash;
+                size++;
+                hash += entryHash(keyHash, value);
+                keyHashSum += keyHash;
+                return this;
+            }
+
+            Builder<K, V> nest(int bitpos, HAMT<K, V> node) {
+                nodeMap |= bitpos;
+                nodes[nodeArity++] = node;
+                size += node.size();
+                hash += node.hash();
+                keyHashSum += node.keyHashSum();
+                return this;
+            }
+
+            Builder<K, V> copy(int bitpos, Node<K, V> node) {
+                if ((node.dataMap & bitpos) == 0)
+                    return nest(bitpos, node.nodeAt(index(node.nodeMap, bitpos)));
+
+                int dataIndex = index(node.dataMap, bitpos);
+                return inline(bitpos, node.keyAt(dataIndex), node.valueAt(dataIndex), node.hashes[dataIndex]);
+            }
+
+            Builder<K, V> slot(int bitpos, HAMT<K, V> subtree) {
+                switch (subtree.size()) {
+                    case 0:
+                        return this;
+                    case 1:
+                        HAMT<K, V> payload = leftmostPayload(subtree);
+                        return inline(bitpos, payload.keyAt(0), payload.valueAt(0), payload.hashAt(0));
+                    default:
+                        return nest(bitpos, subtree);
+                }
+            }
+
+            int size() {
+                return size;
+            }
+
+            void clear() {
+                dataMap = 0;
+                nodeMap = 0;
+                payloadArity = 0;
+                nodeArity = 0;
+                size = 0;
+                hash = 0;
+                keyHashSum = 0;
+            }
+
+            @SuppressWarnings("unchecked")
+            HAMT<K, V> build(Object edit) {
+                if (size == 0)
+                    return rootNode();
+                if (payloadArity == 0 && nodeArity == 1)
+                    return new Chain<>(nodeMap, (HAMT<K, V>) nodes[0]);
+
+                Object[] table = new Object[2 * payloadArity + nodeArity];
+                System.arraycopy(payload, 0, table, 0, 2 * payloadArity);
+                for (int i = 0; i < nodeArity; i++) {
+                    table[table.length - 1 - i] = nodes[i];
+                }
+                int[] hashes = payloadArity == 0
+                               ? Arrays.EMPTY_INTS
+                               : java.util.Arrays.copyOf(this.hashes, payloadArity);
+                return new Node<>(dataMap, nodeMap, table, hashes, size, hash, keyHashSum, edit);
+            }
+        }
     }
 
-    final class Entry<K, V> implements HAMT<K, V>, Product2<K, V> {
+    final class Chain<K, V> implements HAMT<K, V> {
+        private final int        bitpos;
+        private final HAMT<K, V> child;
 
-        private final K k;
-        private final V v;
+        Chain(int bitpos, HAMT<K, V> child) {
+            this.bitpos = bitpos;
+            this.child = child;
+        }
+
+        @Override
+        public HAMT<K, V> put(K key, V value, int keyHash, Semigroup<V> semigroup, EquivalenceRelation<K> keyEqRel,
+                              int level, Object edit) {
+            if (Node.bitpos(keyHash, level) != bitpos)
+                return withValue(key, value, keyHash, level, edit);
 
-        Entry(K k, V v) {
-            this.k = k;
-            this.v = v;
+            HAMT<K, V> updated = child.put(key, value, keyHash, semigroup, keyEqRel, level + 1, edit);
+            return updated == child ? this : new Chain<>(bitpos, updated);
         }
 
         @Override
-        public K _1() {
-            return k;
+        public HAMT<K, V> update(K key, int keyHash, Fn1<? super Maybe<V>, ? extends Maybe<V>> fn,
+                                 EquivalenceRelation<K> keyEqRel, int level, Object edit) {
+            if (Node.bitpos(keyHash, level) != bitpos)
+                return fn.apply(nothing()).<HAMT<K, V>>match(__ -> this,
+                                                             value -> withValue(key, value, keyHash, level, edit));
+
+            return withChild(child.update(key, keyHash, fn, keyEqRel, level + 1, edit), edit);
         }
 
         @Override
-        public V _2() {
-            return v;
+        public Maybe<V> get(K key, int keyHash, EquivalenceRelation<K> keyEqRel, int level) {
+            return Node.bitpos(keyHash, level) == bitpos ? child.get(key, keyHash, keyEqRel, level + 1) : nothing();
         }
 
         @Override
-        public HAMT<K, V> put(K newKey, V newValue, Bitmap32 keyHash,
-                              EquivalenceRelation<K> keyEqRel, HashingAlgorithm<K> keyHashAlg,
-                              int level) {
-            if (keyEqRel.apply(newKey, k))
-                return new Entry<>(newKey, newValue);
+        public V getOrDefault(K key, V defaultValue, int keyHash, EquivalenceRelation<K> keyEqRel, int level) {
+            return Node.bitpos(keyHash, level) == bitpos
+                   ? child.getOrDefault(key, defaultValue, keyHash, keyEqRel, level + 1)
+                   : defaultValue;
+        }
 
-            Bitmap32 existingKeyHash = bitmap32(keyHashAlg.apply(k));
-            return level <= MAX_LEVEL
-                   ? new Node<K, V>(Bitmap32.empty(), new Object[0])
-                           .put(k, v, existingKeyHash, keyEqRel, keyHashAlg, level)
-                           .put(newKey, newValue, keyHash, keyEqRel, keyHashAlg, level)
-                   : new Collision<>(existingKeyHash, StrictStack.of(this, new Entry<>(newKey, newValue)));
+        @Override
+        public boolean contains(K key, int keyHash, EquivalenceRelation<K> keyEqRel, int level) {
+            return Node.bitpos(keyHash, level) == bitpos && child.contains(key, keyHash, keyEqRel, level + 1);
         }
 
         @Override
-        public Iterator<Tuple2<K, V>> iterator() {
-            return singleton(tuple(k, v)).iterator();
+        public HAMT<K, V> remove(K key, int keyHash, EquivalenceRelation<K> keyEqRel, int level) {
+            if (Node.bitpos(keyHash, level) != bitpos)
+                return this;
+
+            return withChild(child.remove(key, keyHash, keyEqRel, level + 1), null);
         }
 
         @Override
-        public Maybe<V> get(K key, Bitmap32 keyHash, EquivalenceRelation<K> keyEqRel, int level) {
-            return keyEqRel.apply(key, k) ? just(v) : nothing();
+        public HAMT<K, V> removeFirst() {
+            return withChild(child.removeFirst(), null);
         }
 
         @Override
-        public Maybe<HAMT<K, V>> remove(K key, Bitmap32 keyHash, EquivalenceRelation<K> keyEqRel, int level) {
-            return keyEqRel.apply(key, k) ? nothing() : just(this);
+        public HAMT<K, V> merge(HAMT<K, V> other, Semigroup<V> semigroup, EquivalenceRelation<K> keyEqRel,
+                                int level, Object edit) {
+            if (other.size() == 0)
+                return this;
+            if (!(other instanceof Chain<?, ?>) || ((Chain<K, V>) other).bitpos != bitpos)
+                return Node.asNode(this).merge(other, semigroup, keyEqRel, level, edit);
+
+            HAMT<K, V> merged = child.merge(((Chain<K, V>) other).child, semigroup, keyEqRel, level + 1, edit);
+            return merged == child ? this : new Chain<>(bitpos, merged);
+        }
+
+        @Override
+        public HAMT<K, V> intersect(HAMT<K, ?> other, EquivalenceRelation<K> keyEqRel, int level) {
+            if (other == this)
+                return this;
+
+            HAMT<K, ?> subtree = subtreeOf(other, level);
+            return subtree.size() == 0
+                   ? Node.rootNode()
+                   : withChild(child.intersect(subtree, keyEqRel, level + 1), null);
+        }
+
+        @Override
+        public HAMT<K, V> subtract(HAMT<K, ?> other, EquivalenceRelation<K> keyEqRel, int level) {
+            if (other == this)
+                return Node.rootNode();
+
+            HAMT<K, ?> subtree = subtreeOf(other, level);
+            return subtree.size() == 0
+                   ? this
+                   : withChild(child.subtract(subtree, keyEqRel, level + 1), null);
+        }
+
+        @Override
+        public HAMT<K, Tuple2<V, V>> changed(HAMT<K, V> other, EquivalenceRelation<K> keyEqRel, int level) {
+            if (other == this)
+                return Node.rootNode();
+
+            HAMT<K, V> subtree = subtreeOf(other, level);
+            return subtree.size() == 0
+                   ? Node.rootNode()
+                   : chain(bitpos, child.changed(subtree, keyEqRel, level + 1), null);
+        }
+
+        @Override
+        public HAMT<K, V> filter(Fn2<? super K, ? super V, ? extends Boolean> predicate) {
+            return withChild(child.filter(predicate), null);
+        }
+
+        @Override
+        public <W> HAMT<K, W> mapValues(Fn2<? super K, ? super V, ? extends W> fn) {
+            return new Chain<>(bitpos, child.mapValues(fn));
+        }
+
+        @Override
+        public boolean sameEntries(HAMT<K, V> other, EquivalenceRelation<K> keyEqRel) {
+            if (other == this)
+                return true;
+
+            HAMT<K, V> otherChild = onlyChildOf(other);
+            return otherChild != null && (otherChild == child || child.sameEntries(otherChild, keyEqRel));
+        }
+
+        @Override
+        public boolean sameKeys(HAMT<K, ?> other, EquivalenceRelation<K> keyEqRel) {
+            if (other == this)
+                return true;
+
+            HAMT<K, ?> otherChild = onlyChildOf(other);
+            return otherChild != null && (otherChild == child || child.sameKeys(otherChild, keyEqRel));
+        }
+
+        @Override
+        public int size() {
+            return child.size();
+        }
+
+        @Override
+        public int hash() {
+            return child.hash();
+        }
+
+        @Override
+        public int keyHashSum() {
+            return child.keyHashSum();
+        }
+
+        @Override
+        public int payloadArity() {
+            return 0;
+        }
+
+        @Override
+        public int nodeArity() {
+            return 1;
+        }
+
+        @Override
+        public K keyAt(int dataIndex) {
+            throw new IndexOutOfBoundsException(String.valueOf(dataIndex));
+        }
+
+        @Override
+        public V valueAt(int dataIndex) {
+            throw new IndexOutOfBoundsException(String.valueOf(dataIndex));
+        }
+
+        @Override
+        public int hashAt(int dataIndex) {
+            throw new IndexOutOfBoundsException(String.valueOf(dataIndex));
+        }
+
+        @Override
+        public HAMT<K, V> nodeAt(int nodeIndex) {
+            if (nodeIndex != 0)
+                throw new IndexOutOfBoundsException(String.valueOf(nodeIndex));
+
+            return child;
+        }
+
+        @Override
+        public Iterator<Tuple2<K, V>> iterator() {
+            return new Cursor<>(this, HList::tuple);
         }
 
         @Override
         public boolean equals(Object other) {
-            if (other instanceof Entry<?, ?>) {
-                Entry<?, ?> entry = (Entry<?, ?>) other;
-                return Objects.equals(k, entry.k) && Objects.equals(v, entry.v);
+            if (other instanceof Chain<?, ?>) {
+                Chain<?, ?> chain = (Chain<?, ?>) other;
+                return bitpos == chain.bitpos && child.equals(chain.child);
+            }
+            if (other instanceof Node<?, ?>) {
+                Node<?, ?> node = (Node<?, ?>) other;
+                return node.dataMap == 0 && node.nodeMap == bitpos && node.table.length == 1
+                        && child.equals(node.table[0]);
             }
             return false;
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(k, v);
+            int result = 31 * bitpos + 31 + child.hashCode();
+            return 31 * result + 1;
+        }
+
+        @Override
+        public String toString() {
+            return "Chain{nodeMap=" + bitmap32(bitpos) + ", child=" + child + "}";
+        }
+
+        private HAMT<K, V> withValue(K key, V value, int keyHash, int level, Object edit) {
+            return new Node<>(Node.bitpos(keyHash, level), bitpos, new Object[]{key, value, child},
+                              new int[]{keyHash}, size() + 1, hash() + entryHash(keyHash, value),
+                              keyHashSum() + keyHash, edit);
+        }
+
+        private HAMT<K, V> withChild(HAMT<K, V> updated, Object edit) {
+            return updated == child && updated.size() > 1 ? this : chain(bitpos, updated, edit);
+        }
+
+        private <W> HAMT<K, W> subtreeOf(HAMT<K, W> other, int level) {
+            if (other instanceof Chain<?, ?>) {
+                Chain<K, W> chain = (Chain<K, W>) other;
+                return chain.bitpos == bitpos ? chain.child : Node.rootNode();
+            }
+
+            Node<K, W> node = (Node<K, W>) other;
+            return ((node.dataMap | node.nodeMap) & bitpos) == 0 ? Node.rootNode() : node.subtreeAt(bitpos, level + 1);
+        }
+
+        private <W> HAMT<K, W> onlyChildOf(HAMT<K, W> other) {
+            if (other instanceof Chain<?, ?>) {
+                Chain<K, W> chain = (Chain<K, W>) other;
+                return chain.bitpos == bitpos ? chain.child : null;
+            }
+            if (other instanceof Node<?, ?>) {
+                Node<K, W> node = (Node<K, W>) other;
+                return node.dataMap == 0 && node.nodeMap == bitpos ? node.nodeAt(0) : null;
+            }
+            return null;
+        }
+
+        static <K, V> HAMT<K, V> chain(int bitpos, HAMT<K, V> subtree, Object edit) {
+            switch (subtree.size()) {
+                case 0:
+                    return Node.rootNode();
+                case 1:
+                    HAMT<K, V> payload = Node.leftmostPayload(subtree);
+                    K          key     = payload.keyAt(0);
+                    V          value   = payload.valueAt(0);
+                    int        keyHash = payload.hashAt(0);
+                    return new Node<>(bitpos, 0, new Object[]{key, value}, new int[]{keyHash},
+                                      1, entryHash(keyHash, value), keyHash, edit);
+                default:
+                    return new Chain<>(bitpos, subtree);
+            }
         }
     }
 
     final class Collision<K, V> implements HAMT<K, V> {
-        private final Bitmap32                 keyHash;
-        private final StrictStack<Entry<K, V>> kvPairs;
+        private final int      keyHash;
+        private final Object[] table;
+        private final int      hash;
 
-        Collision(Bitmap32 keyHash,
-                  StrictStack<Entry<K, V>> kvPairs) {
+        Collision(int keyHash, Object[] table) {
+            this(keyHash, table, sumEntryHashes(keyHash, table));
+        }
+
+        private Collision(int keyHash, Object[] table, int hash) {
             this.keyHash = keyHash;
-            this.kvPairs = kvPairs;
+            this.table = table;
+            this.hash = hash;
         }
 
         @Override
-        public HAMT<K, V> put(K key, V value, Bitmap32 keyHash, EquivalenceRelation<K> keyEqRel,
-                              HashingAlgorithm<K> keyHashAlg, int level) {
-            return new Collision<>(keyHash, foldLeft(((s, kv) -> !keyEqRel.apply(key, kv._1()) ? s.cons(kv) : s),
-                                                     StrictStack.of(new Entry<>(key, value)),
-                                                     kvPairs));
+        public HAMT<K, V> put(K key, V value, int keyHash, Semigroup<V> semigroup, EquivalenceRelation<K> keyEqRel,
+                              int level, Object edit) {
+            int dataIndex = dataIndex(key, keyEqRel);
+            if (dataIndex < 0)
+                return insert(dataIndex, key, value);
+
+            V existing = valueAt(dataIndex);
+            V combined = semigroup.apply(existing, value);
+            return combined == existing ? this : replace(dataIndex, key, combined);
+        }
+
+        @Override
+        public HAMT<K, V> update(K key, int keyHash, Fn1<? super Maybe<V>, ? extends Maybe<V>> fn,
+                                 EquivalenceRelation<K> keyEqRel, int level, Object edit) {
+            int dataIndex = dataIndex(key, keyEqRel);
+            if (dataIndex < 0)
+                return fn.apply(nothing()).<HAMT<K, V>>match(__ -> this, value -> insert(dataIndex, key, value));
+
+            V existing = valueAt(dataIndex);
+            return fn.apply(just(existing)).<HAMT<K, V>>match(
+                    __ -> new Collision<>(keyHash, Arrays.deletePairAt(2 * dataIndex, table),
+                                          hash - entryHash(keyHash, existing)),
+                    value -> value == existing ? this : replace(dataIndex, key, value));
+        }
+
+        private Collision<K, V> replace(int dataIndex, K key, V value) {
+            V        existing = valueAt(dataIndex);
+            Object[] copy     = table.clone();
+            copy[2 * dataIndex] = key;
+            copy[2 * dataIndex + 1] = value;
+            return new Collision<>(keyHash, copy, hash - entryHash(keyHash, existing) + entryHash(keyHash, value));
+        }
+
+        private Collision<K, V> insert(int dataIndex, K key, V value) {
+            return new Collision<>(keyHash, Arrays.insertPairAt(2 * -(dataIndex + 1), table, key, value),
+                                   hash + entryHash(keyHash, value));
         }
 
         @Override
         public Iterator<Tuple2<K, V>> iterator() {
-            return map(Tuple2::fromEntry, kvPairs).iterator();
+            return new Cursor<>(this, HList::tuple);
         }
 
         @Override
-        public Maybe<V> get(K key, Bitmap32 keyHash, EquivalenceRelation<K> keyEqRel, int level) {
-            return keyHash.equals(this.keyHash)
-                   ? find(kvPair -> keyEqRel.apply(key, kvPair._1()), kvPairs).fmap(Entry::_2)
-                   : nothing();
+        public Maybe<V> get(K key, int keyHash, EquivalenceRelation<K> keyEqRel, int level) {
+            if (keyHash != this.keyHash)
+                return nothing();
+
+            int dataIndex = dataIndex(key, keyEqRel);
+            return dataIndex >= 0 ? just(valueAt(dataIndex)) : nothing();
+        }
+
+        @Override
+        public V getOrDefault(K key, V defaultValue, int keyHash, EquivalenceRelation<K> keyEqRel, int level) {
+            if (keyHash != this.keyHash)
+                return defaultValue;
+
+            int dataIndex = dataIndex(key, keyEqRel);
+            return dataIndex >= 0 ? valueAt(dataIndex) : defaultValue;
+        }
+
+        @Override
+        public boolean contains(K key, int keyHash, EquivalenceRelation<K> keyEqRel, int level) {
+            return keyHash == this.keyHash && dataIndex(key, keyEqRel) >= 0;
+        }
+
+        @Override
+        public HAMT<K, V> remove(K key, int keyHash, EquivalenceRelation<K> keyEqRel, int level) {
+            if (keyHash != this.keyHash)
+                return this;
+
+            int dataIndex = dataIndex(key, keyEqRel);
+            if (dataIndex < 0)
+                return this;
+
+            return new Collision<>(keyHash, Arrays.deletePairAt(2 * dataIndex, table),
+                                   hash - entryHash(keyHash, valueAt(dataIndex)));
+        }
+
+        @Override
+        public HAMT<K, V> removeFirst() {
+            return new Collision<>(keyHash, Arrays.deletePairAt(0, table), hash - entryHash(keyHash, valueAt(0)));
+        }
+
+        @Override
+        public HAMT<K, V> merge(HAMT<K, V> other, Semigroup<V> semigroup, EquivalenceRelation<K> keyEqRel,
+                                int level, Object edit) {
+            HAMT<K, V> merged       = this;
+            int        payloadArity = other.payloadArity();
+            for (int i = 0; i < payloadArity; i++) {
+                merged = merged.put(other.keyAt(i), other.valueAt(i), keyHash, semigroup, keyEqRel, level, edit);
+            }
+            return merged;
         }
 
         @Override
-        public Maybe<HAMT<K, V>> remove(K key, Bitmap32 keyHash, EquivalenceRelation<K> keyEqRel, int level) {
-            if (!keyHash.equals(this.keyHash))
-                return just(this);
+        public HAMT<K, V> intersect(HAMT<K, ?> other, EquivalenceRelation<K> keyEqRel, int level) {
+            return filter((key, __) -> other.contains(key, keyHash, keyEqRel, level));
+        }
 
-            StrictStack<Entry<K, V>> withoutKey = foldLeft(((s, kv) -> !keyEqRel.apply(key, kv._1())
-                                                                       ? s.cons(kv)
-                                                                       : s),
-                                                           StrictStack.empty(),
-                                                           kvPairs);
-            return just(eq(withoutKey.sizeInfo().getSize(), one())
-                        ? withoutKey.iterator().next()
-                        : new Collision<>(keyHash, withoutKey));
+        @Override
+        public HAMT<K, V> subtract(HAMT<K, ?> other, EquivalenceRelation<K> keyEqRel, int level) {
+            return filter((key, __) -> !other.contains(key, keyHash, keyEqRel, level));
+        }
+
+        @Override
+        public HAMT<K, Tuple2<V, V>> changed(HAMT<K, V> other, EquivalenceRelation<K> keyEqRel, int level) {
+            return filter((key, value) -> other.get(key, keyHash, keyEqRel, level)
+                    .match(__ -> false, otherValue -> !Objects.equals(value, otherValue)))
+                    .mapValues((key, value) -> HList.tuple(value, other.get(key, keyHash, keyEqRel, level)
+                            .orElse(value)));
+        }
+
+        @Override
+        public <W> HAMT<K, W> mapValues(Fn2<? super K, ? super V, ? extends W> fn) {
+            Object[] table = new Object[this.table.length];
+            for (int i = 0; i < payloadArity(); i++) {
+                K key = keyAt(i);
+                table[2 * i] = key;
+                table[2 * i + 1] = fn.apply(key, valueAt(i));
+            }
+            return new Collision<>(keyHash, table);
+        }
+
+        @Override
+        public HAMT<K, V> filter(Fn2<? super K, ? super V, ? extends Boolean> predicate) {
+            Object[] retained     = new Object[table.length];
+            int      length       = 0;
+            int      payloadArity = payloadArity();
+            for (int i = 0; i < payloadArity; i++) {
+                K key   = keyAt(i);
+                V value = valueAt(i);
+                if (predicate.apply(key, value)) {
+                    retained[length++] = key;
+                    retained[length++] = value;
+                }
+            }
+            return length == table.length
+                   ? this
+                   : new Collision<>(keyHash, java.util.Arrays.copyOf(retained, length));
+        }
+
+        @Override
+        public boolean sameEntries(HAMT<K, V> other, EquivalenceRelation<K> keyEqRel) {
+            if (other == this)
+                return true;
+            if (!(other instanceof Collision<?, ?>))
+                return false;
+
+            Collision<K, V> collision = (Collision<K, V>) other;
+            if (keyHash != collision.keyHash || hash != collision.hash || table.length != collision.table.length)
+                return false;
+
+            int payloadArity = payloadArity();
+            for (int i = 0; i < payloadArity; i++) {
+                int dataIndex = collision.dataIndex(keyAt(i), keyEqRel);
+                if (dataIndex < 0 || !Objects.equals(valueAt(i), collision.valueAt(dataIndex)))
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean sameKeys(HAMT<K, ?> other, EquivalenceRelation<K> keyEqRel) {
+            if (other == this)
+                return true;
+            if (!(other instanceof Collision<?, ?>))
+                return false;
+
+            Collision<K, ?> collision = (Collision<K, ?>) other;
+            if (keyHash != collision.keyHash || table.length != collision.table.length)
+                return false;
+
+            int payloadArity = payloadArity();
+            for (int i = 0; i < payloadArity; i++) {
+                if (collision.dataIndex(keyAt(i), keyEqRel) < 0)
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int size() {
+            return payloadArity();
+        }
+
+        @Override
+        public int hash() {
+            return hash;
+        }
+
+        @Override
+        public int keyHashSum() {
+            return keyHash * size();
+        }
+
+        @Override
+        public int payloadArity() {
+            return table.length / 2;
+        }
+
+        @Override
+        public int nodeArity() {
+            return 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public K keyAt(int dataIndex) {
+            return (K) table[2 * dataIndex];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V valueAt(int dataIndex) {
+            return (V) table[2 * dataIndex + 1];
+        }
+
+        @Override
+        public int hashAt(int dataIndex) {
+            return keyHash;
+        }
+
+        @Override
+        public HAMT<K, V> nodeAt(int nodeIndex) {
+            throw new IndexOutOfBoundsException("Collisions have no sub-nodes");
         }
 
         @Override
         public boolean equals(Object other) {
             if (other instanceof Collision<?, ?>) {
                 Collision<?, ?> collision = (Collision<?, ?>) other;
-                return Objects.equals(keyHash, collision.keyHash) &&
-                        Objects.equals(kvPairs, collision.kvPairs);
+                return keyHash == collision.keyHash &&
+                        hash == collision.hash &&
+                        java.util.Arrays.equals(table, collision.table);
             }
             return false;
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(keyHash, kvPairs);
+            return 31 * keyHash + java.util.Arrays.hashCode(table);
+        }
+
+        @Override
+        public String toString() {
+            return "Collision{keyHash=" + bitmap32(keyHash) + ", table=" + java.util.Arrays.toString(table) + "}";
+        }
+
+        private int dataIndex(K key, EquivalenceRelation<K> keyEqRel) {
+            return keyEqRel.ordering()
+                    .match(__ -> linearSearch(key, keyEqRel),
+                           comparator -> binarySearch(key, comparator));
+        }
+
+        private int linearSearch(K key, EquivalenceRelation<K> keyEqRel) {
+            int payloadArity = payloadArity();
+            for (int i = 0; i < payloadArity; i++) {
+                if (keyEqRel.apply(key, keyAt(i)))
+                    return i;
+            }
+            return -(payloadArity + 1);
+        }
+
+        private int binarySearch(K key, Comparator<? super K> comparator) {
+            int low  = 0;
+            int high = payloadArity() - 1;
+            while (low <= high) {
+                int mid        = (low + high) >>> 1;
+                int comparison = comparator.compare(keyAt(mid), key);
+                if (comparison < 0)
+                    low = mid + 1;
+                else if (comparison > 0)
+                    high = mid - 1;
+                else
+                    return mid;
+            }
+            return -(low + 1);
+        }
+
+        private static int sumEntryHashes(int keyHash, Object[] table) {
+            int hash = 0;
+            for (int i = 1; i < table.length; i += 2) {
+                hash += entryHash(keyHash, table[i]);
+            }
+            return hash;
+        }
+
+        static <K, V> Collision<K, V> of(K existingKey, V existing, K key, V value, int keyHash,
+                                         EquivalenceRelation<K> keyEqRel) {
+            boolean keyFirst = keyEqRel.ordering()
+                    .fmap(comparator -> comparator.compare(key, existingKey) < 0)
+                    .orElse(false);
+            return new Collision<>(keyHash, keyFirst
+                                            ? new Object[]{key, value, existingKey, existing}
+                                            : new Object[]{existingKey, existing, key, value},
+                                   entryHash(keyHash, existing) + entryHash(keyHash, value));
+        }
+    }
+
+    final class Cursor<K, V, A> implements Iterator<A> {
+        private final Fn2<? super K, ? super V, ? extends A> projection;
+        private final Object[]                               nodes;
+        private final int[]                                  nodeIndices;
+        private       int                                    depth;
+        private       HAMT<K, V>                             payload;
+        private       int                                    dataIndex;
+        private       int                                    payloadArity;
+
+        Cursor(HAMT<K, V> root, Fn2<? super K, ? super V, ? extends A> projection) {
+            this.projection = projection;
+            nodes = new Object[MAX_LEVEL + 1];
+            nodeIndices = new int[MAX_LEVEL + 1];
+            nodes[0] = root;
+            payload = root;
+            payloadArity = root.payloadArity();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return dataIndex < payloadArity || advance();
+        }
+
+        @Override
+        public A next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            K key   = payload.keyAt(dataIndex);
+            V value = payload.valueAt(dataIndex++);
+            return projection.apply(key, value);
+        }
+
+        @SuppressWarnings("unchecked")
+        private boolean advance() {
+            while (depth >= 0) {
+                HAMT<K, V> node      = (HAMT<K, V>) nodes[depth];
+                int        nodeIndex = nodeIndices[depth];
+                if (nodeIndex == node.nodeArity()) {
+                    nodes[depth--] = null;
+                    continue;
+                }
+
+                nodeIndices[depth] = nodeIndex + 1;
+                HAMT<K, V> child = node.nodeAt(nodeIndex);
+                nodes[++depth] = child;
+                nodeIndices[depth] = 0;
+                payload = child;
+                dataIndex = 0;
+                payloadArity = child.payloadArity();
+                if (payloadArity > 0)
+                    return true;
+            }
+            return false;
+        }
+    }
+
+    final class Splitter<K, V, A> implements Spliterator<A> {
+        private final Fn2<? super K, ? super V, ? extends A> projection;
+        private       HAMT<K, V>                             node;
+        private       int                                    index;
+        private       int                                    fence;
+        private       long                                   remaining;
+        private       Cursor<K, V, A>                        current;
+
+        private Splitter(HAMT<K, V> node, int index, int fence, long remaining,
+                         Fn2<? super K, ? super V, ? extends A> projection) {
+            this.projection = projection;
+            this.node = node;
+            this.index = index;
+            this.fence = fence;
+            this.remaining = remaining;
+        }
+
+        Splitter(HAMT<K, V> root, Fn2<? super K, ? super V, ? extends A> projection) {
+            this(root, 0, root.payloadArity() + root.nodeArity(), root.size(), projection);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super A> action) {
+            while (true) {
+                if (current != null) {
+                    if (current.hasNext()) {
+                        consume(action, current.next());
+                        return true;
+                    }
+                    current = null;
+                }
+
+                if (index == fence)
+                    return false;
+
+                int slot         = index++;
+                int payloadArity = node.payloadArity();
+                if (slot < payloadArity) {
+                    consume(action, projection.apply(node.keyAt(slot), node.valueAt(slot)));
+                    return true;
+                }
+                current = new Cursor<>(node.nodeAt(slot - payloadArity), projection);
+            }
+        }
+
+        @Override
+        public Spliterator<A> trySplit() {
+            if (current != null)
+                return null;
+
+            while (fence - index == 1 && index >= node.payloadArity()) {
+                node = node.nodeAt(index - node.payloadArity());
+                index = 0;
+                fence = node.payloadArity() + node.nodeArity();
+            }
+
+            if (fence - index < 2)
+                return null;
+
+            int  mid        = index;
+            long prefixSize = 0;
+            while (mid < fence - 1 && (mid == index || prefixSize < remaining - prefixSize))
+                prefixSize += slotSize(mid++);
+
+            Splitter<K, V, A> prefix = new Splitter<>(node, index, mid, prefixSize, projection);
+            index = mid;
+            remaining -= prefixSize;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return remaining;
+        }
+
+        @Override
+        public int characteristics() {
+            return IMMUTABLE | SIZED | SUBSIZED;
+        }
+
+        private long slotSize(int slot) {
+            int payloadArity = node.payloadArity();
+            return slot < payloadArity ? 1 : node.nodeAt(slot - payloadArity).size();
+        }
+
+        private void consume(Consumer<? super A> action, A a) {
+            remaining--;
+            action.accept(a);
+        }
+    }
+
+    final class MergeTask<K, V> extends RecursiveTask<HAMT<K, V>> {
+        private final HAMT<K, V>             left;
+        private final HAMT<K, V>             right;
+        private final Semigroup<V>           semigroup;
+        private final EquivalenceRelation<K> keyEqRel;
+        private final int                    level;
+        private final int                    threshold;
+
+        MergeTask(HAMT<K, V> left, HAMT<K, V> right, Semigroup<V> semigroup, EquivalenceRelation<K> keyEqRel,
+                  int level, int threshold) {
+            this.left = left;
+            this.right = right;
+            this.semigroup = semigroup;
+            this.keyEqRel = keyEqRel;
+            this.level = level;
+            this.threshold = threshold;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected HAMT<K, V> compute() {
+            if (level > MAX_LEVEL || left.size() == 0 || right.size() == 0
+                    || (long) left.size() + right.size() <= threshold)
+                return left.merge(right, semigroup, keyEqRel, level, new Object());
+
+            Node<K, V>        left   = Node.asNode(this.left);
+            Node<K, V>        right  = Node.asNode(this.right);
+            int               shared = (left.dataMap | left.nodeMap) & (right.dataMap | right.nodeMap);
+            MergeTask<K, V>[] forks  = (MergeTask<K, V>[]) new MergeTask<?, ?>[Integer.bitCount(shared)];
+            int               forked = 0;
+            for (int bitmap = shared; bitmap != 0; bitmap &= bitmap - 1) {
+                int bitpos = Integer.lowestOneBit(bitmap);
+                forks[forked] = new MergeTask<>(left.subtreeAt(bitpos, level + 1),
+                                                right.subtreeAt(bitpos, level + 1),
+                                                semigroup, keyEqRel, level + 1, threshold);
+                forks[forked++].fork();
+            }
+
+            Node.Builder<K, V> builder = new Node.Builder<>();
+            int                joined  = 0;
+            for (int bitmap = left.dataMap | left.nodeMap | right.dataMap | right.nodeMap;
+                 bitmap != 0;
+                 bitmap &= bitmap - 1) {
+                int bitpos = Integer.lowestOneBit(bitmap);
+                if ((shared & bitpos) != 0)
+                    builder.slot(bitpos, forks[joined++].join());
+                else
+                    builder.copy(bitpos, ((left.dataMap | left.nodeMap) & bitpos) != 0 ? left : right);
+            }
+            return builder.build(null);
+        }
+    }
+
+    final class FilterTask<K, V> extends RecursiveTask<HAMT<K, V>> {
+        private final HAMT<K, V>                                    node;
+        private final Fn2<? super K, ? super V, ? extends Boolean> predicate;
+        private final int                                           threshold;
+
+        FilterTask(HAMT<K, V> node, Fn2<? super K, ? super V, ? extends Boolean> predicate, int threshold) {
+            this.node = node;
+            this.predicate = predicate;
+            this.threshold = threshold;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected HAMT<K, V> compute() {
+            if (node.nodeArity() == 0 || node.size() <= threshold)
+                return node.filter(predicate);
+
+            Node<K, V>         node  = Node.asNode(this.node);
+            FilterTask<K, V>[] forks = (FilterTask<K, V>[]) new FilterTask<?, ?>[node.nodeArity()];
+            for (int i = 0; i < forks.length; i++) {
+                forks[i] = new FilterTask<>(node.nodeAt(i), predicate, threshold);
+                forks[i].fork();
+            }
+
+            Node.Builder<K, V> builder = null;
+            for (int bitmap = node.dataMap | node.nodeMap; bitmap != 0; bitmap &= bitmap - 1) {
+                int bitpos = Integer.lowestOneBit(bitmap);
+                if ((node.dataMap & bitpos) != 0) {
+                    int dataIndex = Node.index(node.dataMap, bitpos);
+                    K   key       = node.keyAt(dataIndex);
+                    V   value     = node.valueAt(dataIndex);
+                    if (predicate.apply(key, value)) {
+                        if (builder != null)
+                            builder.inline(bitpos, key, value, node.hashes[dataIndex]);
+                    } else if (builder == null) {
+                        builder = node.builderBefore(bitpos);
+                    }
+                } else {
+                    int        nodeIndex = Node.index(node.nodeMap, bitpos);
+                    HAMT<K, V> result    = forks[nodeIndex].join();
+                    if (result != node.nodeAt(nodeIndex) && builder == null)
+                        builder = node.builderBefore(bitpos);
+                    if (builder != null)
+                        builder.slot(bitpos, result);
+                }
+            }
+            return builder == null ? this.node : builder.build(null);
         }
     }
 }
@@ -1,34 +1,40 @@
 package com.jnape.palatable.shoki.impl;
 
 import com.jnape.palatable.lambda.adt.Maybe;
+import com.jnape.palatable.lambda.adt.hlist.HList;
 import com.jnape.palatable.lambda.adt.hlist.Tuple2;
-import com.jnape.palatable.lambda.functions.builtin.fn1.Empty;
-import com.jnape.palatable.lambda.functions.builtin.fn1.Head;
+import com.jnape.palatable.lambda.adt.hlist.Tuple3;
+import com.jnape.palatable.lambda.functions.Fn1;
+import com.jnape.palatable.lambda.functions.Fn2;
+import com.jnape.palatable.lambda.semigroup.Semigroup;
+import com.jnape.palatable.shoki.api.Collection;
 import com.jnape.palatable.shoki.api.EquivalenceRelation;
 import com.jnape.palatable.shoki.api.HashingAlgorithm;
 import com.jnape.palatable.shoki.api.Map;
 import com.jnape.palatable.shoki.api.Natural;
+import com.jnape.palatable.shoki.api.Set;
 import com.jnape.palatable.shoki.api.SizeInfo.Known;
 
 import java.util.Iterator;
 import java.util.Objects;
+import java.util.Spliterator;
 
+import static com.jnape.palatable.lambda.adt.Maybe.just;
+import static com.jnape.palatable.lambda.adt.Maybe.nothing;
 import static com.jnape.palatable.lambda.adt.Try.trying;
-import static com.jnape.palatable.lambda.functions.Fn2.curried;
+import static com.jnape.palatable.lambda.adt.hlist.HList.tuple;
 import static com.jnape.palatable.lambda.functions.builtin.fn1.Constantly.constantly;
 import static com.jnape.palatable.lambda.functions.builtin.fn1.Downcast.downcast;
-import static com.jnape.palatable.lambda.functions.builtin.fn1.Size.size;
+import static com.jnape.palatable.lambda.functions.builtin.fn2.All.all;
 import static com.jnape.palatable.lambda.functions.builtin.fn2.Cons.cons;
 import static com.jnape.palatable.lambda.functions.builtin.fn2.Into.into;
 import static com.jnape.palatable.lambda.functions.builtin.fn2.Map.map;
-import static com.jnape.palatable.lambda.functions.builtin.fn3.FoldLeft.foldLeft;
 import static com.jnape.palatable.shoki.api.EquivalenceRelation.equivalent;
 import static com.jnape.palatable.shoki.api.EquivalenceRelation.objectEquals;
 import static com.jnape.palatable.shoki.api.HashingAlgorithm.objectHashCode;
 import static com.jnape.palatable.shoki.api.Map.EquivalenceRelations.sameEntries;
 import static com.jnape.palatable.shoki.api.Natural.abs;
 import static com.jnape.palatable.shoki.api.SizeInfo.known;
-import static com.jnape.palatable.shoki.impl.Bitmap32.bitmap32;
 import static java.lang.String.format;
 import static java.lang.String.join;
 import static java.util.Arrays.asList;
@@ -66,28 +72,30 @@ import static java.util.Arrays.asList;
  *     bar   baz
  * </pre>
  * <p>
- * This trie additionally maintains a memory-efficient bitmap representation of the table space cardinality and
- * populated indices to offer efficient lookup, insertion, and removal operations, so the actual implementation using
- * arrays could be modelled as follows:
+ * This trie additionally maintains memory-efficient bitmap representations of the populated indices - one for indices
+ * populated by values, and one for indices populated by sub-tries - to offer efficient lookup, insertion, and removal
+ * operations, so the actual implementation using arrays could be modelled as follows:
  * <pre>
- * Trie={bitmap: 0b11,
- *       // index 0 is populated (value)
- *       // index 1 is populated (sub-trie)
- *       // cardinality of this array is 2 (POPCNT(0b11))
- *       arr: [Value="foo"
- *             Trie={bitmap: 0b11,
- *                   // index 0 is populated (value)
- *                   // index 1 is populated (value)
- *                   // cardinality of this array is 2 (POPCNT(0b11))
- *                   arr: [Value="bar", Value="baz"]
+ * Trie={dataMap: 0b01,
+ *       nodeMap: 0b10,
+ *       // index 0 is populated (value), stored inline from the front of the array
+ *       // index 1 is populated (sub-trie), stored from the back of the array
+ *       arr: [Key=1, Value="foo",
+ *             Trie={dataMap: 0b11,
+ *                   nodeMap: 0b00,
+ *                   // indices 0 and 1 are populated (values)
+ *                   arr: [Key=2, Value="bar", Key=3, Value="baz"]
  *                  }
  *            ]
  *      }
  * </pre>
  * <p>
  * This implementation can be further improved by ensuring that all internal arrays are dense, regardless of how the
- * populated indices would otherwise distribute across the table space, resulting in an ideally memory efficient space
- * layout.
+ * populated indices would otherwise distribute across the table space, and - following the
+ * <a href="https://michael.steindorfer.name/publications/oopsla15.pdf" target="_new">CHAMP</a> encoding - by inlining
+ * keys and values directly into the array rather than boxing each entry, resulting in an ideally memory efficient space
+ * layout. Sub-tries are only ever created for two or more entries and are collapsed back into their parents on
+ * removal, so any given set of keys is always represented by exactly one trie shape.
  * <p>
  * With all of these definitions in place, a {@link HashMap} is simply an array mapped trie that maps any arbitrary
  * type <code>K</code> to any arbitrary type <code>V</code> by hashing <code>K</code> into an integral value, which is
@@ -113,6 +121,7 @@ import static java.util.Arrays.asList;
 public final class HashMap<K, V> implements Map<Natural, K, V> {
 
     private static final HashMap<?, ?> EMPTY_OBJECT_DEFAULTS = empty(objectEquals(), objectHashCode());
+    private static final int           PARALLEL_THRESHOLD    = 1 << 12;
 
     private final EquivalenceRelation<K> keyEqRel;
     private final HashingAlgorithm<K>    keyHashAlg;
@@ -135,23 +144,48 @@ public final class HashMap<K, V> implements Map<Natural, K, V> {
      */
     @Override
     public Maybe<V> get(K key) {
-        return hamt.get(key, bitmap32(keyHashAlg.apply(key)), keyEqRel, 1);
+        return hamt.get(key, keyHashAlg.apply(key), keyEqRel, 1);
+    }
+
+    /**
+     * Retrieve the value associated to <code>key</code> inside this {@link HashMap}, or <code>defaultValue</code> if
+     * there is no such association. Unlike {@link HashMap#get(Object)}, no {@link Maybe} is allocated. Amortized
+     * <code>O(1)</code>.
+     *
+     * @param key          the key
+     * @param defaultValue the value to return if <code>key</code> is absent
+     * @return the value associated to <code>key</code>, or <code>defaultValue</code>
+     */
+    public V getOrDefault(K key, V defaultValue) {
+        return hamt.getOrDefault(key, defaultValue, keyHashAlg.apply(key), keyEqRel, 1);
+    }
+
+    /**
+     * Retrieve the value associated to <code>key</code> inside this {@link HashMap}, or <code>null</code> if there is
+     * no such association. Note that <code>null</code> is also returned if <code>key</code> is associated to
+     * <code>null</code>; use {@link HashMap#contains(Object)} to distinguish the two. Amortized <code>O(1)</code>.
+     *
+     * @param key the key
+     * @return the value associated to <code>key</code>, or <code>null</code>
+     * @see HashMap#getOrDefault(Object, Object)
+     */
+    public V getOrNull(K key) {
+        return getOrDefault(key, null);
     }
 
     /**
      * {@inheritDoc}
      * If <code>key</code> does not currently associate to a value inside this {@link HashMap}, insert the key/value
      * pair for <code>key</code> and <code>value</code>; otherwise, override the current value associated for
-     * <code>key</code> and set it to <code>value</code>. Amortized <code>O(1)</code>.
+     * <code>key</code> and set it to <code>value</code>. If <code>key</code> is already associated to this exact
+     * <code>value</code> instance, this same {@link HashMap} is returned. Amortized <code>O(1)</code>.
      *
      * @see HashMap#get(Object)
      * @see HashMap#remove(Object)
      */
     @Override
     public HashMap<K, V> put(K key, V value) {
-        return new HashMap<>(keyEqRel, keyHashAlg,
-                             hamt.put(key, value, bitmap32(keyHashAlg.apply(key)),
-                                      keyEqRel, keyHashAlg, 1));
+        return withHamt(hamt.put(key, value, keyHashAlg.apply(key), keyEqRel, 1, null));
     }
 
     /**
@@ -165,9 +199,210 @@ public final class HashMap<K, V> implements Map<Natural, K, V> {
      */
     @Override
     public HashMap<K, V> remove(K key) {
-        return new HashMap<>(keyEqRel, keyHashAlg,
-                             hamt.remove(key, bitmap32(keyHashAlg.apply(key)), keyEqRel, 1)
-                                     .orElse(HAMT.Node.rootNode()));
+        return withHamt(hamt.remove(key, keyHashAlg.apply(key), keyEqRel, 1));
+    }
+
+    /**
+     * {@inheritDoc}
+     * The slot for <code>key</code> is located, and the path to it copied, in a single traversal of the underlying
+     * trie, hashing <code>key</code> exactly once. If <code>fn</code> leaves the association for <code>key</code>
+     * unchanged, this same {@link HashMap} is returned. Amortized <code>O(1)</code>.
+     */
+    @Override
+    public HashMap<K, V> update(K key, Fn1<? super Maybe<V>, ? extends Maybe<V>> fn) {
+        return withHamt(hamt.update(key, keyHashAlg.apply(key), fn, keyEqRel, 1, null));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Amortized <code>O(1)</code>.
+     *
+     * @see HashMap#update(Object, Fn1)
+     */
+    @Override
+    public HashMap<K, V> adjust(K key, Fn1<? super V, ? extends V> fn) {
+        return (HashMap<K, V>) Map.super.adjust(key, fn);
+    }
+
+    /**
+     * {@inheritDoc}
+     * If <code>key</code> is already associated to a value, this same {@link HashMap} is returned. Amortized
+     * <code>O(1)</code>.
+     *
+     * @see HashMap#update(Object, Fn1)
+     */
+    @Override
+    public HashMap<K, V> putIfAbsent(K key, V value) {
+        return (HashMap<K, V>) Map.super.putIfAbsent(key, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     * If <code>key</code> is already associated to a value, this same {@link HashMap} is returned. Amortized
+     * <code>O(1)</code>.
+     *
+     * @see HashMap#update(Object, Fn1)
+     */
+    @Override
+    public HashMap<K, V> computeIfAbsent(K key, Fn1<? super K, ? extends V> fn) {
+        return (HashMap<K, V>) Map.super.computeIfAbsent(key, fn);
+    }
+
+    /**
+     * Associate every key/value pair in <code>entries</code> inside this {@link HashMap}, in iteration order, so later
+     * entries override earlier entries and any existing associations for the same key. The entries are written as a
+     * single batch: every trie node along the way is copied at most once, no matter how many of the entries land
+     * beneath it. If <code>entries</code> is a {@link HashMap} sharing this {@link HashMap HashMap's}
+     * {@link EquivalenceRelation} and {@link HashingAlgorithm}, the two underlying tries are instead
+     * {@link HashMap#merge(Map, Semigroup) merged} node by node. <code>O(o)</code>.
+     *
+     * @param entries the entries to associate
+     * @return the updated {@link HashMap}
+     */
+    @SuppressWarnings("unchecked")
+    public HashMap<K, V> putAll(Iterable<? extends Tuple2<K, V>> entries) {
+        if (entries instanceof HashMap<?, ?> && sharesAlgebraWith((HashMap<?, ?>) entries))
+            return merge((HashMap<K, V>) entries, (__, v) -> v);
+
+        Transient<K, V> batch = asTransient();
+        for (Tuple2<K, V> entry : entries) {
+            batch.put(entry._1(), entry._2());
+        }
+        return withHamt(batch.hamt);
+    }
+
+    /**
+     * {@inheritDoc}
+     * If <code>keys</code> is a {@link HashSet} sharing this {@link HashMap HashMap's} {@link EquivalenceRelation} and
+     * {@link HashingAlgorithm}, the underlying trie of <code>keys</code> is subtracted slot by slot; otherwise, the
+     * keys are removed as a single batch, copying every trie node along the way at most once. If none of the keys
+     * are present, this same {@link HashMap} is returned. <code>O(o)</code>.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public HashMap<K, V> removeAll(Set<Natural, K> keys) {
+        if (keys instanceof HashSet<?> && sharesAlgebraWith(((HashSet<?>) keys).underlyingMap()))
+            return subtractKeys(((HashSet<K>) keys).underlyingMap());
+
+        return removeKeys(keys);
+    }
+
+    /**
+     * {@inheritDoc}
+     * If <code>other</code> is a {@link HashMap} sharing this {@link HashMap HashMap's} {@link EquivalenceRelation} and
+     * {@link HashingAlgorithm}, the two underlying tries are merged node by node: subtrees present in only one of the
+     * two {@link HashMap HashMaps} are adopted by reference, and only keys present in both are combined via
+     * <code>semigroup</code>, so the cost is proportional to the overlap between the two {@link HashMap HashMaps}
+     * rather than to the size of <code>other</code>. Otherwise, each entry in <code>other</code> is merged in turn.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public HashMap<K, V> merge(Map<Natural, K, V> other, Semigroup<V> semigroup) {
+        if (other instanceof HashMap<?, ?> && sharesAlgebraWith((HashMap<?, ?>) other)) {
+            return withHamt(hamt.merge(((HashMap<K, V>) other).hamt, semigroup, keyEqRel, 1, new Object()));
+        }
+
+        return (HashMap<K, V>) Map.super.merge(other, semigroup);
+    }
+
+    /**
+     * Map each value in this {@link HashMap} via <code>fn</code>, keeping every key in place. The underlying trie is
+     * copied node for node with the same shape, so no key is rehashed or repositioned. <code>O(n)</code>.
+     *
+     * @param fn  the value mapping function
+     * @param <W> the new value type
+     * @return the mapped {@link HashMap}
+     */
+    public <W> HashMap<K, W> mapValues(Fn1<? super V, ? extends W> fn) {
+        return mapValuesWithKeys((__, v) -> fn.apply(v));
+    }
+
+    /**
+     * Retain only the entries in this {@link HashMap} that satisfy <code>predicate</code>. Subtrees of the underlying
+     * trie in which every entry is retained are reused by reference, and only the nodes from which entries are dropped
+     * are copied and compacted. <code>O(n)</code>.
+     *
+     * @param predicate the predicate
+     * @return the filtered {@link HashMap}
+     */
+    public HashMap<K, V> filter(Fn2<? super K, ? super V, ? extends Boolean> predicate) {
+        return withHamt(hamt.filter(predicate));
+    }
+
+    /**
+     * Retain only the entries in this {@link HashMap} whose keys satisfy <code>predicate</code>.
+     *
+     * @param predicate the predicate
+     * @return the filtered {@link HashMap}
+     * @see HashMap#filter(Fn2)
+     */
+    public HashMap<K, V> filterKeys(Fn1<? super K, ? extends Boolean> predicate) {
+        return filter((k, __) -> predicate.apply(k));
+    }
+
+    /**
+     * Like {@link HashMap#merge(Map, Semigroup)}, but if <code>other</code> is a {@link HashMap} sharing this
+     * {@link HashMap HashMap's} {@link EquivalenceRelation} and {@link HashingAlgorithm}, slots occupied in both
+     * {@link HashMap HashMaps} are merged concurrently as {@link java.util.concurrent.ForkJoinTask ForkJoinTasks},
+     * recursing until the subtrees being merged are small enough to merge sequentially. Tasks run in the current
+     * {@link java.util.concurrent.ForkJoinPool}, or in the {@link java.util.concurrent.ForkJoinPool#commonPool() common
+     * pool} if called from outside of one, so <code>semigroup</code> must be safe to apply from multiple threads.
+     * Otherwise, this is equivalent to {@link HashMap#merge(Map, Semigroup)}.
+     *
+     * @param other     the other {@link Map}
+     * @param semigroup the {@link Semigroup} used to combine values of keys present in both {@link Map Maps}
+     * @return the merged {@link HashMap}
+     */
+    @SuppressWarnings("unchecked")
+    public HashMap<K, V> parallelMerge(Map<Natural, K, V> other, Semigroup<V> semigroup) {
+        if (other instanceof HashMap<?, ?> && sharesAlgebraWith((HashMap<?, ?>) other)) {
+            return withHamt(new HAMT.MergeTask<>(hamt, ((HashMap<K, V>) other).hamt, semigroup, keyEqRel, 1,
+                                                 PARALLEL_THRESHOLD).invoke());
+        }
+
+        return merge(other, semigroup);
+    }
+
+    /**
+     * Retain only the entries in this {@link HashMap} that satisfy <code>predicate</code>, filtering sufficiently large
+     * subtrees of the underlying trie concurrently as {@link java.util.concurrent.ForkJoinTask ForkJoinTasks} and
+     * reusing subtrees in which every entry is retained. Tasks run in the current
+     * {@link java.util.concurrent.ForkJoinPool}, or in the {@link java.util.concurrent.ForkJoinPool#commonPool() common
+     * pool} if called from outside of one, so <code>predicate</code> must be safe to apply from multiple threads.
+     *
+     * @param predicate the predicate
+     * @return the filtered {@link HashMap}
+     */
+    public HashMap<K, V> parallelFilter(Fn2<? super K, ? super V, ? extends Boolean> predicate) {
+        return withHamt(new HAMT.FilterTask<>(hamt, predicate, PARALLEL_THRESHOLD).invoke());
+    }
+
+    /**
+     * Compute the differences between this {@link HashMap} and a later version of it, <code>other</code>, as the
+     * {@link HashMap} of entries <em>added</em> in <code>other</code>, the {@link HashMap} of entries
+     * <em>removed</em> from this {@link HashMap}, and the {@link HashMap} from each key associated to
+     * {@link Object#equals(Object) different} values in both {@link HashMap HashMaps} to its <em>changed</em>
+     * (previous, current) values.
+     * <p>
+     * If <code>other</code> shares this {@link HashMap HashMap's} {@link EquivalenceRelation} and
+     * {@link HashingAlgorithm}, the two underlying tries are walked together, skipping any subtrees they share by
+     * reference, so for two versions derived from one another, the cost is proportional to the size of the changes
+     * between them rather than to the size of either {@link HashMap}; otherwise, <code>O(n + o)</code>.
+     *
+     * @param other the later version
+     * @return the added, removed, and changed entries
+     */
+    public Tuple3<HashMap<K, V>, HashMap<K, V>, HashMap<K, Tuple2<V, V>>> diff(HashMap<K, V> other) {
+        if (sharesAlgebraWith(other))
+            return tuple(other.subtractKeys(this),
+                         subtractKeys(other),
+                         new HashMap<>(keyEqRel, keyHashAlg, hamt.changed(other.hamt, keyEqRel, 1)));
+
+        return tuple(other.withHamt(other.hamt.filter((k, v) -> !contains(k))),
+                     withHamt(hamt.filter((k, v) -> !other.contains(k))),
+                     new HashMap<>(keyEqRel, keyHashAlg, hamt
+                             .filter((k, v) -> other.get(k).match(__ -> false, w -> !Objects.equals(v, w)))
+                             .mapValues((k, v) -> tuple(v, other.get(k).orElse(v)))));
     }
 
     /**
@@ -177,25 +412,30 @@ public final class HashMap<K, V> implements Map<Natural, K, V> {
      */
     @Override
     public boolean contains(K key) {
-        return get(key).match(constantly(false), constantly(true));
+        return hamt.contains(key, keyHashAlg.apply(key), keyEqRel, 1);
     }
 
     /**
      * {@inheritDoc}
-     * <code>O(n)</code>.
+     * The returned {@link HashSet} is a view backed by the same trie as this {@link HashMap}, sharing its
+     * {@link EquivalenceRelation} and {@link HashingAlgorithm}: membership, iteration, size, removals, and set algebra
+     * against other {@link HashSet HashSets} all operate on the shared trie directly, and the trie is only copied if
+     * elements are added to the view. <code>O(1)</code>.
      */
     @Override
     public HashSet<K> keys() {
-        return foldLeft((keys, kv) -> keys.add(kv._1()), HashSet.empty(keyEqRel, keyHashAlg), this);
+        return HashSet.keysOf(this);
     }
 
     /**
      * {@inheritDoc}
-     * <code>O(n)</code>.
+     * The returned {@link Collection} is a view backed by the same trie as this {@link HashMap}: its size is known in
+     * constant time, and iterating it walks the trie directly, allocating nothing per value. Values appear in the same
+     * order as the entries of this {@link HashMap}. <code>O(1)</code>.
      */
     @Override
-    public StrictQueue<V> values() {
-        return foldLeft((values, kv) -> values.snoc(kv._2()), StrictQueue.empty(), this);
+    public Collection<Natural, V> values() {
+        return new Values<>(this);
     }
 
     /**
@@ -204,18 +444,37 @@ public final class HashMap<K, V> implements Map<Natural, K, V> {
      */
     @Override
     public Maybe<Tuple2<K, V>> head() {
-        return Head.head(this);
+        if (isEmpty())
+            return nothing();
+
+        HAMT<K, V> first = firstPayload();
+        return just(tuple(first.keyAt(0), first.valueAt(0)));
     }
 
     /**
      * {@inheritDoc}
-     * <code>O(1)</code>.
+     * The {@link HashMap#head() head} entry is removed structurally by descending only the leftmost populated slots of
+     * the underlying trie, without hashing or comparing any keys. Amortized <code>O(1)</code>.
      */
     @Override
     public HashMap<K, V> tail() {
-        return head()
-                .fmap(into(curried(headKey -> constantly(remove(headKey)))))
-                .orElse(this);
+        return withHamt(hamt.removeFirst());
+    }
+
+    /**
+     * If this {@link HashMap} is not empty, return {@link Maybe#just(Object) just} its {@link HashMap#head() head}
+     * entry together with its {@link HashMap#tail() tail}; otherwise, return {@link Maybe#nothing() nothing}.
+     * Repeatedly unconsing a {@link HashMap} visits its entries in iteration order. Amortized <code>O(1)</code>.
+     *
+     * @return {@link Maybe} the head entry and the remaining {@link HashMap}
+     */
+    public Maybe<Tuple2<Tuple2<K, V>, HashMap<K, V>>> uncons() {
+        if (isEmpty())
+            return nothing();
+
+        HAMT<K, V> first = firstPayload();
+        return just(tuple(tuple(first.keyAt(0), first.valueAt(0)), new HashMap<>(keyEqRel, keyHashAlg,
+                                                                                  hamt.removeFirst())));
     }
 
     /**
@@ -224,48 +483,159 @@ public final class HashMap<K, V> implements Map<Natural, K, V> {
      */
     @Override
     public boolean isEmpty() {
-        return Empty.empty(hamt);
+        return hamt.size() == 0;
     }
 
     /**
      * {@inheritDoc}
-     * <code>O(n)</code>.
+     * <code>O(1)</code>.
      */
     @Override
     public Known<Natural> sizeInfo() {
-        return known(abs(size(this)));
+        return known(abs(hamt.size()));
     }
 
+    /**
+     * {@inheritDoc}
+     * Iteration walks the underlying trie directly, allocating nothing beyond the yielded {@link Tuple2 entries}.
+     */
     @Override
     public Iterator<Tuple2<K, V>> iterator() {
         return hamt.iterator();
     }
 
+    /**
+     * A {@link Spliterator} over the entries of this {@link HashMap} that splits along the slot boundaries of the
+     * underlying trie, suitable for parallel {@link java.util.stream.Stream Streams}. Since every subtree knows its
+     * exact size, the {@link Spliterator} and all of its splits are {@link Spliterator#IMMUTABLE immutable},
+     * {@link Spliterator#SIZED sized}, and {@link Spliterator#SUBSIZED subsized}.
+     *
+     * @return the {@link Spliterator}
+     */
+    @Override
+    public Spliterator<Tuple2<K, V>> spliterator() {
+        return new HAMT.Splitter<>(hamt, HList::tuple);
+    }
+
+    Iterator<K> keyIterator() {
+        return new HAMT.Cursor<>(hamt, (k, v) -> k);
+    }
+
+    Spliterator<K> keySpliterator() {
+        return new HAMT.Splitter<>(hamt, (k, v) -> k);
+    }
+
+    Iterator<V> valueIterator() {
+        return new HAMT.Cursor<>(hamt, (k, v) -> v);
+    }
+
+    Spliterator<V> valueSpliterator() {
+        return new HAMT.Splitter<>(hamt, (k, v) -> v);
+    }
+
+    boolean sharesAlgebraWith(HashMap<?, ?> other) {
+        return keyEqRel == other.keyEqRel && keyHashAlg == other.keyHashAlg;
+    }
+
+    <W> HashMap<K, W> mapValuesWithKeys(Fn2<? super K, ? super V, ? extends W> fn) {
+        return new HashMap<>(keyEqRel, keyHashAlg, hamt.mapValues(fn));
+    }
+
+    boolean sameKeys(HashMap<K, ?> other) {
+        if (sharesAlgebraWith(other))
+            return hamt.sameKeys(other.hamt, keyEqRel);
+
+        Iterable<K> keys = this::keyIterator;
+        return hamt.size() == other.hamt.size()
+                && trying(() -> all(other::contains, keys))
+                .catching(ClassCastException.class, constantly(false))
+                .orThrow();
+    }
+
+    int hashWithUniformValue(Object value) {
+        return 31 * hamt.keyHashSum() + hamt.size() * Objects.hashCode(value);
+    }
+
+    HashMap<K, V> intersectKeys(HashMap<K, ?> other) {
+        return withHamt(hamt.intersect(other.hamt, keyEqRel, 1));
+    }
+
+    HashMap<K, V> subtractKeys(HashMap<K, ?> other) {
+        return withHamt(hamt.subtract(other.hamt, keyEqRel, 1));
+    }
+
+    HashMap<K, V> removeKeys(Iterable<? extends K> keys) {
+        Transient<K, V> batch = asTransient();
+        for (K key : keys) {
+            batch.remove(key);
+        }
+        return withHamt(batch.hamt);
+    }
+
+    private HAMT<K, V> firstPayload() {
+        HAMT<K, V> node = hamt;
+        while (node.payloadArity() == 0) {
+            node = node.nodeAt(0);
+        }
+        return node;
+    }
+
+    private HashMap<K, V> withHamt(HAMT<K, V> hamt) {
+        return hamt == this.hamt ? this : new HashMap<>(keyEqRel, keyHashAlg, hamt);
+    }
+
+    /**
+     * Begin a {@link Transient} edit session starting from the entries in this {@link HashMap}. This {@link HashMap}
+     * is unaffected by any writes to the {@link Transient}. <code>O(1)</code>.
+     *
+     * @return the {@link Transient}
+     * @see Transient
+     */
+    public Transient<K, V> asTransient() {
+        return new Transient<>(keyEqRel, keyHashAlg, hamt);
+    }
+
     /**
      * Determine if <code>other</code> is a {@link HashMap} with the
      * {@link Map.EquivalenceRelations#sameEntries(EquivalenceRelation) same entries} as this {@link HashMap}, using
      * {@link Object#equals(Object) Object equality} to determine value equivalence. <code>O(n)</code>.
+     * <p>
+     * If <code>other</code> shares this {@link HashMap HashMap's} {@link EquivalenceRelation} and
+     * {@link HashingAlgorithm}, sizes and hash codes are compared first, and the underlying tries are then compared
+     * node by node, skipping any subtrees the two {@link HashMap HashMaps} share by reference, such that comparing two
+     * versions of the same {@link HashMap} costs time proportional to their differences.
      *
      * @param other the {@link Object} to check for equality
      * @return the equality outcome
      * @see Map.EquivalenceRelations#sameEntries(EquivalenceRelation)
      */
     @Override
+    @SuppressWarnings("unchecked")
     public boolean equals(Object other) {
-        return other instanceof HashMap<?, ?> &&
-                trying(() -> equivalent(this, downcast(other), sameEntries(objectEquals())))
-                        .catching(ClassCastException.class, constantly(false))
-                        .orThrow();
+        if (other == this)
+            return true;
+        if (!(other instanceof HashMap<?, ?>))
+            return false;
+
+        HashMap<?, ?> that = (HashMap<?, ?>) other;
+        if (sharesAlgebraWith(that))
+            return hamt.sameEntries(((HashMap<K, V>) that).hamt, keyEqRel);
+
+        return trying(() -> equivalent(this, downcast(other), sameEntries(objectEquals())))
+                .catching(ClassCastException.class, constantly(false))
+                .orThrow();
     }
 
     /**
-     * Compute the corresponding {@link Object#hashCode() hash code} for this {@link HashMap}. <code>O(n)</code>.
+     * The corresponding {@link Object#hashCode() hash code} for this {@link HashMap}: the sum over all entries of
+     * <code>31 * keyHash + {@link Objects#hashCode(Object) Objects.hashCode}(value)</code>, maintained incrementally
+     * as entries are added and removed. <code>O(1)</code>.
      *
      * @return the hash code
      */
     @Override
     public int hashCode() {
-        return foldLeft(Integer::sum, 0, map(into((k, v) -> 31 * keyHashAlg.apply(k) + Objects.hashCode(v)), this));
+        return hamt.hash();
     }
 
     /**
@@ -322,9 +692,7 @@ public final class HashMap<K, V> implements Map<Natural, K, V> {
     public static <K, V> HashMap<K, V> of(EquivalenceRelation<K> keyEquivalenceRelation,
                                           HashingAlgorithm<K> keyHashingAlgorithm,
                                           Tuple2<K, V> entry, Tuple2<K, V>... entries) {
-        return foldLeft(curried(m -> into(m::put)),
-                        empty(keyEquivalenceRelation, keyHashingAlgorithm),
-                        cons(entry, asList(entries)));
+        return fromIterable(keyEquivalenceRelation, keyHashingAlgorithm, cons(entry, asList(entries)));
     }
 
     /**
@@ -342,4 +710,192 @@ public final class HashMap<K, V> implements Map<Natural, K, V> {
     public static <K, V> HashMap<K, V> of(Tuple2<K, V> entry, Tuple2<K, V>... entries) {
         return of(objectEquals(), objectHashCode(), entry, entries);
     }
+
+    /**
+     * Create a new {@link HashMap} using the given {@link EquivalenceRelation} and {@link HashingAlgorithm} for its
+     * keys, populated by the given entries. Later entries replace earlier entries with equivalent keys, exactly as if
+     * each entry had been {@link HashMap#put(Object, Object) put} in turn.
+     * <p>
+     * Rather than inserting entries one by one, every key is hashed exactly once and the entries are partitioned by
+     * successive slices of their hashes, so each node of the underlying trie is allocated exactly once and at its final
+     * size. <code>O(n)</code>.
+     *
+     * @param keyEquivalenceRelation the {@link EquivalenceRelation}
+     * @param keyHashingAlgorithm    the {@link HashingAlgorithm}
+     * @param entries                the entries
+     * @param <K>                    the key type
+     * @param <V>                    the value type
+     * @return the populated {@link HashMap}
+     */
+    public static <K, V> HashMap<K, V> fromIterable(EquivalenceRelation<K> keyEquivalenceRelation,
+                                                    HashingAlgorithm<K> keyHashingAlgorithm,
+                                                    Iterable<? extends Tuple2<K, V>> entries) {
+        return fromIterable(keyEquivalenceRelation, keyHashingAlgorithm, entries, Tuple2::_1, Tuple2::_2);
+    }
+
+    /**
+     * Create a new {@link HashMap} using {@link Objects#equals(Object, Object) Object equality} and
+     * {@link Objects#hashCode(Object) Object hashCode} as the {@link EquivalenceRelation} and {@link HashingAlgorithm},
+     * respectively, for its keys, populated by the given entries. <code>O(n)</code>.
+     *
+     * @param entries the entries
+     * @param <K>     the key type
+     * @param <V>     the value type
+     * @return the populated {@link HashMap}
+     * @see HashMap#fromIterable(EquivalenceRelation, HashingAlgorithm, Iterable)
+     */
+    public static <K, V> HashMap<K, V> fromIterable(Iterable<? extends Tuple2<K, V>> entries) {
+        return fromIterable(objectEquals(), objectHashCode(), entries);
+    }
+
+    static <A, K, V> HashMap<K, V> fromIterable(EquivalenceRelation<K> keyEqRel, HashingAlgorithm<K> keyHashAlg,
+                                                Iterable<? extends A> as,
+                                                Fn1<? super A, ? extends K> key,
+                                                Fn1<? super A, ? extends V> value) {
+        Object[] entries   = new Object[32];
+        int[]    keyHashes = new int[16];
+        int      count     = 0;
+        for (A a : as) {
+            if (count == keyHashes.length) {
+                entries = java.util.Arrays.copyOf(entries, 2 * entries.length);
+                keyHashes = java.util.Arrays.copyOf(keyHashes, 2 * keyHashes.length);
+            }
+            K k = key.apply(a);
+            entries[2 * count] = k;
+            entries[2 * count + 1] = value.apply(a);
+            keyHashes[count++] = keyHashAlg.apply(k);
+        }
+        return new HashMap<>(keyEqRel, keyHashAlg, HAMT.Node.bulkLoad(entries, keyHashes, count, keyEqRel));
+    }
+
+    private static final class Values<K, V> implements Collection<Natural, V> {
+        private final HashMap<K, V> map;
+
+        private Values(HashMap<K, V> map) {
+            this.map = map;
+        }
+
+        @Override
+        public Maybe<V> head() {
+            return map.head().fmap(Tuple2::_2);
+        }
+
+        @Override
+        public Values<K, V> tail() {
+            HashMap<K, V> tail = map.tail();
+            return tail == map ? this : new Values<>(tail);
+        }
+
+        @Override
+        public Known<Natural> sizeInfo() {
+            return map.sizeInfo();
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return map.valueIterator();
+        }
+
+        @Override
+        public Spliterator<V> spliterator() {
+            return map.valueSpliterator();
+        }
+
+        @Override
+        public String toString() {
+            return "Values[" + join(", ", map(Object::toString, this)) + "]";
+        }
+    }
+
+    /**
+     * A single-owner, mutable-in-place builder for a {@link HashMap}. Writes to a {@link Transient} reuse any
+     * internal trie nodes that were created by this {@link Transient} since the last call to
+     * {@link Transient#persistent()} instead of path-copying them, so bulk insertion allocates only what the resulting
+     * {@link HashMap} actually retains.
+     * <p>
+     * Calling {@link Transient#persistent()} produces an immutable {@link HashMap} structurally identical to the one
+     * that would have resulted from the same sequence of {@link HashMap#put(Object, Object) puts}, and relinquishes
+     * ownership of every node written so far, so subsequent writes to this {@link Transient} never affect a previously
+     * produced {@link HashMap}.
+     * <p>
+     * {@link Transient Transients} are not thread-safe, and are intended to be confined to the scope that builds them.
+     *
+     * @param <K> the key type
+     * @param <V> the value type
+     * @see HashMap#asTransient()
+     */
+    public static final class Transient<K, V> {
+        private final EquivalenceRelation<K> keyEqRel;
+        private final HashingAlgorithm<K>    keyHashAlg;
+        private       HAMT<K, V>             hamt;
+        private       Object                 edit;
+
+        private Transient(EquivalenceRelation<K> keyEqRel, HashingAlgorithm<K> keyHashAlg, HAMT<K, V> hamt) {
+            this.keyEqRel   = keyEqRel;
+            this.keyHashAlg = keyHashAlg;
+            this.hamt       = hamt;
+            this.edit       = new Object();
+        }
+
+        /**
+         * Retrieve {@link Maybe#just(Object) just} the value currently associated to <code>key</code> inside this
+         * {@link Transient}, or {@link Maybe#nothing() nothing} if there is no such association. Amortized
+         * <code>O(1)</code>.
+         *
+         * @param key the key
+         * @return {@link Maybe} the associated value
+         */
+        public Maybe<V> get(K key) {
+            return hamt.get(key, keyHashAlg.apply(key), keyEqRel, 1);
+        }
+
+        /**
+         * Associate <code>key</code> with <code>value</code> in place, overriding any existing association for
+         * <code>key</code>. Amortized <code>O(1)</code>.
+         *
+         * @param key   the key
+         * @param value the value
+         * @return this {@link Transient}
+         */
+        public Transient<K, V> put(K key, V value) {
+            hamt = hamt.put(key, value, keyHashAlg.apply(key), keyEqRel, 1, edit);
+            return this;
+        }
+
+        /**
+         * Remove the association for <code>key</code> in place, if there is one. Amortized <code>O(1)</code>.
+         *
+         * @param key the key
+         * @return this {@link Transient}
+         */
+        public Transient<K, V> remove(K key) {
+            return update(key, constantly(nothing()));
+        }
+
+        /**
+         * Update the association for <code>key</code> in place by applying <code>fn</code> to {@link Maybe} its current
+         * value, in a single traversal. If <code>fn</code> produces {@link Maybe#nothing() nothing}, any association
+         * for <code>key</code> is removed. Amortized <code>O(1)</code>.
+         *
+         * @param key the key
+         * @param fn  the function from {@link Maybe} the current value to {@link Maybe} the updated value
+         * @return this {@link Transient}
+         * @see HashMap#update(Object, Fn1)
+         */
+        public Transient<K, V> update(K key, Fn1<? super Maybe<V>, ? extends Maybe<V>> fn) {
+            hamt = hamt.update(key, keyHashAlg.apply(key), fn, keyEqRel, 1, edit);
+            return this;
+        }
+
+        /**
+         * Produce an immutable {@link HashMap} containing the entries written to this {@link Transient} so far.
+         * <code>O(1)</code>.
+         *
+         * @return the {@link HashMap}
+         */
+        public HashMap<K, V> persistent() {
+            edit = new Object();
+            return new HashMap<>(keyEqRel, keyHashAlg, hamt);
+        }
+    }
 }
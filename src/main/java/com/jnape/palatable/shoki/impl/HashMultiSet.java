@@ -12,15 +12,19 @@ import com.jnape.palatable.shoki.api.Natural;
 import com.jnape.palatable.shoki.api.Natural.NonZero;
 import com.jnape.palatable.shoki.api.SizeInfo.Known;
 
+import java.util.Iterator;
 import java.util.Objects;
+import java.util.Spliterator;
 
+import static com.jnape.palatable.lambda.adt.Maybe.just;
+import static com.jnape.palatable.lambda.adt.Maybe.nothing;
 import static com.jnape.palatable.lambda.functions.builtin.fn1.Constantly.constantly;
-import static com.jnape.palatable.lambda.functions.builtin.fn1.Id.id;
 import static com.jnape.palatable.lambda.functions.builtin.fn2.Into.into;
 import static com.jnape.palatable.lambda.functions.builtin.fn2.Map.map;
 import static com.jnape.palatable.lambda.functions.builtin.fn3.FoldLeft.foldLeft;
 import static com.jnape.palatable.shoki.api.EquivalenceRelation.objectEquals;
 import static com.jnape.palatable.shoki.api.HashingAlgorithm.objectHashCode;
+import static com.jnape.palatable.shoki.api.Natural.one;
 import static com.jnape.palatable.shoki.api.Natural.zero;
 import static com.jnape.palatable.shoki.api.SizeInfo.known;
 import static java.lang.String.format;
@@ -68,8 +72,7 @@ public final class HashMultiSet<A> implements MultiSet<A> {
      */
     @Override
     public HashMultiSet<A> inc(A a, NonZero k) {
-        return new HashMultiSet<>(multiplicityMap.put(a, multiplicityMap.get(a).fmap(k::plus).orElse(k))
-        );
+        return new HashMultiSet<>(multiplicityMap.update(a, n -> just(n.fmap(k::plus).orElse(k))));
     }
 
     /**
@@ -78,12 +81,9 @@ public final class HashMultiSet<A> implements MultiSet<A> {
      */
     @Override
     public HashMultiSet<A> dec(A a, NonZero k) {
-        return multiplicityMap.get(a)
-                .fmap(n -> new HashMultiSet<>(n.minus(k).orElse(zero())
-                                                      .match(zero -> multiplicityMap.remove(a),
-                                                             difference -> multiplicityMap.put(a, difference))
-                ))
-                .orElse(this);
+        HashMap<A, NonZero> updated = multiplicityMap.update(
+                a, m -> m.flatMap(n -> n.minus(k).orElse(zero()).match(constantly(nothing()), Maybe::just)));
+        return withMultiplicityMap(updated);
     }
 
     /**
@@ -101,7 +101,7 @@ public final class HashMultiSet<A> implements MultiSet<A> {
      */
     @Override
     public HashMultiSet<A> remove(A a) {
-        return new HashMultiSet<>(multiplicityMap.remove(a));
+        return withMultiplicityMap(multiplicityMap.remove(a));
     }
 
     /**
@@ -128,7 +128,8 @@ public final class HashMultiSet<A> implements MultiSet<A> {
      */
     @Override
     public Natural get(A a) {
-        return multiplicityMap.get(a).match(constantly(zero()), id());
+        NonZero multiplicity = multiplicityMap.getOrNull(a);
+        return multiplicity == null ? zero() : multiplicity;
     }
 
     /**
@@ -146,7 +147,7 @@ public final class HashMultiSet<A> implements MultiSet<A> {
      */
     @Override
     public HashMultiSet<A> tail() {
-        return new HashMultiSet<>(multiplicityMap.tail());
+        return withMultiplicityMap(multiplicityMap.tail());
     }
 
     /**
@@ -203,6 +204,28 @@ public final class HashMultiSet<A> implements MultiSet<A> {
         return (HashMultiSet<A>) MultiSet.super.merge(other, semigroup);
     }
 
+    /**
+     * {@inheritDoc}
+     * Iteration walks the underlying trie directly, allocating nothing beyond the yielded occurrence
+     * {@link Tuple2 pairs}.
+     */
+    @Override
+    public Iterator<Tuple2<A, NonZero>> iterator() {
+        return multiplicityMap.iterator();
+    }
+
+    /**
+     * A {@link Spliterator} over the occurrence {@link Tuple2 pairs} of this {@link HashMultiSet} that splits along
+     * the slot boundaries of the underlying trie, suitable for parallel {@link java.util.stream.Stream Streams}.
+     *
+     * @return the {@link Spliterator}
+     * @see HashMap#spliterator()
+     */
+    @Override
+    public Spliterator<Tuple2<A, NonZero>> spliterator() {
+        return multiplicityMap.spliterator();
+    }
+
     /**
      * Returns <code>true</code> if <code>other</code> is a {@link HashMultiSet} and
      * {@link EquivalenceRelation equivalent} to this {@link HashMultiSet} according to the underlying
@@ -218,7 +241,7 @@ public final class HashMultiSet<A> implements MultiSet<A> {
     }
 
     /**
-     * Compute the corresponding {@link Object#hashCode() hash code} for this {@link HashMultiSet}. <code>O(n)</code>.
+     * Compute the corresponding {@link Object#hashCode() hash code} for this {@link HashMultiSet}. <code>O(1)</code>.
      *
      * @return the hash code
      */
@@ -237,6 +260,10 @@ public final class HashMultiSet<A> implements MultiSet<A> {
                 + join(", ", map(into((a, k) -> format("(%s * %s)", a, k.bigIntegerValue())), this)) + "]";
     }
 
+    private HashMultiSet<A> withMultiplicityMap(HashMap<A, NonZero> multiplicityMap) {
+        return multiplicityMap == this.multiplicityMap ? this : new HashMultiSet<>(multiplicityMap);
+    }
+
     /**
      * Create an empty {@link HashMultiSet} using the given {@link EquivalenceRelation} and {@link HashingAlgorithm}.
      * <code>O(1)</code>.
@@ -280,7 +307,11 @@ public final class HashMultiSet<A> implements MultiSet<A> {
     public static <A> HashMultiSet<A> of(EquivalenceRelation<A> equivalenceRelation,
                                          HashingAlgorithm<A> hashingAlgorithm,
                                          A a, A... as) {
-        return foldLeft(HashMultiSet::inc, empty(equivalenceRelation, hashingAlgorithm), Cons.cons(a, asList(as)));
+        return new HashMultiSet<>(foldLeft((t, x) -> t.update(x, n -> just(n.fmap(one()::plus).orElse(one()))),
+                                           HashMap.<A, NonZero>empty(equivalenceRelation, hashingAlgorithm)
+                                                   .asTransient(),
+                                           Cons.cons(a, asList(as)))
+                                          .persistent());
     }
 
     /**
@@ -3,6 +3,8 @@ package com.jnape.palatable.shoki.impl;
 import com.jnape.palatable.lambda.adt.Maybe;
 import com.jnape.palatable.lambda.adt.Unit;
 import com.jnape.palatable.lambda.adt.hlist.Tuple2;
+import com.jnape.palatable.lambda.functions.Fn1;
+import com.jnape.palatable.lambda.functions.Fn2;
 import com.jnape.palatable.lambda.functions.builtin.fn2.Cons;
 import com.jnape.palatable.shoki.api.EquivalenceRelation;
 import com.jnape.palatable.shoki.api.HashingAlgorithm;
@@ -10,13 +12,15 @@ import com.jnape.palatable.shoki.api.Natural;
 import com.jnape.palatable.shoki.api.Set;
 import com.jnape.palatable.shoki.api.SizeInfo.Known;
 
+import java.util.Iterator;
 import java.util.Objects;
+import java.util.Spliterator;
 
 import static com.jnape.palatable.lambda.adt.Unit.UNIT;
 import static com.jnape.palatable.lambda.adt.hlist.HList.tuple;
-import static com.jnape.palatable.lambda.functions.builtin.fn2.GT.gt;
+import static com.jnape.palatable.lambda.functions.builtin.fn1.Constantly.constantly;
+import static com.jnape.palatable.lambda.functions.builtin.fn1.Id.id;
 import static com.jnape.palatable.lambda.functions.builtin.fn2.Into.into;
-import static com.jnape.palatable.lambda.functions.builtin.fn2.LT.lt;
 import static com.jnape.palatable.lambda.functions.builtin.fn2.Map.map;
 import static com.jnape.palatable.lambda.functions.builtin.fn3.FoldLeft.foldLeft;
 import static com.jnape.palatable.shoki.api.EquivalenceRelation.objectEquals;
@@ -28,6 +32,10 @@ import static java.util.Arrays.asList;
  * A {@link Set} that stores elements internally in a {@link HashMap}, supporting the same time/space performance
  * characteristics. As with {@link HashMap}, a {@link HashSet} can be configured upon creation with custom
  * {@link EquivalenceRelation equality} and {@link HashingAlgorithm hashing} semantics.
+ * <p>
+ * The {@link HashSet} returned by {@link HashMap#keys()} is backed directly by the trie of its {@link HashMap}, ignoring
+ * the values stored there; adding an element to it copies the trie into one of its own. A structural
+ * {@link HashSet#union(Set) union} involving such a view merges against its trie directly, and so is itself a view.
  *
  * @param <A> the element type
  * @see HashMap
@@ -36,10 +44,16 @@ public final class HashSet<A> implements Set<Natural, A> {
 
     private static final HashSet<?> DEFAULT_EMPTY = new HashSet<>(HashMap.empty());
 
-    private final HashMap<A, Unit> map;
+    private final HashMap<A, ?> map;
+    private final boolean       view;
 
     private HashSet(HashMap<A, Unit> map) {
-        this.map = map;
+        this(map, false);
+    }
+
+    private HashSet(HashMap<A, ?> map, boolean view) {
+        this.map  = map;
+        this.view = view;
     }
 
     /**
@@ -48,7 +62,10 @@ public final class HashSet<A> implements Set<Natural, A> {
      */
     @Override
     public HashSet<A> add(A a) {
-        return new HashSet<>(map.put(a, UNIT));
+        if (view && contains(a))
+            return this;
+
+        return withUnits(units().put(a, UNIT));
     }
 
     /**
@@ -57,12 +74,12 @@ public final class HashSet<A> implements Set<Natural, A> {
      */
     @Override
     public HashSet<A> remove(A a) {
-        return new HashSet<>(map.remove(a));
+        return withMap(map.remove(a));
     }
 
     /**
      * {@inheritDoc}
-     * <code>O(n)</code>.
+     * <code>O(1)</code>.
      */
     @Override
     public Known<Natural> sizeInfo() {
@@ -84,7 +101,7 @@ public final class HashSet<A> implements Set<Natural, A> {
      */
     @Override
     public HashSet<A> tail() {
-        return new HashSet<>(map.tail());
+        return withMap(map.tail());
     }
 
     /**
@@ -108,65 +125,191 @@ public final class HashSet<A> implements Set<Natural, A> {
 
     /**
      * {@inheritDoc}
-     * <code>O(max(n, o))</code>.
+     * If <code>other</code> is a {@link HashSet} sharing this {@link HashSet HashSet's} {@link EquivalenceRelation} and
+     * {@link HashingAlgorithm}, the two underlying tries are intersected slot by slot, descending only into slots
+     * occupied in both and reusing shared or unchanged subtrees by reference; otherwise, <code>O(n)</code>. The result
+     * always retains this {@link HashSet HashSet's} {@link EquivalenceRelation} and {@link HashingAlgorithm}.
      */
     @Override
+    @SuppressWarnings("unchecked")
     public HashSet<A> intersection(Set<Natural, A> other) {
-        return (lt(other.sizeInfo().getSize(), sizeInfo().getSize()) ? tuple(this, other) : tuple(other, this))
-                .into((source, filter) -> foldLeft((i, x) -> filter.contains(x) ? i.add(x) : i, empty(), source));
+        if (sharesAlgebraWith(other))
+            return withMap(map.intersectKeys(((HashSet<A>) other).map));
+
+        return foldLeft((intersection, a) -> other.contains(a) ? intersection : intersection.remove(a), this, this);
     }
 
     /**
      * {@inheritDoc}
-     * <code>O(min(n, o))</code>.
+     * If <code>other</code> is a {@link HashSet} sharing this {@link HashSet HashSet's} {@link EquivalenceRelation} and
+     * {@link HashingAlgorithm}, the two underlying tries are merged slot by slot, adopting subtrees present in only
+     * one of the two {@link HashSet HashSets} by reference, even if either is a {@link HashMap#keys() keys view};
+     * otherwise, <code>O(o)</code>. The result always retains this {@link HashSet HashSet's}
+     * {@link EquivalenceRelation} and {@link HashingAlgorithm}.
      */
     @Override
+    @SuppressWarnings("unchecked")
     public HashSet<A> union(Set<Natural, A> other) {
-        return (other instanceof HashSet<?> && gt(sizeInfo().getSize(), other.sizeInfo().getSize())
-                ? tuple((HashSet<A>) other, this)
-                : tuple(this, other))
-                .into(foldLeft(HashSet::add));
+        if (sharesAlgebraWith(other))
+            return unionWith((HashSet<A>) other, (xs, ys) -> xs.merge(ys, (x, __) -> x));
+
+        return addAll(other);
+    }
+
+    /**
+     * Add every element in <code>as</code> to this {@link HashSet} as a single batch, copying every trie node along the
+     * way at most once, no matter how many of the elements land beneath it. If <code>as</code> is a {@link HashSet}
+     * sharing this {@link HashSet HashSet's} {@link EquivalenceRelation} and {@link HashingAlgorithm}, this is a
+     * structural {@link HashSet#union(Set) union}. <code>O(o)</code>.
+     *
+     * @param as the elements to add
+     * @return the updated {@link HashSet}
+     * @see HashMap#putAll(Iterable)
+     */
+    @SuppressWarnings("unchecked")
+    public HashSet<A> addAll(Iterable<? extends A> as) {
+        if (as instanceof HashSet<?> && map.sharesAlgebraWith(((HashSet<?>) as).map))
+            return union((HashSet<A>) as);
+
+        return withUnits(units().putAll(map(a -> tuple(a, UNIT), as)));
+    }
+
+    /**
+     * Remove every element in <code>as</code> from this {@link HashSet} as a single batch, copying every trie node
+     * along the way at most once. If <code>as</code> is a {@link HashSet} sharing this {@link HashSet HashSet's}
+     * {@link EquivalenceRelation} and {@link HashingAlgorithm}, this is a structural
+     * {@link HashSet#difference(Set) difference}. If none of the elements are members, this same {@link HashSet} is
+     * returned. <code>O(o)</code>.
+     *
+     * @param as the elements to remove
+     * @return the updated {@link HashSet}
+     * @see HashMap#removeAll(Set)
+     */
+    @SuppressWarnings("unchecked")
+    public HashSet<A> removeAll(Iterable<? extends A> as) {
+        if (as instanceof HashSet<?> && map.sharesAlgebraWith(((HashSet<?>) as).map))
+            return difference((HashSet<A>) as);
+
+        return withMap(map.removeKeys(as));
+    }
+
+    /**
+     * Like {@link HashSet#union(Set)}, but if <code>other</code> is a {@link HashSet} sharing this
+     * {@link HashSet HashSet's} {@link EquivalenceRelation} and {@link HashingAlgorithm}, the two underlying tries are
+     * merged concurrently.
+     *
+     * @param other the other {@link Set}
+     * @return the union {@link HashSet}
+     * @see HashMap#parallelMerge(com.jnape.palatable.shoki.api.Map, com.jnape.palatable.lambda.semigroup.Semigroup)
+     */
+    @SuppressWarnings("unchecked")
+    public HashSet<A> parallelUnion(Set<Natural, A> other) {
+        if (sharesAlgebraWith(other))
+            return unionWith((HashSet<A>) other, (xs, ys) -> xs.parallelMerge(ys, (x, __) -> x));
+
+        return union(other);
+    }
+
+    /**
+     * Retain only the elements in this {@link HashSet} that satisfy <code>predicate</code>, filtering sufficiently
+     * large subtrees of the underlying trie concurrently. <code>predicate</code> must be safe to apply from multiple
+     * threads.
+     *
+     * @param predicate the predicate
+     * @return the filtered {@link HashSet}
+     * @see HashMap#parallelFilter(Fn2)
+     */
+    public HashSet<A> parallelFilter(Fn1<? super A, ? extends Boolean> predicate) {
+        return withMap(map.parallelFilter((a, __) -> predicate.apply(a)));
     }
 
     /**
      * {@inheritDoc}
-     * <code>O(o)</code>.
+     * If <code>other</code> is a {@link HashSet} sharing this {@link HashSet HashSet's} {@link EquivalenceRelation} and
+     * {@link HashingAlgorithm}, the underlying trie of <code>other</code> is subtracted slot by slot, skipping slots
+     * that are empty in <code>other</code> and dropping shared subtrees by reference; otherwise, <code>O(o)</code>.
      */
     @Override
+    @SuppressWarnings("unchecked")
     public HashSet<A> difference(Set<Natural, A> other) {
-        return foldLeft(HashSet<A>::remove, this, other);
+        if (sharesAlgebraWith(other))
+            return withMap(map.subtractKeys(((HashSet<A>) other).map));
+
+        return removeAll(other);
+    }
+
+    /**
+     * Compute the differences between this {@link HashSet} and a later version of it, <code>other</code>, as the
+     * {@link HashSet} of elements <em>added</em> in <code>other</code> and the {@link HashSet} of elements
+     * <em>removed</em> from this {@link HashSet}. If <code>other</code> shares this {@link HashSet HashSet's}
+     * {@link EquivalenceRelation} and {@link HashingAlgorithm}, subtrees shared by reference are skipped, so the cost
+     * is proportional to the size of the changes; otherwise, <code>O(n + o)</code>.
+     *
+     * @param other the later version
+     * @return the added and removed elements
+     * @see HashMap#diff(HashMap)
+     */
+    public Tuple2<HashSet<A>, HashSet<A>> diff(HashSet<A> other) {
+        return tuple(other.difference(this), difference(other));
     }
 
     /**
      * {@inheritDoc}
-     * <code>O(n + o + min(n, o))</code>.
+     * Computed as the {@link HashSet#union(Set) union} of both {@link HashSet#difference(Set) differences}, so if
+     * <code>other</code> is a {@link HashSet} sharing this {@link HashSet HashSet's} {@link EquivalenceRelation} and
+     * {@link HashingAlgorithm}, every step is structural; otherwise, <code>O(n + o)</code>.
      */
     @Override
     public HashSet<A> symmetricDifference(Set<Natural, A> other) {
         return (HashSet<A>) Set.super.symmetricDifference(other);
     }
 
+    /**
+     * {@inheritDoc}
+     * Iteration walks the underlying trie directly, without allocating per element.
+     */
+    @Override
+    public Iterator<A> iterator() {
+        return map.keyIterator();
+    }
+
+    /**
+     * A {@link Spliterator} over the elements of this {@link HashSet} that splits along the slot boundaries of the
+     * underlying trie, suitable for parallel {@link java.util.stream.Stream Streams}.
+     *
+     * @return the {@link Spliterator}
+     * @see HashMap#spliterator()
+     */
+    @Override
+    public Spliterator<A> spliterator() {
+        return map.keySpliterator();
+    }
+
     /**
      * Determine if <code>other</code> is a {@link HashSet} with the same elements as this {@link HashSet} (according to
-     * the underlying {@link HashMap}). <code>O(n)</code>
+     * the underlying {@link HashMap}). If both {@link HashSet HashSets} share the same {@link EquivalenceRelation} and
+     * {@link HashingAlgorithm}, the underlying tries are compared node by node, skipping any subtrees they share by
+     * reference. <code>O(n)</code>
      *
      * @param other the {@link Object} to check for equality
      * @return the equality outcome
      * @see HashMap#equals(Object)
      */
     @Override
+    @SuppressWarnings("unchecked")
     public boolean equals(Object other) {
-        return other instanceof HashSet<?> && map.equals(((HashSet<?>) other).map);
+        return other instanceof HashSet<?> && map.sameKeys(((HashSet<A>) other).map);
     }
 
     /**
-     * Compute the corresponding {@link Object#hashCode() hash code} for this {@link HashSet}. <code>O(n)</code>.
+     * Compute the corresponding {@link Object#hashCode() hash code} for this {@link HashSet}. <code>O(1)</code>, even
+     * if this {@link HashSet} is a {@link HashMap#keys() keys view} of a {@link HashMap}.
      *
      * @return the hash code
      */
     @Override
     public int hashCode() {
-        return map.hashCode();
+        return view ? map.hashWithUniformValue(UNIT) : map.hashCode();
     }
 
     /**
@@ -178,6 +321,38 @@ public final class HashSet<A> implements Set<Natural, A> {
         return "HashSet[" + join(", ", map(into((e, __) -> e.toString()), map)) + ']';
     }
 
+    HashMap<A, ?> underlyingMap() {
+        return map;
+    }
+
+    private boolean sharesAlgebraWith(Set<Natural, A> other) {
+        return other instanceof HashSet<?> && map.sharesAlgebraWith(((HashSet<?>) other).map);
+    }
+
+    @SuppressWarnings("unchecked")
+    private HashMap<A, Unit> units() {
+        return view ? map.mapValuesWithKeys((a, __) -> UNIT) : (HashMap<A, Unit>) map;
+    }
+
+    @SuppressWarnings("unchecked")
+    private HashSet<A> unionWith(HashSet<A> other,
+                                 Fn2<HashMap<A, Object>, HashMap<A, Object>, HashMap<A, Object>> merge) {
+        HashMap<A, ?> union = merge.apply((HashMap<A, Object>) map, (HashMap<A, Object>) other.map);
+        return union == map ? this : new HashSet<>(union, view || other.view);
+    }
+
+    private HashSet<A> withUnits(HashMap<A, Unit> units) {
+        return units == map ? this : new HashSet<>(units);
+    }
+
+    private HashSet<A> withMap(HashMap<A, ?> map) {
+        return map == this.map ? this : new HashSet<>(map, view);
+    }
+
+    static <A> HashSet<A> keysOf(HashMap<A, ?> map) {
+        return new HashSet<>(map, true);
+    }
+
     /**
      * Create an empty {@link HashSet} using the given {@link EquivalenceRelation} and {@link HashingAlgorithm}.
      * <code>O(1)</code>.
@@ -219,7 +394,37 @@ public final class HashSet<A> implements Set<Natural, A> {
     @SafeVarargs
     public static <A> HashSet<A> of(EquivalenceRelation<A> equivalenceRelation, HashingAlgorithm<A> hashingAlgorithm,
                                     A a, A... as) {
-        return foldLeft(HashSet::add, HashSet.empty(equivalenceRelation, hashingAlgorithm), Cons.cons(a, asList(as)));
+        return fromIterable(equivalenceRelation, hashingAlgorithm, Cons.cons(a, asList(as)));
+    }
+
+    /**
+     * Create a new {@link HashSet} using the given {@link EquivalenceRelation} and {@link HashingAlgorithm}, populated
+     * by the given elements, building each node of the underlying trie exactly once. <code>O(n)</code>.
+     *
+     * @param equivalenceRelation the {@link EquivalenceRelation}
+     * @param hashingAlgorithm    the {@link HashingAlgorithm}
+     * @param as                  the elements
+     * @param <A>                 the element type
+     * @return the populated {@link HashSet}
+     * @see HashMap#fromIterable(EquivalenceRelation, HashingAlgorithm, Iterable)
+     */
+    public static <A> HashSet<A> fromIterable(EquivalenceRelation<A> equivalenceRelation,
+                                              HashingAlgorithm<A> hashingAlgorithm,
+                                              Iterable<? extends A> as) {
+        return new HashSet<>(HashMap.fromIterable(equivalenceRelation, hashingAlgorithm, as, id(), constantly(UNIT)));
+    }
+
+    /**
+     * Create a new {@link HashSet} using {@link Objects#equals(Object, Object) Object equality} and
+     * {@link Objects#hashCode(Object) Object hashCode} as the {@link EquivalenceRelation} and {@link HashingAlgorithm},
+     * respectively, populated by the given elements. <code>O(n)</code>.
+     *
+     * @param as  the elements
+     * @param <A> the element type
+     * @return the populated {@link HashSet}
+     */
+    public static <A> HashSet<A> fromIterable(Iterable<? extends A> as) {
+        return fromIterable(objectEquals(), objectHashCode(), as);
     }
 
     /**
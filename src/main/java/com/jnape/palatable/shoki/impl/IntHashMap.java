@@ -0,0 +1,159 @@
+package com.jnape.palatable.shoki.impl;
+
+import com.jnape.palatable.lambda.adt.Maybe;
+import com.jnape.palatable.lambda.adt.hlist.Tuple2;
+import com.jnape.palatable.shoki.api.Map;
+
+import java.util.Iterator;
+
+/**
+ * A {@link Map} from primitive <code>int</code> keys to values of type <code>V</code>, built on the same
+ * <a href="https://michael.steindorfer.name/publications/oopsla15.pdf" target="_new">CHAMP</a> trie encoding as
+ * {@link HashMap}, but storing its keys unboxed in primitive arrays inside the trie nodes. Each key is positioned in
+ * the trie by a bijective mix of its own bits rather than by a {@link com.jnape.palatable.shoki.api.HashingAlgorithm},
+ * so distinct keys never collide, and no {@link com.jnape.palatable.shoki.api.EquivalenceRelation} is consulted.
+ * <p>
+ * The <code>int</code>-keyed {@link IntHashMap#getInt(int) getInt},
+ * {@link IntHashMap#putInt(int, Object) putInt}, {@link IntHashMap#removeInt(int) removeInt}, and
+ * {@link IntHashMap#containsInt(int) containsInt} never box their keys; the {@link Integer}-keyed methods required by
+ * {@link Map} simply unbox and delegate to them. The primitive variants are named apart from the {@link Map}
+ * methods so that calls stay unambiguous even when <code>V</code> is itself a boxed primitive type.
+ * <p>
+ * Keys share the <code>long</code>-keyed trie that backs {@link LongHashMap}, stored sign-extended, so each key
+ * occupies 8 bytes rather than the 4 an <code>int</code>-keyed trie would need. This keeps a single trie
+ * implementation for both key widths, and still costs far less per key than a reference to a boxed {@link Integer}
+ * plus the {@link Integer} itself.
+ *
+ * @param <V> the value type
+ * @see HashMap
+ * @see IntHashSet
+ */
+public final class IntHashMap<V> extends PrimitiveHashMap<Integer, V, IntHashMap<V>> {
+
+    private static final IntHashMap<?> EMPTY = new IntHashMap<>(LongHAMT.rootNode());
+
+    private IntHashMap(LongHAMT<V> hamt) {
+        super(hamt);
+    }
+
+    /**
+     * If <code>key</code> is associated to a value inside this {@link IntHashMap}, retrieve
+     * {@link Maybe#just(Object) just} the value it maps to; otherwise, return {@link Maybe#nothing() nothing}.
+     * Amortized <code>O(1)</code>.
+     *
+     * @param key the key
+     * @return {@link Maybe} the value associated to <code>key</code>
+     */
+    public Maybe<V> getInt(int key) {
+        return hamt.get(key);
+    }
+
+    /**
+     * Retrieve the value associated to <code>key</code> inside this {@link IntHashMap}, or <code>defaultValue</code>
+     * if there is no such association, without allocating a {@link Maybe}. Amortized <code>O(1)</code>.
+     *
+     * @param key          the key
+     * @param defaultValue the value to return if <code>key</code> is absent
+     * @return the value associated to <code>key</code>, or <code>defaultValue</code>
+     */
+    public V getOrDefault(int key, V defaultValue) {
+        return hamt.getOrDefault(key, defaultValue);
+    }
+
+    /**
+     * Retrieve the value associated to <code>key</code> inside this {@link IntHashMap}, or <code>null</code> if there
+     * is no such association. Amortized <code>O(1)</code>.
+     *
+     * @param key the key
+     * @return the value associated to <code>key</code>, or <code>null</code>
+     * @see IntHashMap#getOrDefault(int, Object)
+     */
+    public V getOrNull(int key) {
+        return getOrDefault(key, null);
+    }
+
+    /**
+     * Associate <code>key</code> with <code>value</code> inside this {@link IntHashMap}, overriding any value
+     * currently associated to <code>key</code>. Amortized <code>O(1)</code>.
+     *
+     * @param key   the key
+     * @param value the value
+     * @return the updated {@link IntHashMap}
+     */
+    public IntHashMap<V> putInt(int key, V value) {
+        return withHamt(hamt.put(key, value));
+    }
+
+    /**
+     * Remove the association for <code>key</code> inside this {@link IntHashMap}, if there is one. Amortized
+     * <code>O(1)</code>.
+     *
+     * @param key the key
+     * @return the updated {@link IntHashMap}
+     */
+    public IntHashMap<V> removeInt(int key) {
+        return withHamt(hamt.remove(key));
+    }
+
+    /**
+     * <code>True</code> if <code>key</code> is associated to a value in this {@link IntHashMap}; <code>false</code>
+     * otherwise. Amortized <code>O(1)</code>.
+     *
+     * @param key the key
+     * @return whether <code>key</code> is associated to a value
+     */
+    public boolean containsInt(int key) {
+        return hamt.contains(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <code>O(n)</code>.
+     */
+    @Override
+    public IntHashSet keys() {
+        IntHashSet keys = IntHashSet.empty();
+        for (Iterator<Integer> iterator = keyIterator(); iterator.hasNext(); ) {
+            keys = keys.add(iterator.next().intValue());
+        }
+        return keys;
+    }
+
+    @Override
+    Integer box(long key) {
+        return (int) key;
+    }
+
+    @Override
+    IntHashMap<V> wrap(LongHAMT<V> hamt) {
+        return new IntHashMap<>(hamt);
+    }
+
+    /**
+     * The empty singleton {@link IntHashMap}.
+     *
+     * @param <V> the value type
+     * @return the empty {@link IntHashMap}
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> IntHashMap<V> empty() {
+        return (IntHashMap<V>) EMPTY;
+    }
+
+    /**
+     * Create a new {@link IntHashMap} populated by one or more given entries.
+     *
+     * @param entry   the first entry
+     * @param entries the rest of the entries
+     * @param <V>     the value type
+     * @return the populated {@link IntHashMap}
+     */
+    @SafeVarargs
+    public static <V> IntHashMap<V> of(Tuple2<Integer, V> entry, Tuple2<Integer, V>... entries) {
+        IntHashMap<V> map = IntHashMap.<V>empty().put(entry._1(), entry._2());
+        for (Tuple2<Integer, V> next : entries) {
+            map = map.put(next._1(), next._2());
+        }
+        return map;
+    }
+}
@@ -0,0 +1,84 @@
+package com.jnape.palatable.shoki.impl;
+
+import com.jnape.palatable.lambda.adt.Unit;
+import com.jnape.palatable.shoki.api.Set;
+
+import static com.jnape.palatable.lambda.adt.Unit.UNIT;
+
+/**
+ * A {@link Set} of primitive <code>int</code> elements that stores its elements internally in an {@link IntHashMap},
+ * supporting the same time/space performance characteristics. The <code>int</code> overloads of
+ * {@link IntHashSet#add(int) add}, {@link IntHashSet#remove(int) remove}, and
+ * {@link IntHashSet#contains(int) contains} never box their elements.
+ *
+ * @see IntHashMap
+ * @see HashSet
+ */
+public final class IntHashSet extends PrimitiveHashSet<Integer, IntHashMap<Unit>, IntHashSet> {
+
+    private static final IntHashSet EMPTY = new IntHashSet(IntHashMap.empty());
+
+    private IntHashSet(IntHashMap<Unit> map) {
+        super(map);
+    }
+
+    /**
+     * Add <code>a</code> to this {@link IntHashSet}. Amortized <code>O(1)</code>.
+     *
+     * @param a the element
+     * @return the updated {@link IntHashSet}
+     */
+    public IntHashSet add(int a) {
+        return withMap(map.putInt(a, UNIT));
+    }
+
+    /**
+     * Remove <code>a</code> from this {@link IntHashSet}, if it is a member. Amortized <code>O(1)</code>.
+     *
+     * @param a the element
+     * @return the updated {@link IntHashSet}
+     */
+    public IntHashSet remove(int a) {
+        return withMap(map.removeInt(a));
+    }
+
+    /**
+     * <code>True</code> if <code>a</code> is a member of this {@link IntHashSet}; <code>false</code> otherwise.
+     * Amortized <code>O(1)</code>.
+     *
+     * @param a the element
+     * @return whether <code>a</code> is a member
+     */
+    public boolean contains(int a) {
+        return map.containsInt(a);
+    }
+
+    @Override
+    IntHashSet wrap(IntHashMap<Unit> map) {
+        return new IntHashSet(map);
+    }
+
+    /**
+     * The empty singleton {@link IntHashSet}. <code>O(1)</code>.
+     *
+     * @return the empty {@link IntHashSet}
+     */
+    public static IntHashSet empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Create a new {@link IntHashSet} populated by one or more given elements. <code>O(n)</code>.
+     *
+     * @param a  the first element
+     * @param as the rest of the elements
+     * @return the populated {@link IntHashSet}
+     */
+    public static IntHashSet of(int a, int... as) {
+        IntHashSet set = empty().add(a);
+        for (int next : as) {
+            set = set.add(next);
+        }
+        return set;
+    }
+}
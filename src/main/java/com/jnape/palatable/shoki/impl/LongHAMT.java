@@ -0,0 +1,352 @@
+package com.jnape.palatable.shoki.impl;
+
+import com.jnape.palatable.lambda.adt.Maybe;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import static com.jnape.palatable.lambda.adt.Maybe.just;
+import static com.jnape.palatable.lambda.adt.Maybe.nothing;
+import static java.lang.Math.ceil;
+
+final class LongHAMT<V> {
+
+    static final int LEVEL_SIZE = 5;
+    static final int MAX_LEVEL  = (int) ceil(64D / LEVEL_SIZE);
+
+    private static final int         SLOT_MASK = (1 << LEVEL_SIZE) - 1;
+    private static final LongHAMT<?> ROOT      = new LongHAMT<>(0, 0, Arrays.EMPTY_LONGS, Arrays.EMPTY_OBJECTS, 0, 0);
+
+    private final int      dataMap;
+    private final int      nodeMap;
+    private final long[]   keys;
+    private final Object[] table;
+    private final int      size;
+    private final int      hash;
+
+    private LongHAMT(int dataMap, int nodeMap, long[] keys, Object[] table, int size, int hash) {
+        this.dataMap = dataMap;
+        this.nodeMap = nodeMap;
+        this.keys = keys;
+        this.table = table;
+        this.size = size;
+        this.hash = hash;
+    }
+
+    Maybe<V> get(long key) {
+        long        keyHash = mix(key);
+        LongHAMT<V> node    = this;
+        for (int level = 1; ; level++) {
+            int bitpos = bitpos(keyHash, level);
+            if ((node.dataMap & bitpos) != 0) {
+                int dataIndex = index(node.dataMap, bitpos);
+                return node.keys[dataIndex] == key ? just(node.valueAt(dataIndex)) : nothing();
+            }
+            if ((node.nodeMap & bitpos) == 0)
+                return nothing();
+            node = node.nodeAt(index(node.nodeMap, bitpos));
+        }
+    }
+
+    V getOrDefault(long key, V defaultValue) {
+        long        keyHash = mix(key);
+        LongHAMT<V> node    = this;
+        for (int level = 1; ; level++) {
+            int bitpos = bitpos(keyHash, level);
+            if ((node.dataMap & bitpos) != 0) {
+                int dataIndex = index(node.dataMap, bitpos);
+                return node.keys[dataIndex] == key ? node.valueAt(dataIndex) : defaultValue;
+            }
+            if ((node.nodeMap & bitpos) == 0)
+                return defaultValue;
+            node = node.nodeAt(index(node.nodeMap, bitpos));
+        }
+    }
+
+    boolean contains(long key) {
+        long        keyHash = mix(key);
+        LongHAMT<V> node    = this;
+        for (int level = 1; ; level++) {
+            int bitpos = bitpos(keyHash, level);
+            if ((node.dataMap & bitpos) != 0)
+                return node.keys[index(node.dataMap, bitpos)] == key;
+            if ((node.nodeMap & bitpos) == 0)
+                return false;
+            node = node.nodeAt(index(node.nodeMap, bitpos));
+        }
+    }
+
+    LongHAMT<V> put(long key, V value) {
+        return put(key, value, mix(key), 1);
+    }
+
+    LongHAMT<V> remove(long key) {
+        return remove(key, mix(key), 1);
+    }
+
+    LongHAMT<V> removeFirst() {
+        if (dataMap != 0)
+            return removeValue(Integer.lowestOneBit(dataMap), 0);
+
+        if (nodeMap == 0)
+            return this;
+
+        LongHAMT<V> child   = nodeAt(0);
+        LongHAMT<V> updated = child.removeFirst();
+        return updated.size == 1
+               ? migrateToData(Integer.lowestOneBit(nodeMap), 0, updated.keys[0], updated.valueAt(0))
+               : setNode(0, child, updated);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int hash() {
+        return hash;
+    }
+
+    int payloadArity() {
+        return keys.length;
+    }
+
+    int nodeArity() {
+        return Integer.bitCount(nodeMap);
+    }
+
+    long keyAt(int dataIndex) {
+        return keys[dataIndex];
+    }
+
+    @SuppressWarnings("unchecked")
+    V valueAt(int dataIndex) {
+        return (V) table[dataIndex];
+    }
+
+    @SuppressWarnings("unchecked")
+    LongHAMT<V> nodeAt(int nodeIndex) {
+        return (LongHAMT<V>) table[table.length - 1 - nodeIndex];
+    }
+
+    boolean sameEntries(LongHAMT<?> other) {
+        if (other == this)
+            return true;
+        if (size != other.size || hash != other.hash || dataMap != other.dataMap || nodeMap != other.nodeMap
+                || !java.util.Arrays.equals(keys, other.keys))
+            return false;
+
+        for (int i = 0; i < keys.length; i++) {
+            if (!Objects.equals(table[i], other.table[i]))
+                return false;
+        }
+        for (int i = 0; i < nodeArity(); i++) {
+            if (!nodeAt(i).sameEntries(other.nodeAt(i)))
+                return false;
+        }
+        return true;
+    }
+
+    <A> Iterator<A> iterator(EntryProjection<? super V, ? extends A> projection) {
+        return new Cursor<>(this, projection);
+    }
+
+    private LongHAMT<V> put(long key, V value, long keyHash, int level) {
+        int bitpos = bitpos(keyHash, level);
+        if ((dataMap & bitpos) != 0) {
+            int dataIndex = index(dataMap, bitpos);
+            if (keys[dataIndex] == key)
+                return table[dataIndex] == value ? this : setValue(dataIndex, value);
+
+            long existingKey = keys[dataIndex];
+            return migrateToNode(bitpos, dataIndex, mergeTwo(existingKey, valueAt(dataIndex), mix(existingKey),
+                                                             key, value, keyHash, level + 1));
+        }
+
+        if ((nodeMap & bitpos) != 0) {
+            int         nodeIndex = index(nodeMap, bitpos);
+            LongHAMT<V> child     = nodeAt(nodeIndex);
+            LongHAMT<V> updated   = child.put(key, value, keyHash, level + 1);
+            return updated == child ? this : setNode(nodeIndex, child, updated);
+        }
+
+        return insertValue(bitpos, key, value);
+    }
+
+    private LongHAMT<V> remove(long key, long keyHash, int level) {
+        int bitpos = bitpos(keyHash, level);
+        if ((dataMap & bitpos) != 0) {
+            int dataIndex = index(dataMap, bitpos);
+            return keys[dataIndex] == key ? removeValue(bitpos, dataIndex) : this;
+        }
+
+        if ((nodeMap & bitpos) != 0) {
+            int         nodeIndex = index(nodeMap, bitpos);
+            LongHAMT<V> child     = nodeAt(nodeIndex);
+            LongHAMT<V> updated   = child.remove(key, keyHash, level + 1);
+            if (updated == child)
+                return this;
+            return updated.size == 1
+                   ? migrateToData(bitpos, nodeIndex, updated.keys[0], updated.valueAt(0))
+                   : setNode(nodeIndex, child, updated);
+        }
+
+        return this;
+    }
+
+    private LongHAMT<V> setValue(int dataIndex, V value) {
+        V existing = valueAt(dataIndex);
+        return new LongHAMT<>(dataMap, nodeMap, keys, Arrays.overrideAt(dataIndex, table, value), size,
+                              hash - entryHash(keys[dataIndex], existing) + entryHash(keys[dataIndex], value));
+    }
+
+    private LongHAMT<V> setNode(int nodeIndex, LongHAMT<V> child, LongHAMT<V> updated) {
+        return new LongHAMT<>(dataMap, nodeMap, keys,
+                              Arrays.overrideAt(table.length - 1 - nodeIndex, table, updated),
+                              size - child.size + updated.size, hash - child.hash + updated.hash);
+    }
+
+    private LongHAMT<V> insertValue(int bitpos, long key, V value) {
+        int dataIndex = index(dataMap, bitpos);
+        return new LongHAMT<>(dataMap | bitpos, nodeMap,
+                              Arrays.insertAt(dataIndex, keys, key),
+                              Arrays.insertAt(dataIndex, table, value),
+                              size + 1, hash + entryHash(key, value));
+    }
+
+    private LongHAMT<V> removeValue(int bitpos, int dataIndex) {
+        return new LongHAMT<>(dataMap ^ bitpos, nodeMap,
+                              Arrays.deleteAt(dataIndex, keys),
+                              Arrays.deleteAt(dataIndex, table),
+                              size - 1, hash - entryHash(keys[dataIndex], valueAt(dataIndex)));
+    }
+
+    private LongHAMT<V> migrateToNode(int bitpos, int dataIndex, LongHAMT<V> node) {
+        Object[] table = Arrays.deleteAt(dataIndex, this.table);
+        return new LongHAMT<>(dataMap ^ bitpos, nodeMap | bitpos,
+                              Arrays.deleteAt(dataIndex, keys),
+                              Arrays.insertAt(table.length - index(nodeMap, bitpos), table, node),
+                              size + 1, hash - entryHash(keys[dataIndex], valueAt(dataIndex)) + node.hash);
+    }
+
+    private LongHAMT<V> migrateToData(int bitpos, int nodeIndex, long key, V value) {
+        int      dataIndex = index(dataMap, bitpos);
+        Object[] table     = Arrays.deleteAt(this.table.length - 1 - nodeIndex, this.table);
+        return new LongHAMT<>(dataMap | bitpos, nodeMap ^ bitpos,
+                              Arrays.insertAt(dataIndex, keys, key),
+                              Arrays.insertAt(dataIndex, table, value),
+                              size - 1, hash - nodeAt(nodeIndex).hash + entryHash(key, value));
+    }
+
+    private static <V> LongHAMT<V> mergeTwo(long key1, V value1, long keyHash1,
+                                            long key2, V value2, long keyHash2,
+                                            int level) {
+        int slot1 = slot(keyHash1, level);
+        int slot2 = slot(keyHash2, level);
+        int hash  = entryHash(key1, value1) + entryHash(key2, value2);
+        if (slot1 == slot2)
+            return new LongHAMT<>(0, 1 << slot1, Arrays.EMPTY_LONGS,
+                                  new Object[]{mergeTwo(key1, value1, keyHash1, key2, value2, keyHash2, level + 1)},
+                                  2, hash);
+
+        return slot1 < slot2
+               ? new LongHAMT<>(1 << slot1 | 1 << slot2, 0, new long[]{key1, key2}, new Object[]{value1, value2},
+                                2, hash)
+               : new LongHAMT<>(1 << slot1 | 1 << slot2, 0, new long[]{key2, key1}, new Object[]{value2, value1},
+                                2, hash);
+    }
+
+    private static int entryHash(long key, Object value) {
+        return 31 * Long.hashCode(key) + Objects.hashCode(value);
+    }
+
+    private static int slot(long keyHash, int level) {
+        return (int) (keyHash >>> ((level - 1) * LEVEL_SIZE)) & SLOT_MASK;
+    }
+
+    private static int bitpos(long keyHash, int level) {
+        return 1 << slot(keyHash, level);
+    }
+
+    private static int index(int bitmap, int bitpos) {
+        return Integer.bitCount(bitmap & (bitpos - 1));
+    }
+
+    /*
+     * The finalizer of MurmurHash3's 64-bit variant. Every step is invertible, so distinct keys always produce distinct
+     * positions in the trie (and full collisions are impossible), while clustered keys such as sequential ids are still
+     * spread evenly across the slots of each level.
+     */
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> LongHAMT<V> rootNode() {
+        return (LongHAMT<V>) ROOT;
+    }
+
+    @FunctionalInterface
+    interface EntryProjection<V, A> {
+        A apply(long key, V value);
+    }
+
+    static final class Cursor<V, A> implements Iterator<A> {
+        private final EntryProjection<? super V, ? extends A> projection;
+        private final Object[]                                nodes;
+        private final int[]                                   nodeIndices;
+        private       int                                     depth;
+        private       LongHAMT<V>                             payload;
+        private       int                                     dataIndex;
+
+        Cursor(LongHAMT<V> root, EntryProjection<? super V, ? extends A> projection) {
+            this.projection = projection;
+            nodes = new Object[MAX_LEVEL + 1];
+            nodeIndices = new int[MAX_LEVEL + 1];
+            nodes[0] = root;
+            payload = root;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return dataIndex < payload.keys.length || advance();
+        }
+
+        @Override
+        public A next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            A next = projection.apply(payload.keys[dataIndex], payload.valueAt(dataIndex));
+            dataIndex++;
+            return next;
+        }
+
+        @SuppressWarnings("unchecked")
+        private boolean advance() {
+            while (depth >= 0) {
+                LongHAMT<V> node      = (LongHAMT<V>) nodes[depth];
+                int         nodeIndex = nodeIndices[depth];
+                if (nodeIndex == node.nodeArity()) {
+                    nodes[depth--] = null;
+                    continue;
+                }
+
+                nodeIndices[depth] = nodeIndex + 1;
+                LongHAMT<V> child = node.nodeAt(nodeIndex);
+                nodes[++depth] = child;
+                nodeIndices[depth] = 0;
+                payload = child;
+                dataIndex = 0;
+                if (child.keys.length > 0)
+                    return true;
+            }
+            return false;
+        }
+    }
+}
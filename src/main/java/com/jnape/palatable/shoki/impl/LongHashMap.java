@@ -0,0 +1,154 @@
+package com.jnape.palatable.shoki.impl;
+
+import com.jnape.palatable.lambda.adt.Maybe;
+import com.jnape.palatable.lambda.adt.hlist.Tuple2;
+import com.jnape.palatable.shoki.api.Map;
+
+import java.util.Iterator;
+
+/**
+ * A {@link Map} from primitive <code>long</code> keys to values of type <code>V</code>, built on the same
+ * <a href="https://michael.steindorfer.name/publications/oopsla15.pdf" target="_new">CHAMP</a> trie encoding as
+ * {@link HashMap}, but storing its keys unboxed in primitive arrays inside the trie nodes. Each key is positioned in
+ * the trie by a bijective mix of its own bits rather than by a {@link com.jnape.palatable.shoki.api.HashingAlgorithm},
+ * so distinct keys never collide, and no {@link com.jnape.palatable.shoki.api.EquivalenceRelation} is consulted.
+ * <p>
+ * The <code>long</code>-keyed {@link LongHashMap#getLong(long) getLong},
+ * {@link LongHashMap#putLong(long, Object) putLong}, {@link LongHashMap#removeLong(long) removeLong}, and
+ * {@link LongHashMap#containsLong(long) containsLong} never box their keys; the {@link Long}-keyed methods required by
+ * {@link Map} simply unbox and delegate to them. The primitive variants are named apart from the {@link Map}
+ * methods so that calls stay unambiguous even when <code>V</code> is itself a boxed primitive type.
+ *
+ * @param <V> the value type
+ * @see HashMap
+ * @see LongHashSet
+ */
+public final class LongHashMap<V> extends PrimitiveHashMap<Long, V, LongHashMap<V>> {
+
+    private static final LongHashMap<?> EMPTY = new LongHashMap<>(LongHAMT.rootNode());
+
+    private LongHashMap(LongHAMT<V> hamt) {
+        super(hamt);
+    }
+
+    /**
+     * If <code>key</code> is associated to a value inside this {@link LongHashMap}, retrieve
+     * {@link Maybe#just(Object) just} the value it maps to; otherwise, return {@link Maybe#nothing() nothing}.
+     * Amortized <code>O(1)</code>.
+     *
+     * @param key the key
+     * @return {@link Maybe} the value associated to <code>key</code>
+     */
+    public Maybe<V> getLong(long key) {
+        return hamt.get(key);
+    }
+
+    /**
+     * Retrieve the value associated to <code>key</code> inside this {@link LongHashMap}, or <code>defaultValue</code>
+     * if there is no such association, without allocating a {@link Maybe}. Amortized <code>O(1)</code>.
+     *
+     * @param key          the key
+     * @param defaultValue the value to return if <code>key</code> is absent
+     * @return the value associated to <code>key</code>, or <code>defaultValue</code>
+     */
+    public V getOrDefault(long key, V defaultValue) {
+        return hamt.getOrDefault(key, defaultValue);
+    }
+
+    /**
+     * Retrieve the value associated to <code>key</code> inside this {@link LongHashMap}, or <code>null</code> if there
+     * is no such association. Amortized <code>O(1)</code>.
+     *
+     * @param key the key
+     * @return the value associated to <code>key</code>, or <code>null</code>
+     * @see LongHashMap#getOrDefault(long, Object)
+     */
+    public V getOrNull(long key) {
+        return getOrDefault(key, null);
+    }
+
+    /**
+     * Associate <code>key</code> with <code>value</code> inside this {@link LongHashMap}, overriding any value
+     * currently associated to <code>key</code>. Amortized <code>O(1)</code>.
+     *
+     * @param key   the key
+     * @param value the value
+     * @return the updated {@link LongHashMap}
+     */
+    public LongHashMap<V> putLong(long key, V value) {
+        return withHamt(hamt.put(key, value));
+    }
+
+    /**
+     * Remove the association for <code>key</code> inside this {@link LongHashMap}, if there is one. Amortized
+     * <code>O(1)</code>.
+     *
+     * @param key the key
+     * @return the updated {@link LongHashMap}
+     */
+    public LongHashMap<V> removeLong(long key) {
+        return withHamt(hamt.remove(key));
+    }
+
+    /**
+     * <code>True</code> if <code>key</code> is associated to a value in this {@link LongHashMap}; <code>false</code>
+     * otherwise. Amortized <code>O(1)</code>.
+     *
+     * @param key the key
+     * @return whether <code>key</code> is associated to a value
+     */
+    public boolean containsLong(long key) {
+        return hamt.contains(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <code>O(n)</code>.
+     */
+    @Override
+    public LongHashSet keys() {
+        LongHashSet keys = LongHashSet.empty();
+        for (Iterator<Long> iterator = keyIterator(); iterator.hasNext(); ) {
+            keys = keys.add(iterator.next().longValue());
+        }
+        return keys;
+    }
+
+    @Override
+    Long box(long key) {
+        return key;
+    }
+
+    @Override
+    LongHashMap<V> wrap(LongHAMT<V> hamt) {
+        return new LongHashMap<>(hamt);
+    }
+
+    /**
+     * The empty singleton {@link LongHashMap}.
+     *
+     * @param <V> the value type
+     * @return the empty {@link LongHashMap}
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> LongHashMap<V> empty() {
+        return (LongHashMap<V>) EMPTY;
+    }
+
+    /**
+     * Create a new {@link LongHashMap} populated by one or more given entries.
+     *
+     * @param entry   the first entry
+     * @param entries the rest of the entries
+     * @param <V>     the value type
+     * @return the populated {@link LongHashMap}
+     */
+    @SafeVarargs
+    public static <V> LongHashMap<V> of(Tuple2<Long, V> entry, Tuple2<Long, V>... entries) {
+        LongHashMap<V> map = LongHashMap.<V>empty().put(entry._1(), entry._2());
+        for (Tuple2<Long, V> next : entries) {
+            map = map.put(next._1(), next._2());
+        }
+        return map;
+    }
+}
@@ -0,0 +1,84 @@
+package com.jnape.palatable.shoki.impl;
+
+import com.jnape.palatable.lambda.adt.Unit;
+import com.jnape.palatable.shoki.api.Set;
+
+import static com.jnape.palatable.lambda.adt.Unit.UNIT;
+
+/**
+ * A {@link Set} of primitive <code>long</code> elements that stores its elements internally in a {@link LongHashMap},
+ * supporting the same time/space performance characteristics. The <code>long</code> overloads of
+ * {@link LongHashSet#add(long) add}, {@link LongHashSet#remove(long) remove}, and
+ * {@link LongHashSet#contains(long) contains} never box their elements.
+ *
+ * @see LongHashMap
+ * @see HashSet
+ */
+public final class LongHashSet extends PrimitiveHashSet<Long, LongHashMap<Unit>, LongHashSet> {
+
+    private static final LongHashSet EMPTY = new LongHashSet(LongHashMap.empty());
+
+    private LongHashSet(LongHashMap<Unit> map) {
+        super(map);
+    }
+
+    /**
+     * Add <code>a</code> to this {@link LongHashSet}. Amortized <code>O(1)</code>.
+     *
+     * @param a the element
+     * @return the updated {@link LongHashSet}
+     */
+    public LongHashSet add(long a) {
+        return withMap(map.putLong(a, UNIT));
+    }
+
+    /**
+     * Remove <code>a</code> from this {@link LongHashSet}, if it is a member. Amortized <code>O(1)</code>.
+     *
+     * @param a the element
+     * @return the updated {@link LongHashSet}
+     */
+    public LongHashSet remove(long a) {
+        return withMap(map.removeLong(a));
+    }
+
+    /**
+     * <code>True</code> if <code>a</code> is a member of this {@link LongHashSet}; <code>false</code> otherwise.
+     * Amortized <code>O(1)</code>.
+     *
+     * @param a the element
+     * @return whether <code>a</code> is a member
+     */
+    public boolean contains(long a) {
+        return map.containsLong(a);
+    }
+
+    @Override
+    LongHashSet wrap(LongHashMap<Unit> map) {
+        return new LongHashSet(map);
+    }
+
+    /**
+     * The empty singleton {@link LongHashSet}. <code>O(1)</code>.
+     *
+     * @return the empty {@link LongHashSet}
+     */
+    public static LongHashSet empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Create a new {@link LongHashSet} populated by one or more given elements. <code>O(n)</code>.
+     *
+     * @param a  the first element
+     * @param as the rest of the elements
+     * @return the populated {@link LongHashSet}
+     */
+    public static LongHashSet of(long a, long... as) {
+        LongHashSet set = empty().add(a);
+        for (long next : as) {
+            set = set.add(next);
+        }
+        return set;
+    }
+}
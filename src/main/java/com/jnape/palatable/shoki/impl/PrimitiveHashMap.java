@@ -0,0 +1,189 @@
+package com.jnape.palatable.shoki.impl;
+
+import com.jnape.palatable.lambda.adt.Maybe;
+import com.jnape.palatable.lambda.adt.hlist.Tuple2;
+import com.jnape.palatable.lambda.functions.builtin.fn1.Head;
+import com.jnape.palatable.lambda.semigroup.Semigroup;
+import com.jnape.palatable.shoki.api.Map;
+import com.jnape.palatable.shoki.api.Natural;
+import com.jnape.palatable.shoki.api.SizeInfo.Known;
+
+import java.util.Iterator;
+import java.util.Objects;
+
+import static com.jnape.palatable.lambda.adt.hlist.HList.tuple;
+import static com.jnape.palatable.lambda.functions.builtin.fn2.Into.into;
+import static com.jnape.palatable.lambda.functions.builtin.fn2.Map.map;
+import static com.jnape.palatable.lambda.functions.builtin.fn3.FoldLeft.foldLeft;
+import static com.jnape.palatable.shoki.api.Natural.abs;
+import static com.jnape.palatable.shoki.api.SizeInfo.known;
+import static java.lang.String.format;
+import static java.lang.String.join;
+
+/**
+ * The shared implementation of {@link IntHashMap} and {@link LongHashMap}: a {@link Map} backed by a {@link LongHAMT},
+ * whose boxed keys are unboxed via {@link Number#longValue()} and reboxed via {@link PrimitiveHashMap#box(long)}.
+ *
+ * @param <K> the boxed key type
+ * @param <V> the value type
+ * @param <M> the concrete map type
+ */
+abstract class PrimitiveHashMap<K extends Number, V, M extends PrimitiveHashMap<K, V, M>>
+        implements Map<Natural, K, V> {
+
+    final LongHAMT<V> hamt;
+
+    PrimitiveHashMap(LongHAMT<V> hamt) {
+        this.hamt = hamt;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Amortized <code>O(1)</code>.
+     */
+    @Override
+    public Maybe<V> get(K key) {
+        return hamt.get(key.longValue());
+    }
+
+    /**
+     * {@inheritDoc}
+     * Amortized <code>O(1)</code>.
+     */
+    @Override
+    public M put(K key, V value) {
+        return withHamt(hamt.put(key.longValue(), value));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Amortized <code>O(1)</code>.
+     */
+    @Override
+    public M remove(K key) {
+        return withHamt(hamt.remove(key.longValue()));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Amortized <code>O(1)</code>.
+     */
+    @Override
+    public boolean contains(K key) {
+        return hamt.contains(key.longValue());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <code>O(o)</code>.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public M merge(Map<Natural, K, V> other, Semigroup<V> semigroup) {
+        return (M) Map.super.merge(other, semigroup);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <code>O(n)</code>.
+     */
+    @Override
+    public StrictQueue<V> values() {
+        return foldLeft(StrictQueue::snoc, StrictQueue.empty(), () -> hamt.iterator((k, v) -> v));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <code>O(1)</code>.
+     */
+    @Override
+    public Maybe<Tuple2<K, V>> head() {
+        return Head.head(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <code>O(1)</code>.
+     */
+    @Override
+    public M tail() {
+        return withHamt(hamt.removeFirst());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <code>O(1)</code>.
+     */
+    @Override
+    public boolean isEmpty() {
+        return hamt.size() == 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <code>O(1)</code>.
+     */
+    @Override
+    public Known<Natural> sizeInfo() {
+        return known(abs(hamt.size()));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Iteration walks the underlying trie directly, allocating nothing beyond the yielded {@link Tuple2 entries}.
+     */
+    @Override
+    public Iterator<Tuple2<K, V>> iterator() {
+        return hamt.iterator((k, v) -> tuple(box(k), v));
+    }
+
+    /**
+     * Determine if <code>other</code> is a map of the same class with the same entries as this map, using
+     * {@link Object#equals(Object) Object equality} to determine value equivalence. Because any given set of keys
+     * always produces the same trie shape, the underlying tries are compared node by node, skipping any subtrees the
+     * two maps share by reference. <code>O(n)</code>.
+     *
+     * @param other the {@link Object} to check for equality
+     * @return the equality outcome
+     */
+    @Override
+    public boolean equals(Object other) {
+        return other != null && other.getClass() == getClass()
+                && hamt.sameEntries(((PrimitiveHashMap<?, ?, ?>) other).hamt);
+    }
+
+    /**
+     * The corresponding {@link Object#hashCode() hash code} for this map: the sum over all entries of
+     * <code>31 * {@link Long#hashCode(long) Long.hashCode}(key) + {@link Objects#hashCode(Object)
+     * Objects.hashCode}(value)</code>, maintained incrementally as entries are added and removed. <code>O(1)</code>.
+     *
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+        return hamt.hash();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <code>O(n)</code>.
+     */
+    @Override
+    public String toString() {
+        return getClass().getSimpleName()
+                + "[" + join(", ", map(into((k, v) -> format("(%s=%s)", k, v)), this)) + "]";
+    }
+
+    abstract K box(long key);
+
+    abstract M wrap(LongHAMT<V> hamt);
+
+    Iterator<K> keyIterator() {
+        return hamt.iterator((k, v) -> box(k));
+    }
+
+    @SuppressWarnings("unchecked")
+    final M withHamt(LongHAMT<V> hamt) {
+        return hamt == this.hamt ? (M) this : wrap(hamt);
+    }
+}
@@ -0,0 +1,186 @@
+package com.jnape.palatable.shoki.impl;
+
+import com.jnape.palatable.lambda.adt.Maybe;
+import com.jnape.palatable.lambda.adt.Unit;
+import com.jnape.palatable.lambda.adt.hlist.Tuple2;
+import com.jnape.palatable.shoki.api.Natural;
+import com.jnape.palatable.shoki.api.Set;
+import com.jnape.palatable.shoki.api.SizeInfo.Known;
+
+import java.util.Iterator;
+
+import static com.jnape.palatable.lambda.adt.Unit.UNIT;
+import static com.jnape.palatable.lambda.functions.builtin.fn2.Map.map;
+import static com.jnape.palatable.lambda.functions.builtin.fn3.FoldLeft.foldLeft;
+import static java.lang.String.join;
+
+/**
+ * The shared implementation of {@link IntHashSet} and {@link LongHashSet}: a {@link Set} that stores its elements as
+ * the keys of a {@link PrimitiveHashMap}.
+ *
+ * @param <A> the boxed element type
+ * @param <M> the backing map type
+ * @param <S> the concrete set type
+ */
+abstract class PrimitiveHashSet<A extends Number, M extends PrimitiveHashMap<A, Unit, M>,
+        S extends PrimitiveHashSet<A, M, S>> implements Set<Natural, A> {
+
+    final M map;
+
+    PrimitiveHashSet(M map) {
+        this.map = map;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Amortized <code>O(1)</code>.
+     */
+    @Override
+    public S add(A a) {
+        return withMap(map.put(a, UNIT));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Amortized <code>O(1)</code>.
+     */
+    @Override
+    public S remove(A a) {
+        return withMap(map.remove(a));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Amortized <code>O(1)</code>.
+     */
+    @Override
+    public boolean contains(A a) {
+        return map.contains(a);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <code>O(1)</code>.
+     */
+    @Override
+    public Known<Natural> sizeInfo() {
+        return map.sizeInfo();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <code>O(1)</code>.
+     */
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <code>O(1)</code>.
+     */
+    @Override
+    public Maybe<A> head() {
+        return map.head().fmap(Tuple2::_1);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <code>O(1)</code>.
+     */
+    @Override
+    public S tail() {
+        return withMap(map.tail());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <code>O(n)</code>.
+     */
+    @Override
+    public S intersection(Set<Natural, A> other) {
+        return foldLeft((intersection, a) -> other.contains(a) ? intersection : intersection.remove(a),
+                        self(), this);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <code>O(o)</code>.
+     */
+    @Override
+    public S union(Set<Natural, A> other) {
+        return foldLeft((union, a) -> union.add(a), self(), other);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <code>O(o)</code>.
+     */
+    @Override
+    public S difference(Set<Natural, A> other) {
+        return foldLeft((difference, a) -> difference.remove(a), self(), other);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <code>O(n + o)</code>.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public S symmetricDifference(Set<Natural, A> other) {
+        return (S) Set.super.symmetricDifference(other);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Iteration walks the underlying trie directly.
+     */
+    @Override
+    public Iterator<A> iterator() {
+        return map.keyIterator();
+    }
+
+    /**
+     * Determine if <code>other</code> is a set of the same class with the same elements as this set.
+     * <code>O(n)</code>.
+     *
+     * @param other the {@link Object} to check for equality
+     * @return the equality outcome
+     * @see PrimitiveHashMap#equals(Object)
+     */
+    @Override
+    public boolean equals(Object other) {
+        return other != null && other.getClass() == getClass() && map.equals(((PrimitiveHashSet<?, ?, ?>) other).map);
+    }
+
+    /**
+     * Compute the corresponding {@link Object#hashCode() hash code} for this set. <code>O(1)</code>.
+     *
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+        return map.hashCode();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <code>O(n)</code>.
+     */
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + join(", ", map(Object::toString, this)) + ']';
+    }
+
+    abstract S wrap(M map);
+
+    final S withMap(M map) {
+        return map == this.map ? self() : wrap(map);
+    }
+
+    @SuppressWarnings("unchecked")
+    private S self() {
+        return (S) this;
+    }
+}
@@ -2,10 +2,15 @@ package com.jnape.palatable.shoki.api;
 
 import org.junit.Test;
 
+import java.util.Comparator;
+
+import static com.jnape.palatable.lambda.adt.Maybe.just;
+import static com.jnape.palatable.lambda.adt.Maybe.nothing;
 import static com.jnape.palatable.shoki.api.EquivalenceRelation.equivalent;
 import static com.jnape.palatable.shoki.testsupport.EquivalenceRelationMatcher.equivalentTo;
 import static java.util.Comparator.comparing;
 import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
@@ -52,6 +57,17 @@ public class EquivalenceRelationTest {
         assertThat(1, not(equivalentTo(2, comparablyEquals)));
     }
 
+    @Test
+    public void ordering() {
+        Comparator<Object> byHashCode = comparing(Object::hashCode);
+        assertEquals(just(byHashCode), EquivalenceRelation.comparablyEquals(byHashCode).ordering());
+        assertEquals(nothing(), EquivalenceRelation.objectEquals().ordering());
+        assertEquals(nothing(), EquivalenceRelation.referenceEquals().ordering());
+        assertEquals(nothing(), EquivalenceRelation.<Integer>comparablyEquals()
+                .and(EquivalenceRelation.objectEquals())
+                .ordering());
+    }
+
     @Test
     public void equivalence() {
         assertTrue(equivalent(1, 1, EquivalenceRelation.objectEquals()));
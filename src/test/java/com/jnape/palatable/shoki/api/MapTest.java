@@ -8,6 +8,8 @@ import org.junit.Test;
 import org.junit.experimental.runners.Enclosed;
 import org.junit.runner.RunWith;
 
+import static com.jnape.palatable.lambda.adt.Maybe.just;
+import static com.jnape.palatable.lambda.adt.Maybe.nothing;
 import static com.jnape.palatable.lambda.adt.hlist.HList.tuple;
 import static com.jnape.palatable.shoki.api.EquivalenceRelation.objectEquals;
 import static com.jnape.palatable.shoki.api.Map.EquivalenceRelations.sameEntries;
@@ -40,6 +42,41 @@ public class MapTest {
                        equivalentTo(HashMap.of(tuple("foo", 2), tuple("bar", 2), tuple("baz", 3)), sameEntries));
         }
 
+        @Test
+        public void update() {
+            EquivalenceRelation<Map<Natural, String, Integer>> sameEntries = sameEntries(objectEquals());
+            DefaultMethodsMap<Natural, String, Integer>        map         =
+                    DefaultMethodsMap.delegate(HashMap.of(tuple("foo", 1)));
+
+            assertThat(map.update("foo", current -> current.fmap(x -> x + 1)),
+                       equivalentTo(HashMap.of(tuple("foo", 2)), sameEntries));
+            assertThat(map.update("bar", current -> just(2)),
+                       equivalentTo(HashMap.of(tuple("foo", 1), tuple("bar", 2)), sameEntries));
+            assertThat(map.update("foo", current -> nothing()),
+                       equivalentTo(empty(), sameEntries));
+            assertThat(map.update("bar", current -> nothing()),
+                       equivalentTo(map, sameEntries));
+        }
+
+        @Test
+        public void adjustPutIfAbsentAndComputeIfAbsent() {
+            EquivalenceRelation<Map<Natural, String, Integer>> sameEntries = sameEntries(objectEquals());
+            DefaultMethodsMap<Natural, String, Integer>        map         =
+                    DefaultMethodsMap.delegate(HashMap.of(tuple("foo", 1)));
+
+            assertThat(map.adjust("foo", x -> x + 1), equivalentTo(HashMap.of(tuple("foo", 2)), sameEntries));
+            assertThat(map.adjust("bar", x -> x + 1), equivalentTo(map, sameEntries));
+            assertThat(map.putIfAbsent("foo", 2), equivalentTo(map, sameEntries));
+            assertThat(map.putIfAbsent("bar", 2),
+                       equivalentTo(HashMap.of(tuple("foo", 1), tuple("bar", 2)), sameEntries));
+            assertThat(map.computeIfAbsent("quux", String::length),
+                       equivalentTo(HashMap.of(tuple("foo", 1), tuple("quux", 4)), sameEntries));
+            assertThat(map.computeIfAbsent("foo", k -> {
+                           throw new AssertionError("should not be computed");
+                       }),
+                       equivalentTo(map, sameEntries));
+        }
+
 
         @Test
         public void removeAll() {
@@ -4,12 +4,18 @@ import org.junit.Test;
 
 import java.util.Arrays;
 
+import static com.jnape.palatable.shoki.impl.Arrays.EMPTY_INTS;
+import static com.jnape.palatable.shoki.impl.Arrays.EMPTY_LONGS;
+import static com.jnape.palatable.shoki.impl.Arrays.EMPTY_OBJECTS;
 import static com.jnape.palatable.shoki.impl.Arrays.deleteAt;
+import static com.jnape.palatable.shoki.impl.Arrays.deletePairAt;
 import static com.jnape.palatable.shoki.impl.Arrays.insertAt;
+import static com.jnape.palatable.shoki.impl.Arrays.insertPairAt;
 import static com.jnape.palatable.shoki.impl.Arrays.overrideAt;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 
 public class ArraysTest {
 
@@ -67,4 +73,55 @@ public class ArraysTest {
     public void overrideAtCannotInsert() {
         overrideAt(0, new Object[0], "anything");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void insertPairAtMaintainsDensityGuarantee() {
+        assertArrayEquals(new Object[]{"foo", 1}, insertPairAt(0, new Object[0], "foo", 1));
+        assertArrayEquals(new Object[]{"foo", 1, "bar", 2}, insertPairAt(0, new Object[]{"bar", 2}, "foo", 1));
+        assertArrayEquals(new Object[]{"bar", 2, "foo", 1}, insertPairAt(2, new Object[]{"bar", 2}, "foo", 1));
+        assertArrayEquals(new Object[]{"foo", 1, "bar", 2, "baz"},
+                          insertPairAt(2, new Object[]{"foo", 1, "baz"}, "bar", 2));
+    }
+
+    @Test
+    public void deletePairAtMaintainsDensityGuarantee() {
+        assertArrayEquals(new Object[0], deletePairAt(0, new Object[]{"foo", 1}));
+        assertArrayEquals(new Object[]{"bar", 2}, deletePairAt(0, new Object[]{"foo", 1, "bar", 2}));
+        assertArrayEquals(new Object[]{"foo", 1, "baz"}, deletePairAt(2, new Object[]{"foo", 1, "bar", 2, "baz"}));
+    }
+
+    @Test
+    public void pairOperationsCopy() {
+        Object[] original = new Object[]{"foo", 1};
+        insertPairAt(0, original, "bar", 2);
+        deletePairAt(0, original);
+        assertArrayEquals(new Object[]{"foo", 1}, original);
+    }
+
+    @Test
+    public void intInsertAtAndDeleteAtMaintainDensityGuarantee() {
+        assertArrayEquals(new int[]{1}, insertAt(0, new int[0], 1));
+        assertArrayEquals(new int[]{1, 2, 3}, insertAt(1, new int[]{1, 3}, 2));
+        assertArrayEquals(new int[]{1, 2, 3}, insertAt(2, new int[]{1, 2}, 3));
+        assertArrayEquals(new int[0], deleteAt(0, new int[]{1}));
+        assertArrayEquals(new int[]{1, 3}, deleteAt(1, new int[]{1, 2, 3}));
+        assertArrayEquals(new int[]{1, 2}, deleteAt(2, new int[]{1, 2, 3}));
+    }
+
+    @Test
+    public void longInsertAtAndDeleteAtMaintainDensityGuarantee() {
+        assertArrayEquals(new long[]{1}, insertAt(0, new long[0], 1L));
+        assertArrayEquals(new long[]{1, 2, 3}, insertAt(1, new long[]{1, 3}, 2L));
+        assertArrayEquals(new long[]{1, 2, 3}, insertAt(2, new long[]{1, 2}, 3L));
+        assertArrayEquals(new long[0], deleteAt(0, new long[]{1}));
+        assertArrayEquals(new long[]{1, 3}, deleteAt(1, new long[]{1, 2, 3}));
+        assertArrayEquals(new long[]{1, 2}, deleteAt(2, new long[]{1, 2, 3}));
+    }
+
+    @Test
+    public void deletingLastElementSharesEmptyArray() {
+        assertSame(EMPTY_INTS, deleteAt(0, new int[]{1}));
+        assertSame(EMPTY_LONGS, deleteAt(0, new long[]{1}));
+        assertSame(EMPTY_OBJECTS, deletePairAt(0, new Object[]{"foo", 1}));
+    }
+}
@@ -1,177 +1,259 @@
 package com.jnape.palatable.shoki.impl;
 
 import com.jnape.palatable.lambda.adt.hlist.HList;
+import com.jnape.palatable.lambda.adt.hlist.Tuple2;
+import com.jnape.palatable.shoki.api.EquivalenceRelation;
 import com.jnape.palatable.shoki.impl.HAMT.Collision;
-import com.jnape.palatable.shoki.impl.HAMT.Entry;
+import com.jnape.palatable.shoki.impl.HAMT.Cursor;
+import com.jnape.palatable.shoki.impl.HAMT.FilterTask;
+import com.jnape.palatable.shoki.impl.HAMT.MergeTask;
 import com.jnape.palatable.shoki.impl.HAMT.Node;
+import com.jnape.palatable.shoki.impl.HAMT.Splitter;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.runners.Enclosed;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+
 import static com.jnape.palatable.lambda.adt.Maybe.just;
 import static com.jnape.palatable.lambda.adt.Maybe.nothing;
 import static com.jnape.palatable.lambda.adt.hlist.HList.tuple;
+import static com.jnape.palatable.shoki.api.EquivalenceRelation.comparablyEquals;
 import static com.jnape.palatable.shoki.api.EquivalenceRelation.objectEquals;
 import static com.jnape.palatable.shoki.api.EquivalenceRelation.referenceEquals;
-import static com.jnape.palatable.shoki.api.HashingAlgorithm.objectHashCode;
-import static com.jnape.palatable.shoki.impl.Bitmap32.bitmap32;
-import static com.jnape.palatable.shoki.impl.Bitmap32.empty;
 import static com.jnape.palatable.shoki.impl.HAMT.MAX_LEVEL;
+import static com.jnape.palatable.shoki.impl.HAMT.entryHash;
 import static com.jnape.palatable.shoki.impl.HAMT.Node.rootNode;
+import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static testsupport.matchers.IterableMatcher.isEmpty;
 import static testsupport.matchers.IterableMatcher.iterates;
 
 @RunWith(Enclosed.class)
 public class HAMTTest {
 
-    public static final class EntryTest {
+    public static final class CollisionTest {
 
-        private Entry<String, Integer> entry;
+        private Collision<String, Integer> collision;
 
         @Before
         public void setUp() {
-            entry = new Entry<>("foo", 1);
+            collision = new Collision<>(0, new Object[]{"foo", 1, "bar", 2, "baz", 3});
         }
 
         @Test
-        public void product() {
-            assertEquals(tuple("foo", 1), entry.into(HList::tuple));
+        public void iteratesEntries() {
+            assertThat(collision,
+                       iterates(tuple("foo", 1),
+                                tuple("bar", 2),
+                                tuple("baz", 3)));
         }
 
         @Test
-        public void iteratesKeyValue() {
-            assertThat(entry, iterates(tuple("foo", 1)));
+        public void payload() {
+            assertEquals(3, collision.payloadArity());
+            assertEquals(0, collision.nodeArity());
+            assertEquals("bar", collision.keyAt(1));
+            assertEquals((Integer) 3, collision.valueAt(2));
+            assertEquals(0, collision.hashAt(2));
         }
 
         @Test
         public void get() {
-            assertEquals(just(1), entry.get("foo", Bitmap32.empty(), objectEquals(), -1));
-            assertEquals(nothing(), entry.get("bar", Bitmap32.empty(), objectEquals(), -1));
-            assertEquals(nothing(), entry.get("foo", Bitmap32.empty(), (x, y) -> false, -1));
+            assertEquals(just(1), collision.get("foo", 0, objectEquals(), -1));
+            assertEquals(just(2), collision.get("bar", 0, objectEquals(), -1));
+            assertEquals(just(3), collision.get("baz", 0, objectEquals(), -1));
+            assertEquals(nothing(), collision.get("qux", 0, objectEquals(), -1));
+            assertEquals(nothing(), collision.get("foo", 1, objectEquals(), -1));
+            assertEquals(nothing(), collision.get("foo", 0, (x, y) -> false, -1));
         }
 
         @Test
-        public void remove() {
-            assertEquals(nothing(), entry.remove("foo", Bitmap32.empty(), objectEquals(), -1));
-            assertEquals(just(entry), entry.remove("bar", Bitmap32.empty(), objectEquals(), -1));
-            assertEquals(just(entry), entry.remove("foo", Bitmap32.empty(), (x, y) -> false, -1));
+        public void getOrDefault() {
+            assertEquals((Integer) 2, collision.getOrDefault("bar", -1, 0, objectEquals(), -1));
+            assertEquals((Integer) (-1), collision.getOrDefault("qux", -1, 0, objectEquals(), -1));
+            assertEquals((Integer) (-1), collision.getOrDefault("foo", -1, 1, objectEquals(), -1));
         }
 
         @Test
         public void put() {
-            assertEquals(new Entry<>("foo", 2),
-                         entry.put("foo", 2, bitmap32("foo".hashCode()), objectEquals(), objectHashCode(), 1));
-            assertEquals(new Node<>(empty()
-                                            .populateAtIndex("foo".hashCode() & 31)
-                                            .populateAtIndex("bar".hashCode() & 31),
-                                    new Object[]{new Entry<>("foo", 1), new Entry<>("bar", 2)}),
-                         entry.put("bar", 2, bitmap32("bar".hashCode()), objectEquals(), objectHashCode(), 1));
-            assertEquals(new Node<>(bitmap32(1),
-                                    new Object[]{new Collision<>(bitmap32("foo".hashCode()),
-                                                                 StrictStack.of(new Entry<>("foo", 1),
-                                                                                new Entry<>("bar", 2)))}),
-                         entry.put("bar", 2, empty(), objectEquals(), objectHashCode(), MAX_LEVEL));
+            assertEquals(new Collision<>(0, new Object[]{"foo", -1, "bar", 2, "baz", 3}),
+                         collision.put("foo", -1, 0, objectEquals(), -1, null));
+            assertEquals(new Collision<>(0, new Object[]{"foo", 1, "bar", 2, "baz", 3, "qux", 0}),
+                         collision.put("qux", 0, 0, objectEquals(), -1, null));
+            assertEquals(new Collision<>(0, new Object[]{"foo", 1, "bar", 2, "baz", 3, "foo", 0}),
+                         collision.put("foo", 0, 0, (x, y) -> false, -1, null));
+            assertEquals(new Collision<>(0, new Object[]{"foo", 1, "bar", 2, "baz", 3}), collision);
         }
-    }
 
-    public static final class CollisionTest {
+        @Test
+        public void removeFirst() {
+            assertEquals(new Collision<>(0, new Object[]{"bar", 2, "baz", 3}), collision.removeFirst());
+            assertEquals(new Collision<>(0, new Object[]{"baz", 3}), collision.removeFirst().removeFirst());
+        }
 
-        private Collision<String, Integer> collision;
+        @Test
+        public void mapValuesAndSameKeys() {
+            HAMT<String, String> mapped = collision.mapValues((k, v) -> k + v);
+            assertEquals(new Collision<>(0, new Object[]{"foo", "foo1", "bar", "bar2", "baz", "baz3"}), mapped);
+            assertTrue(collision.sameKeys(mapped, objectEquals()));
+            assertTrue(collision.sameKeys(new Collision<>(0, new Object[]{"baz", 0, "foo", 0, "bar", 0}),
+                                          objectEquals()));
+            assertFalse(collision.sameKeys(collision.removeFirst(), objectEquals()));
+            assertFalse(collision.sameKeys(new Collision<>(1, new Object[]{"foo", 1, "bar", 2, "baz", 3}),
+                                           objectEquals()));
+        }
 
-        @Before
-        public void setUp() {
-            collision = new Collision<>(bitmap32(0), StrictStack.of(new Entry<>("baz", 3),
-                                                                    new Entry<>("bar", 2),
-                                                                    new Entry<>("foo", 1)));
+        @Test
+        public void changed() {
+            assertEquals(new Collision<>(0, new Object[]{"foo", tuple(1, -1)}),
+                         collision.changed(new Collision<>(0, new Object[]{"baz", 3, "foo", -1, "qux", 4}),
+                                           objectEquals(), 1));
+            assertEquals(0, collision.changed(collision, objectEquals(), 1).size());
         }
 
         @Test
-        public void iteratesEntries() {
-            assertThat(collision,
-                       iterates(tuple("foo", 1),
-                                tuple("bar", 2),
-                                tuple("baz", 3)));
+        public void putOfIdenticalValueIsNoOp() {
+            assertSame(collision, collision.put("bar", 2, 0, objectEquals(), -1, null));
+            assertSame(collision, collision.put("baz", -3, 0, (x, y) -> x, objectEquals(), -1, null));
+            assertNotSame(collision, collision.put("bar", 3, 0, objectEquals(), -1, null));
         }
 
         @Test
-        public void get() {
-            assertEquals(just(1), collision.get("foo", bitmap32(0), objectEquals(), -1));
-            assertEquals(just(2), collision.get("bar", bitmap32(0), objectEquals(), -1));
-            assertEquals(just(3), collision.get("baz", bitmap32(0), objectEquals(), -1));
-            assertEquals(nothing(), collision.get("foo", bitmap32(1), objectEquals(), -1));
-            assertEquals(nothing(), collision.get("foo", bitmap32(0), (x, y) -> false, -1));
+        public void remove() {
+            assertEquals(new Collision<>(0, new Object[]{"bar", 2, "baz", 3}),
+                         collision.remove("foo", 0, objectEquals(), 1));
+            assertEquals(new Collision<>(0, new Object[]{"foo", 1, "baz", 3}),
+                         collision.remove("bar", 0, objectEquals(), 1));
+            assertEquals(new Collision<>(0, new Object[]{"foo", 1, "bar", 2}),
+                         collision.remove("baz", 0, objectEquals(), 1));
+
+            assertSame(collision, collision.remove("missing", 0, objectEquals(), 1));
+            assertSame(collision, collision.remove("foo", 0, (x, y) -> false, 1));
+            assertSame(collision, collision.remove("foo", -1, objectEquals(), 1));
+
+            assertEquals(new Collision<>(0, new Object[]{"baz", 3}),
+                         collision
+                                 .remove("foo", 0, objectEquals(), 1)
+                                 .remove("bar", 0, objectEquals(), 1));
         }
 
         @Test
-        public void put() {
-            assertEquals(new Collision<>(bitmap32(0), StrictStack.of(new Entry<>("foo", -1),
-                                                                     new Entry<>("bar", 2),
-                                                                     new Entry<>("baz", 3))),
-                         collision.put("foo", -1, bitmap32(0), objectEquals(), objectHashCode(), -1));
+        public void orderedKeysAreKeptSortedAndBinarySearched() {
+            EquivalenceRelation<String> ordered = comparablyEquals();
+            HAMT<String, Integer> sorted = Collision.of("foo", 1, "bar", 2, 0, ordered)
+                    .put("qux", 4, 0, ordered, -1, null)
+                    .put("baz", 3, 0, ordered, -1, null)
+                    .put("abc", 0, 0, ordered, -1, null);
 
-            assertEquals(new Collision<>(bitmap32(0), StrictStack.of(new Entry<>("qux", 0),
-                                                                     new Entry<>("foo", 1),
-                                                                     new Entry<>("bar", 2),
-                                                                     new Entry<>("baz", 3))),
-                         collision.put("qux", 0, bitmap32(0), objectEquals(), objectHashCode(), -1));
+            assertEquals(new Collision<>(0, new Object[]{"abc", 0, "bar", 2, "baz", 3, "foo", 1, "qux", 4}), sorted);
+            assertEquals(just(0), sorted.get("abc", 0, ordered, -1));
+            assertEquals(just(3), sorted.get("baz", 0, ordered, -1));
+            assertEquals(just(4), sorted.get("qux", 0, ordered, -1));
+            assertEquals(nothing(), sorted.get("zzz", 0, ordered, -1));
+            assertEquals(new Collision<>(0, new Object[]{"abc", 0, "bar", 2, "foo", 1, "qux", 4}),
+                         sorted.remove("baz", 0, ordered, -1));
+            assertEquals(new Collision<>(0, new Object[]{"foo", 1, "bar", 2}),
+                         Collision.of("foo", 1, "bar", 2, 0, objectEquals()));
+        }
 
-            assertEquals(new Collision<>(bitmap32(0), StrictStack.of(new Entry<>("foo", 0),
-                                                                     new Entry<>("foo", 1),
-                                                                     new Entry<>("bar", 2),
-                                                                     new Entry<>("baz", 3))),
-                         collision.put("foo", 0, bitmap32(0), (x, y) -> false, objectHashCode(), -1));
+        @Test
+        public void merge() {
+            assertEquals(new Collision<>(0, new Object[]{"foo", 1, "bar", 22, "baz", 3, "qux", 4}),
+                         collision.merge(new Collision<>(0, new Object[]{"bar", 20, "qux", 4}), Integer::sum,
+                                         objectEquals(), MAX_LEVEL + 1, null));
+            assertEquals(new Collision<>(0, new Object[]{"foo", 1, "bar", 2, "baz", 3}), collision);
         }
 
         @Test
-        public void remove() {
-            assertEquals(just(new Collision<>(bitmap32(0), StrictStack.of(new Entry<>("bar", 2),
-                                                                          new Entry<>("baz", 3)))),
-                         collision.remove("foo", bitmap32(0), objectEquals(), 1));
-            assertEquals(just(new Collision<>(bitmap32(0), StrictStack.of(new Entry<>("foo", 1),
-                                                                          new Entry<>("baz", 3)))),
-                         collision.remove("bar", bitmap32(0), objectEquals(), 1));
-            assertEquals(just(new Collision<>(bitmap32(0), StrictStack.of(new Entry<>("foo", 1),
-                                                                          new Entry<>("bar", 2)))),
-                         collision.remove("baz", bitmap32(0), objectEquals(), 1));
-
-            assertEquals(just(new Collision<>(bitmap32(0), StrictStack.of(new Entry<>("foo", 1),
-                                                                          new Entry<>("bar", 2),
-                                                                          new Entry<>("baz", 3)))),
-                         collision.remove("missing", bitmap32(0), objectEquals(), 1));
-
-            assertEquals(just(new Collision<>(bitmap32(0), StrictStack.of(new Entry<>("foo", 1),
-                                                                          new Entry<>("bar", 2),
-                                                                          new Entry<>("baz", 3)))),
-                         collision.remove("foo", bitmap32(0), (x, y) -> false, 1));
-
-            assertEquals(just(collision), collision.remove("foo", bitmap32(-1), objectEquals(), 1));
-
-            assertEquals(just(new Entry<>("baz", 3)),
-                         collision
-                                 .remove("foo", bitmap32(0), objectEquals(), 1)
-                                 .flatMap(c -> c.remove("bar", bitmap32(0), objectEquals(), 1)));
+        public void contains() {
+            assertTrue(collision.contains("foo", 0, objectEquals(), MAX_LEVEL + 1));
+            assertFalse(collision.contains("qux", 0, objectEquals(), MAX_LEVEL + 1));
+            assertFalse(collision.contains("foo", 1, objectEquals(), MAX_LEVEL + 1));
+        }
 
-            assertEquals(just(new Entry<>("baz", 3)),
-                         collision
-                                 .remove("foo", bitmap32(0), objectEquals(), 1)
-                                 .flatMap(c -> c.remove("bar", bitmap32(0), objectEquals(), 1)));
+        @Test
+        public void intersectAndSubtract() {
+            Collision<String, Object> other = new Collision<>(0, new Object[]{"baz", "x", "qux", "y", "foo", "z"});
+
+            assertEquals(new Collision<>(0, new Object[]{"foo", 1, "baz", 3}),
+                         collision.intersect(other, objectEquals(), MAX_LEVEL + 1));
+            assertEquals(new Collision<>(0, new Object[]{"bar", 2}),
+                         collision.subtract(other, objectEquals(), MAX_LEVEL + 1));
+            assertSame(collision, collision.intersect(collision, objectEquals(), MAX_LEVEL + 1));
+            assertSame(collision, collision.subtract(new Collision<>(0, new Object[]{"qux", 0}),
+                                                     objectEquals(), MAX_LEVEL + 1));
+            assertEquals(0, collision.subtract(collision, objectEquals(), MAX_LEVEL + 1).size());
+        }
+
+        @Test
+        public void tracksSizeAndHash() {
+            assertEquals(3, collision.size());
+            assertEquals(entryHash(0, 1) + entryHash(0, 2) + entryHash(0, 3), collision.hash());
+
+            HAMT<String, Integer> replaced = collision.put("foo", -1, 0, objectEquals(), -1, null);
+            assertEquals(3, replaced.size());
+            assertEquals(entryHash(0, -1) + entryHash(0, 2) + entryHash(0, 3), replaced.hash());
+
+            HAMT<String, Integer> added = collision.put("qux", 0, 0, objectEquals(), -1, null);
+            assertEquals(4, added.size());
+            assertEquals(collision.hash() + entryHash(0, 0), added.hash());
+
+            HAMT<String, Integer> removed = collision.remove("foo", 0, objectEquals(), 1);
+            assertEquals(2, removed.size());
+            assertEquals(entryHash(0, 2) + entryHash(0, 3), removed.hash());
+        }
+
+        @Test
+        public void sameEntries() {
+            assertTrue(collision.sameEntries(collision, objectEquals()));
+            assertTrue(collision.sameEntries(new Collision<>(0, new Object[]{"foo", 1, "baz", 3, "bar", 2}),
+                                             objectEquals()));
+            assertFalse(collision.sameEntries(new Collision<>(1, new Object[]{"foo", 1, "baz", 3, "bar", 2}),
+                                              objectEquals()));
+            assertFalse(collision.sameEntries(new Collision<>(0, new Object[]{"foo", 1, "baz", 3, "bar", 0}),
+                                              objectEquals()));
+            assertFalse(collision.sameEntries(new Collision<>(0, new Object[]{"foo", 1, "baz", 3}),
+                                              objectEquals()));
+            assertFalse(collision.sameEntries(new Collision<>(0, new Object[]{"foo", 1, "baz", 3, "qux", 2}),
+                                              objectEquals()));
+            assertFalse(collision.sameEntries(rootNode(), objectEquals()));
         }
 
         @Test
         public void equalsAndHashCode() {
-            assertEquals(new Collision<>(empty(), StrictStack.empty()), new Collision<>(empty(), StrictStack.empty()));
-            assertNotEquals(new Collision<>(empty(), StrictStack.empty()),
-                            new Collision<>(bitmap32(1), StrictStack.empty()));
-            assertEquals(new Collision<>(empty(), StrictStack.of(new Entry<>("foo", 1))),
-                         new Collision<>(empty(), StrictStack.of(new Entry<>("foo", 1))));
-            assertNotEquals(new Collision<>(empty(), StrictStack.empty()),
-                            new Collision<>(empty(), StrictStack.of(new Entry<>("foo", 1))));
+            assertEquals(new Collision<>(0, new Object[0]), new Collision<>(0, new Object[0]));
+            assertEquals(new Collision<>(0, new Object[]{"foo", 1}).hashCode(),
+                         new Collision<>(0, new Object[]{"foo", 1}).hashCode());
+            assertNotEquals(new Collision<>(0, new Object[0]), new Collision<>(1, new Object[0]));
+            assertEquals(new Collision<>(0, new Object[]{"foo", 1}), new Collision<>(0, new Object[]{"foo", 1}));
+            assertNotEquals(new Collision<>(0, new Object[0]), new Collision<>(0, new Object[]{"foo", 1}));
 
-            assertNotEquals(new Collision<>(empty(), StrictStack.empty()), new Object());
+            assertNotEquals(new Collision<>(0, new Object[0]), new Object());
+        }
+
+        @Test
+        public void update() {
+            Collision<String, Integer> collision = new Collision<>(0, new Object[]{"foo", 1, "bar", 2});
+
+            assertEquals(new Collision<>(0, new Object[]{"foo", 1, "bar", 2, "baz", 3}),
+                         collision.update("baz", 0, __ -> just(3), objectEquals(), MAX_LEVEL + 1, null));
+            assertEquals(new Collision<>(0, new Object[]{"foo", 1, "bar", 20}),
+                         collision.update("bar", 0, v -> v.fmap(x -> x * 10), objectEquals(), MAX_LEVEL + 1, null));
+            assertEquals(new Collision<>(0, new Object[]{"bar", 2}),
+                         collision.update("foo", 0, __ -> nothing(), objectEquals(), MAX_LEVEL + 1, null));
+            assertSame(collision, collision.update("baz", 0, __ -> nothing(), objectEquals(), MAX_LEVEL + 1, null));
         }
     }
 
@@ -183,18 +265,44 @@ public class HAMTTest {
         private static final Integer quux = 0b00_00000_00000_00000_10000_00001_00001;
 
         @Test
-        public void iteratesAllEntries() {
-            assertThat(new Node<>(empty(), new Object[]{
-                               new Entry<>("foo", 1),
-                               new Node<>(empty(), new Object[]{new Entry<>("bar", 2)}),
-                               new Collision<>(empty(), StrictStack.of(new Entry<>("quux", 4),
-                                                                       new Entry<>("baz", 3)))}),
+        public void iteratesInlinedEntriesBeforeSubNodes() {
+            assertThat(new Node<>(0b001, 0b110, new Object[]{
+                               "foo", 1,
+                               new Collision<>(0, new Object[]{"baz", 3, "quux", 4}),
+                               new Node<>(1, 0, new Object[]{"bar", 2}, hashes("bar"))}, hashes("foo")),
                        iterates(tuple("foo", 1),
                                 tuple("bar", 2),
                                 tuple("baz", 3),
                                 tuple("quux", 4)));
         }
 
+        @Test
+        public void payload() {
+            Node<String, Integer> node = new Node<>(0b101, 0b010, new Object[]{
+                    "foo", 1,
+                    "bar", 2,
+                    rootNode()}, hashes("foo", "bar"));
+
+            assertEquals(2, node.payloadArity());
+            assertEquals(1, node.nodeArity());
+            assertEquals("bar", node.keyAt(1));
+            assertEquals((Integer) 1, node.valueAt(0));
+            assertEquals("bar".hashCode(), node.hashAt(1));
+            assertSame(rootNode(), node.nodeAt(0));
+        }
+
+        @Test
+        public void toStringRendersBitmaps() {
+            assertEquals("Node{dataMap=0b00_00000_00000_00000_00000_00000_00001, "
+                                 + "nodeMap=0b00_00000_00000_00000_00000_00000_00010, "
+                                 + "table=[foo, 1, Collision{keyHash=0b00_00000_00000_00000_00000_00000_00001, "
+                                 + "table=[bar, 2]}]}",
+                         new Node<>(1, 2, new Object[]{"foo", 1,
+                                                       new Collision<>(1, new Object[]{"bar", 2})},
+                                    hashes("foo"))
+                                 .toString());
+        }
+
         @Test
         public void rootNodeSingleton() {
             assertSame(rootNode(), rootNode());
@@ -202,113 +310,865 @@ public class HAMTTest {
 
         @Test
         public void get() {
-            Node<Integer, String> node = new Node<Integer, String>(empty(), new Object[0])
-                    .put(foo, "foo", bitmap32(foo), referenceEquals(), objectHashCode(), 1)
-                    .put(bar, "bar", bitmap32(bar), referenceEquals(), objectHashCode(), 1)
-                    .put(baz, "baz", bitmap32(baz), referenceEquals(), objectHashCode(), 1)
-                    .put(quux, "quux", bitmap32(quux), referenceEquals(), objectHashCode(), 1);
+            HAMT<Integer, String> node = new Node<Integer, String>(0, 0, new Object[0], new int[0])
+                    .put(foo, "foo", foo, referenceEquals(), 1, null)
+                    .put(bar, "bar", bar, referenceEquals(), 1, null)
+                    .put(baz, "baz", baz, referenceEquals(), 1, null)
+                    .put(quux, "quux", quux, referenceEquals(), 1, null);
 
-            assertEquals(just("foo"), node.get(foo, bitmap32(foo), referenceEquals(), 1));
-            assertEquals(just("bar"), node.get(bar, bitmap32(bar), referenceEquals(), 1));
-            assertEquals(just("baz"), node.get(baz, bitmap32(baz), referenceEquals(), 1));
-            assertEquals(just("quux"), node.get(quux, bitmap32(quux), referenceEquals(), 1));
+            assertEquals(just("foo"), node.get(foo, foo, referenceEquals(), 1));
+            assertEquals(just("bar"), node.get(bar, bar, referenceEquals(), 1));
+            assertEquals(just("baz"), node.get(baz, baz, referenceEquals(), 1));
+            assertEquals(just("quux"), node.get(quux, quux, referenceEquals(), 1));
 
-            assertEquals(nothing(), node.get(-1, bitmap32(foo), referenceEquals(), 1));
-            assertEquals(nothing(), node.get(foo, bitmap32(-1), referenceEquals(), 1));
+            assertEquals(nothing(), node.get(-1, foo, referenceEquals(), 1));
+            assertEquals(nothing(), node.get(foo, -1, referenceEquals(), 1));
+        }
+
+        @Test
+        public void getOrDefault() {
+            HAMT<Integer, String> node = Node.<Integer, String>rootNode()
+                    .put(foo, "foo", foo, objectEquals(), 1, null)
+                    .put(quux, "quux", quux, objectEquals(), 1, null);
+
+            assertEquals("foo", node.getOrDefault(foo, "none", foo, objectEquals(), 1));
+            assertEquals("quux", node.getOrDefault(quux, "none", quux, objectEquals(), 1));
+            assertEquals("none", node.getOrDefault(bar, "none", bar, objectEquals(), 1));
+            assertEquals("none", node.getOrDefault(foo, "none", -1, objectEquals(), 1));
+            assertNull(node.getOrDefault(-1, null, foo, objectEquals(), 1));
+        }
+
+        @Test
+        public void getComparesHashesBeforeKeys() {
+            HAMT<Integer, String> node = Node.<Integer, String>rootNode()
+                    .put(foo, "foo", foo, objectEquals(), 1, null);
+            assertEquals(nothing(), node.get(foo, 32, (x, y) -> {
+                throw new AssertionError("keys with different hashes should not be compared");
+            }, 1));
         }
 
         @Test
         public void put() {
-            assertEquals(new Node<>(bitmap32(1), new Object[]{new Entry<>(foo, "foo")}),
-                         rootNode().put(foo, "foo", bitmap32(foo), objectEquals(), objectHashCode(), 1));
-            assertEquals(new Node<>(bitmap32(2), new Object[]{new Entry<>(bar, "bar")}),
-                         rootNode().put(bar, "bar", bitmap32(bar), objectEquals(), objectHashCode(), 1));
-            assertEquals(new Node<>(bitmap32(3), new Object[]{new Entry<>(foo, "foo"), new Entry<>(bar, "bar")}),
+            assertEquals(new Node<>(1, 0, new Object[]{foo, "foo"}, hashes(foo)),
+                         rootNode().put(foo, "foo", foo, objectEquals(), 1, null));
+            assertEquals(new Node<>(2, 0, new Object[]{bar, "bar"}, hashes(bar)),
+                         rootNode().put(bar, "bar", bar, objectEquals(), 1, null));
+            assertEquals(new Node<>(3, 0, new Object[]{foo, "foo", bar, "bar"}, hashes(foo, bar)),
                          rootNode()
-                                 .put(foo, "foo", bitmap32(foo), objectEquals(), objectHashCode(), 1)
-                                 .put(bar, "bar", bitmap32(bar), objectEquals(), objectHashCode(), 1));
-
-            assertEquals(new Node<>(bitmap32(3), new Object[]{
-                                 new Entry<>(foo, "foo"),
-                                 new Node<>(bitmap32(3), new Object[]{
-                                         new Entry<>(bar, "bar"),
-                                         new Entry<>(baz, "baz")
-                                 })}),
+                                 .put(foo, "foo", foo, objectEquals(), 1, null)
+                                 .put(bar, "bar", bar, objectEquals(), 1, null));
+            assertEquals(new Node<>(1, 0, new Object[]{foo, "bar"}, hashes(foo)),
+                         rootNode()
+                                 .put(foo, "foo", foo, objectEquals(), 1, null)
+                                 .put(foo, "bar", foo, objectEquals(), 1, null));
+
+            assertEquals(new Node<>(1, 2, new Object[]{
+                                 foo, "foo",
+                                 new Node<>(3, 0, new Object[]{bar, "bar", baz, "baz"}, hashes(bar, baz))},
+                                    hashes(foo)),
                          rootNode()
-                                 .put(foo, "foo", bitmap32(foo), objectEquals(), objectHashCode(), 1)
-                                 .put(bar, "bar", bitmap32(bar), objectEquals(), objectHashCode(), 1)
-                                 .put(baz, "baz", bitmap32(baz), objectEquals(), objectHashCode(), 1));
+                                 .put(foo, "foo", foo, objectEquals(), 1, null)
+                                 .put(bar, "bar", bar, objectEquals(), 1, null)
+                                 .put(baz, "baz", baz, objectEquals(), 1, null));
 
             assertEquals(
-                    new Node<>(bitmap32(3), new Object[]{
-                            new Entry<>(foo, "foo"),
-                            new Node<>(bitmap32(3), new Object[]{
-                                    new Entry<>(bar, "bar"),
-                                    new Node<>(bitmap32(0b00_00000_00000_00010_00000_00000_00000), new Object[]{
-                                            new Node<>(bitmap32(1), new Object[]{
-                                                    new Node<>(bitmap32(1), new Object[]{
-                                                            new Node<>(bitmap32(1), new Object[]{
-                                                                    new Node<>(bitmap32(1), new Object[]{
+                    new Node<>(1, 2, new Object[]{
+                            foo, "foo",
+                            new Node<>(1, 2, new Object[]{
+                                    bar, "bar",
+                                    new Node<>(0, 1 << 16, new Object[]{
+                                            new Node<>(0, 1, new Object[]{
+                                                    new Node<>(0, 1, new Object[]{
+                                                            new Node<>(0, 1, new Object[]{
+                                                                    new Node<>(0, 1, new Object[]{
                                                                             new Collision<>(
-                                                                                    bitmap32(0b10000_00001_00001),
-                                                                                    StrictStack.of(
-                                                                                            new Entry<>(baz, "baz"),
-                                                                                            new Entry<>(quux, "quux")))
-                                                                    })
-                                                            })
-                                                    })
-                                            })
-                                    })
-                            })}),
+                                                                                    0b10000_00001_00001,
+                                                                                    new Object[]{baz, "baz",
+                                                                                                 quux, "quux"})
+                                                                    }, hashes())
+                                                            }, hashes())
+                                                    }, hashes())
+                                            }, hashes())
+                                    }, hashes())
+                            }, hashes(bar))}, hashes(foo)),
                     rootNode()
-                            .put(foo, "foo", bitmap32(foo), referenceEquals(), objectHashCode(), 1)
-                            .put(bar, "bar", bitmap32(bar), referenceEquals(), objectHashCode(), 1)
-                            .put(baz, "baz", bitmap32(baz), referenceEquals(), objectHashCode(), 1)
-                            .put(quux, "quux", bitmap32(quux), referenceEquals(), objectHashCode(), 1));
+                            .put(foo, "foo", foo, referenceEquals(), 1, null)
+                            .put(bar, "bar", bar, referenceEquals(), 1, null)
+                            .put(baz, "baz", baz, referenceEquals(), 1, null)
+                            .put(quux, "quux", quux, referenceEquals(), 1, null));
+        }
+
+        @Test
+        public void putOfIdenticalValueIsNoOp() {
+            HAMT<Integer, String> node = Node.<Integer, String>rootNode()
+                    .put(foo, "foo", foo, objectEquals(), 1, null)
+                    .put(baz, "baz", baz, objectEquals(), 1, null)
+                    .put(quux, "quux", quux, objectEquals(), 1, null);
+
+            assertSame(node, node.put(foo, "foo", foo, objectEquals(), 1, null));
+            assertSame(node, node.put(quux, "quux", quux, objectEquals(), 1, null));
+            assertSame(node, node.put(baz, "qux", baz, (x, y) -> x, objectEquals(), 1, null));
+            assertNotSame(node, node.put(baz, new String("baz"), baz, objectEquals(), 1, null));
+        }
+
+        @Test
+        public void mapValuesPreservesShapeAndKeys() {
+            HAMT<Integer, Integer> trie   = trie(0, 2_000);
+            HAMT<Integer, Integer> mapped = trie.mapValues((k, v) -> -v);
+
+            HAMT<Integer, Integer> expected = rootNode();
+            for (int i = 0; i < 2_000; i++) {
+                expected = expected.put(i, -i, i % 700, objectEquals(), 1, null);
+            }
+            assertEquals(expected, mapped);
+            assertTrue(trie.sameKeys(mapped, objectEquals()));
+            assertFalse(trie.sameKeys(mapped.removeFirst(), objectEquals()));
+            assertSame(rootNode(), Node.<Integer, Integer>rootNode().mapValues((k, v) -> v));
+        }
+
+        @Test
+        public void changedSkipsSharedSubtrees() {
+            HAMT<Integer, Integer> trie  = trie(0, 2_000);
+            HAMT<Integer, Integer> later = trie.put(5, -5, 5, objectEquals(), 1, null)
+                    .put(705, -705, 705 % 700, objectEquals(), 1, null)
+                    .remove(6, 6, objectEquals(), 1)
+                    .put(2_500, 0, 2_500 % 700, objectEquals(), 1, null);
+
+            HAMT<Integer, Tuple2<Integer, Integer>> changed = trie.changed(later, objectEquals(), 1);
+            assertEquals(2, changed.size());
+            assertEquals(just(tuple(5, -5)), changed.get(5, 5, objectEquals(), 1));
+            assertEquals(just(tuple(705, -705)), changed.get(705, 5, objectEquals(), 1));
+            assertSame(rootNode(), trie.changed(trie, objectEquals(), 1));
+        }
+
+        @Test
+        public void removeFirstMatchesRemovingFirstIteratedKey() {
+            assertSame(rootNode(), Node.<Integer, Integer>rootNode().removeFirst());
+
+            HAMT<Integer, Integer> trie = trie(0, 2_000);
+            while (trie.size() > 0) {
+                Integer                first    = trie.iterator().next()._1();
+                HAMT<Integer, Integer> expected = trie.remove(first, first % 700, objectEquals(), 1);
+                trie = trie.removeFirst();
+                assertEquals(expected, trie);
+            }
+        }
+
+        @Test
+        public void putWithOwningEditMutatesInPlace() {
+            Object                edit  = new Object();
+            HAMT<Integer, String> owned = new Node<Integer, String>(0, 0, new Object[0], new int[0], edit)
+                    .put(foo, "foo", foo, objectEquals(), 1, edit);
+
+            assertSame(owned, owned.put(bar, "bar", bar, objectEquals(), 1, edit));
+            assertSame(owned, owned.put(baz, "baz", baz, objectEquals(), 1, edit));
+            assertSame(owned, owned.put(foo, "qux", foo, objectEquals(), 1, edit));
+            assertEquals(rootNode()
+                                 .put(foo, "qux", foo, objectEquals(), 1, null)
+                                 .put(bar, "bar", bar, objectEquals(), 1, null)
+                                 .put(baz, "baz", baz, objectEquals(), 1, null),
+                         owned);
+        }
+
+        @Test
+        public void putWithoutOwningEditCopies() {
+            HAMT<Integer, String> owned = new Node<Integer, String>(0, 0, new Object[0], new int[0], new Object())
+                    .put(foo, "foo", foo, objectEquals(), 1, null);
+
+            HAMT<Integer, String> copy = owned.put(bar, "bar", bar, objectEquals(), 1, new Object());
+            assertNotSame(owned, copy);
+            assertEquals(new Node<>(1, 0, new Object[]{foo, "foo"}, hashes(foo)), owned);
+            assertNotSame(copy, copy.put(baz, "baz", baz, objectEquals(), 1, null));
         }
 
         @Test
         public void remove() {
-            assertEquals(just(Node.<Integer, String>rootNode()),
-                         Node.<Integer, String>rootNode().remove(-1, bitmap32(-1), objectEquals(), -1));
+            assertSame(rootNode(),
+                       Node.<Integer, String>rootNode().remove(-1, -1, objectEquals(), 1));
 
-            assertEquals(just(Node.<Integer, String>rootNode()),
+            assertEquals(rootNode(),
                          Node.<Integer, String>rootNode()
-                                 .put(foo, "foo", bitmap32(foo), objectEquals(), objectHashCode(), 1)
-                                 .remove(foo, bitmap32(foo), objectEquals(), 1));
+                                 .put(foo, "foo", foo, objectEquals(), 1, null)
+                                 .remove(foo, foo, objectEquals(), 1));
 
-            assertEquals(just(Node.<Integer, String>rootNode()
-                                      .put(foo, "foo", bitmap32(foo), objectEquals(), objectHashCode(), 1)),
-                         Node.<Integer, String>rootNode()
-                                 .put(foo, "foo", bitmap32(foo), objectEquals(), objectHashCode(), 1)
-                                 .remove(foo, bitmap32(-1), objectEquals(), 1));
+            HAMT<Integer, String> single = Node.<Integer, String>rootNode()
+                    .put(foo, "foo", foo, objectEquals(), 1, null);
+            assertSame(single, single.remove(foo, -1, objectEquals(), 1));
+            assertSame(single, single.remove(bar, foo, objectEquals(), 1));
 
-            assertEquals(just(Node.<Integer, String>rootNode()
-                                      .put(bar, "bar", bitmap32(bar), objectEquals(), objectHashCode(), 1)),
+            assertEquals(Node.<Integer, String>rootNode()
+                                 .put(bar, "bar", bar, objectEquals(), 1, null),
                          Node.<Integer, String>rootNode()
-                                 .put(foo, "foo", bitmap32(foo), objectEquals(), objectHashCode(), 1)
-                                 .put(bar, "bar", bitmap32(bar), objectEquals(), objectHashCode(), 1)
-                                 .remove(foo, bitmap32(foo), objectEquals(), 1));
-
-            assertEquals(just(new Node<>(bitmap32(2), new Object[]{
-                                 new Node<>(bitmap32(2), new Object[]{
-                                         new Node<>(bitmap32(0b10_00000_00000_00000), new Object[]{
-                                                 new Node<>(bitmap32(1), new Object[]{
-                                                         new Node<>(bitmap32(1), new Object[]{
-                                                                 new Node<>(bitmap32(1), new Object[]{
-                                                                         new Node<>(bitmap32(1), new Object[]{
-                                                                                 new Entry<>(baz, "baz")
-                                                                         })
-                                                                 })
-                                                         })
-                                                 })
-                                         })
-                                 })
-                         })),
+                                 .put(foo, "foo", foo, objectEquals(), 1, null)
+                                 .put(bar, "bar", bar, objectEquals(), 1, null)
+                                 .remove(foo, foo, objectEquals(), 1));
+
+            assertEquals(new Node<>(2, 0, new Object[]{baz, "baz"}, hashes(baz)),
                          Node.<Integer, String>rootNode()
-                                 .put(baz, "baz", bitmap32(baz), referenceEquals(), objectHashCode(), 1)
-                                 .put(quux, "quux", bitmap32(quux), referenceEquals(), objectHashCode(), 1)
-                                 .remove(quux, bitmap32(quux), referenceEquals(), 1));
+                                 .put(baz, "baz", baz, referenceEquals(), 1, null)
+                                 .put(quux, "quux", quux, referenceEquals(), 1, null)
+                                 .remove(quux, quux, referenceEquals(), 1));
+        }
+
+        @Test
+        public void removeCompactsSingleEntrySubtrees() {
+            HAMT<Integer, String> withSubNode = Node.<Integer, String>rootNode()
+                    .put(foo, "foo", foo, objectEquals(), 1, null)
+                    .put(bar, "bar", bar, objectEquals(), 1, null)
+                    .put(baz, "baz", baz, objectEquals(), 1, null);
+
+            assertEquals(new Node<>(3, 0, new Object[]{foo, "foo", baz, "baz"}, hashes(foo, baz)),
+                         withSubNode.remove(bar, bar, objectEquals(), 1));
+        }
+
+        @Test
+        public void mergeCombinesSharedKeysAndAdoptsDisjointSubtrees() {
+            HAMT<Integer, String> left = Node.<Integer, String>rootNode()
+                    .put(0, "a", 0, objectEquals(), 1, null)
+                    .put(1, "b", 1, objectEquals(), 1, null)
+                    .put(33, "c", 33, objectEquals(), 1, null);
+            HAMT<Integer, String> right = Node.<Integer, String>rootNode()
+                    .put(1, "x", 1, objectEquals(), 1, null)
+                    .put(2, "y", 2, objectEquals(), 1, null)
+                    .put(34, "z", 34, objectEquals(), 1, null);
+
+            HAMT<Integer, String> merged = left.merge(right, (x, y) -> x + y, objectEquals(), 1, new Object());
+            assertEquals(Node.<Integer, String>rootNode()
+                                 .put(0, "a", 0, objectEquals(), 1, null)
+                                 .put(1, "bx", 1, objectEquals(), 1, null)
+                                 .put(33, "c", 33, objectEquals(), 1, null)
+                                 .put(2, "y", 2, objectEquals(), 1, null)
+                                 .put(34, "z", 34, objectEquals(), 1, null),
+                         merged);
+            assertSame(right.nodeAt(0), merged.nodeAt(1));
+        }
+
+        @Test
+        public void mergeInlinedEntryIntoSubNode() {
+            HAMT<Integer, String> left = Node.<Integer, String>rootNode()
+                    .put(2, "a", 2, objectEquals(), 1, null);
+            HAMT<Integer, String> right = Node.<Integer, String>rootNode()
+                    .put(2, "x", 2, objectEquals(), 1, null)
+                    .put(34, "y", 34, objectEquals(), 1, null);
+
+            assertEquals(Node.<Integer, String>rootNode()
+                                 .put(2, "ax", 2, objectEquals(), 1, null)
+                                 .put(34, "y", 34, objectEquals(), 1, null),
+                         left.merge(right, (x, y) -> x + y, objectEquals(), 1, new Object()));
+            assertEquals(Node.<Integer, String>rootNode()
+                                 .put(2, "xa", 2, objectEquals(), 1, null)
+                                 .put(34, "y", 34, objectEquals(), 1, null),
+                         right.merge(left, (x, y) -> x + y, objectEquals(), 1, new Object()));
+        }
+
+        @Test
+        public void mergeWithEmptyReturnsOther() {
+            HAMT<Integer, String> node = Node.<Integer, String>rootNode().put(foo, "foo", foo, objectEquals(), 1, null);
+            assertSame(node, node.merge(rootNode(), (x, y) -> x + y, objectEquals(), 1, new Object()));
+            assertSame(node, Node.<Integer, String>rootNode().merge(node, (x, y) -> x + y, objectEquals(), 1,
+                                                                    new Object()));
+        }
+
+        @Test
+        public void contains() {
+            HAMT<Integer, String> node = Node.<Integer, String>rootNode()
+                    .put(foo, "foo", foo, objectEquals(), 1, null)
+                    .put(bar, "bar", bar, objectEquals(), 1, null)
+                    .put(baz, "baz", baz, objectEquals(), 1, null);
+
+            assertTrue(node.contains(foo, foo, objectEquals(), 1));
+            assertTrue(node.contains(baz, baz, objectEquals(), 1));
+            assertFalse(node.contains(quux + 1, quux + 1, objectEquals(), 1));
+            assertFalse(node.contains(foo, 32, objectEquals(), 1));
+        }
+
+        @Test
+        public void intersectKeepsReceiverEntriesAndReusesSubtrees() {
+            HAMT<Integer, String> left = Node.<Integer, String>rootNode()
+                    .put(0, "a", 0, objectEquals(), 1, null)
+                    .put(1, "b", 1, objectEquals(), 1, null)
+                    .put(33, "c", 33, objectEquals(), 1, null)
+                    .put(2, "d", 2, objectEquals(), 1, null);
+            HAMT<Integer, Object> right = Node.<Integer, Object>rootNode()
+                    .put(1, "x", 1, objectEquals(), 1, null)
+                    .put(33, "y", 33, objectEquals(), 1, null)
+                    .put(3, "z", 3, objectEquals(), 1, null);
+
+            HAMT<Integer, String> intersection = left.intersect(right, objectEquals(), 1);
+            assertEquals(Node.<Integer, String>rootNode()
+                                 .put(1, "b", 1, objectEquals(), 1, null)
+                                 .put(33, "c", 33, objectEquals(), 1, null),
+                         intersection);
+            assertSame(left.nodeAt(0), intersection.nodeAt(0));
+            assertSame(left, left.intersect(left, objectEquals(), 1));
+            assertSame(rootNode(), left.intersect(rootNode(), objectEquals(), 1));
+        }
+
+        @Test
+        public void setOperationsReturnReceiverOrShareUntouchedSubtrees() {
+            HAMT<Integer, Integer> trie     = trie(0, 2_000);
+            HAMT<Integer, Integer> superset = trie(0, 3_000);
+            HAMT<Integer, Integer> five     = trie(5, 6);
+
+            assertSame(trie, trie.intersect(superset, objectEquals(), 1));
+            assertSame(trie, trie.subtract(trie(2_000, 3_000), objectEquals(), 1));
+            assertSame(trie, trie.filter((k, v) -> true));
+
+            for (HAMT<Integer, Integer> result : asList(trie.filter((k, v) -> k != 5),
+                                                        trie.subtract(five, objectEquals(), 1))) {
+                assertEquals(1_999, result.size());
+                assertEquals(trie.nodeArity(), result.nodeArity());
+                int shared = 0;
+                for (int i = 0; i < trie.nodeArity(); i++) {
+                    if (trie.nodeAt(i) == result.nodeAt(i))
+                        shared++;
+                }
+                assertEquals(trie.nodeArity() - 1, shared);
+            }
+        }
+
+        @Test
+        public void intersectInlinesSingleEntrySubtrees() {
+            HAMT<Integer, String> subtree = Node.<Integer, String>rootNode()
+                    .put(1, "a", 1, objectEquals(), 1, null)
+                    .put(33, "b", 33, objectEquals(), 1, null)
+                    .put(65, "c", 65, objectEquals(), 1, null);
+            HAMT<Integer, String> inlined = Node.<Integer, String>rootNode()
+                    .put(1, "x", 1, objectEquals(), 1, null)
+                    .put(2, "y", 2, objectEquals(), 1, null);
+
+            assertEquals(Node.<Integer, String>rootNode().put(1, "a", 1, objectEquals(), 1, null),
+                         subtree.intersect(inlined, objectEquals(), 1));
+            assertEquals(Node.<Integer, String>rootNode().put(1, "x", 1, objectEquals(), 1, null),
+                         inlined.intersect(subtree, objectEquals(), 1));
+        }
+
+        @Test
+        public void subtractCompactsAndReusesSubtrees() {
+            HAMT<Integer, String> left = Node.<Integer, String>rootNode()
+                    .put(0, "a", 0, objectEquals(), 1, null)
+                    .put(1, "b", 1, objectEquals(), 1, null)
+                    .put(33, "c", 33, objectEquals(), 1, null)
+                    .put(65, "d", 65, objectEquals(), 1, null)
+                    .put(2, "e", 2, objectEquals(), 1, null);
+            HAMT<Integer, String> right = Node.<Integer, String>rootNode()
+                    .put(33, "x", 33, objectEquals(), 1, null)
+                    .put(65, "y", 65, objectEquals(), 1, null)
+                    .put(2, "z", 2, objectEquals(), 1, null);
+
+            assertEquals(Node.<Integer, String>rootNode()
+                                 .put(0, "a", 0, objectEquals(), 1, null)
+                                 .put(1, "b", 1, objectEquals(), 1, null),
+                         left.subtract(right, objectEquals(), 1));
+            assertEquals(Node.<Integer, String>rootNode()
+                                 .put(0, "a", 0, objectEquals(), 1, null)
+                                 .put(1, "b", 1, objectEquals(), 1, null)
+                                 .put(65, "d", 65, objectEquals(), 1, null)
+                                 .put(2, "e", 2, objectEquals(), 1, null),
+                         left.subtract(Node.<Integer, String>rootNode().put(33, "x", 33, objectEquals(), 1, null),
+                                       objectEquals(), 1));
+
+            HAMT<Integer, String> disjoint = Node.<Integer, String>rootNode().put(3, "x", 3, objectEquals(), 1, null);
+            assertSame(left, left.subtract(disjoint, objectEquals(), 1));
+            assertSame(rootNode(), left.subtract(left, objectEquals(), 1));
+        }
+
+        @Test
+        public void updateMatchesPutAndRemove() {
+            HAMT<Integer, String> node = Node.<Integer, String>rootNode()
+                    .put(foo, "foo", foo, objectEquals(), 1, null)
+                    .put(bar, "bar", bar, objectEquals(), 1, null)
+                    .put(baz, "baz", baz, objectEquals(), 1, null);
+
+            assertEquals(node.put(quux + 32, "quux", quux + 32, objectEquals(), 1, null),
+                         node.update(quux + 32, quux + 32, __ -> just("quux"), objectEquals(), 1, null));
+            assertEquals(node.put(baz, "BAZ", baz, objectEquals(), 1, null),
+                         node.update(baz, baz, v -> v.fmap(String::toUpperCase), objectEquals(), 1, null));
+            assertEquals(node.remove(baz, baz, objectEquals(), 1),
+                         node.update(baz, baz, __ -> nothing(), objectEquals(), 1, null));
+            assertEquals(node.remove(foo, foo, objectEquals(), 1),
+                         node.update(foo, foo, __ -> nothing(), objectEquals(), 1, null));
+            assertSame(node, node.update(quux + 32, quux + 32, __ -> nothing(), objectEquals(), 1, null));
+            assertSame(node, node.update(baz, baz, v -> v, objectEquals(), 1, null));
+        }
+
+        @Test
+        public void bulkLoadMatchesSuccessivePuts() {
+            Object[]               entries   = new Object[2 * 3_000];
+            int[]                  keyHashes = new int[3_000];
+            HAMT<Integer, Integer> expected  = rootNode();
+            for (int i = 0; i < 3_000; i++) {
+                int key = i % 2_500;
+                entries[2 * i] = key;
+                entries[2 * i + 1] = i;
+                keyHashes[i] = key % 700;
+                expected = expected.put(key, i, key % 700, objectEquals(), 1, null);
+            }
+
+            HAMT<Integer, Integer> loaded = Node.bulkLoad(entries, keyHashes, 3_000, objectEquals());
+            assertEquals(expected, loaded);
+            assertEquals(2_500, loaded.size());
+            assertEquals(expected.hash(), loaded.hash());
+        }
+
+        @Test
+        public void bulkLoadInlinesDeduplicatedEntries() {
+            assertEquals(Node.<Integer, String>rootNode()
+                                 .put(foo, "foo", foo, objectEquals(), 1, null)
+                                 .put(bar, "quux", bar, objectEquals(), 1, null),
+                         Node.bulkLoad(new Object[]{foo, "foo", bar, "bar", bar, "baz", bar, "quux"},
+                                       new int[]{foo, bar, bar, bar}, 4, objectEquals()));
+            assertSame(rootNode(), Node.bulkLoad(new Object[0], new int[0], 0, objectEquals()));
+        }
+
+        @Test
+        public void sameEntries() {
+            HAMT<Integer, String> node = Node.<Integer, String>rootNode()
+                    .put(foo, "foo", foo, objectEquals(), 1, null)
+                    .put(bar, "bar", bar, objectEquals(), 1, null)
+                    .put(baz, "baz", baz, objectEquals(), 1, null);
+
+            assertTrue(node.sameEntries(node, objectEquals()));
+            assertTrue(node.sameEntries(Node.<Integer, String>rootNode()
+                                                .put(baz, "baz", baz, objectEquals(), 1, null)
+                                                .put(foo, "foo", foo, objectEquals(), 1, null)
+                                                .put(bar, "bar", bar, objectEquals(), 1, null),
+                                        objectEquals()));
+            assertFalse(node.sameEntries(node.put(baz, "quux", baz, objectEquals(), 1, null),
+                                         objectEquals()));
+            assertFalse(node.sameEntries(node.put(foo, "quux", foo, objectEquals(), 1, null),
+                                         objectEquals()));
+            assertFalse(node.sameEntries(Node.<Integer, String>rootNode()
+                                                 .put(foo, "foo", foo, objectEquals(), 1, null),
+                                         objectEquals()));
+            assertFalse(node.sameEntries(new Collision<>(0, new Object[]{foo, "foo"}),
+                                         objectEquals()));
+        }
+
+        @Test
+        public void keyHashSumTracksEveryUpdate() {
+            Object                 edit       = new Object();
+            HAMT<Integer, Integer> persistent = rootNode();
+            HAMT<Integer, Integer> owned      = rootNode();
+            for (int i = 0; i < 3_000; i++) {
+                int key = i % 2_500;
+                persistent = i % 3 == 2
+                             ? persistent.remove(key / 2, (key / 2) % 700, objectEquals(), 1)
+                             : persistent.put(key, i, key % 700, objectEquals(), 1, null);
+                owned = i % 3 == 2
+                        ? owned.update(key / 2, (key / 2) % 700, __ -> nothing(), objectEquals(), 1, edit)
+                        : owned.put(key, i, key % 700, objectEquals(), 1, edit);
+            }
+            assertEquals(sumOfKeyHashes(persistent), persistent.keyHashSum());
+            assertEquals(sumOfKeyHashes(owned), owned.keyHashSum());
+            assertEquals(persistent.keyHashSum(), owned.keyHashSum());
+
+            HAMT<Integer, Integer> evens = persistent.filter((k, v) -> k % 2 == 0);
+            assertEquals(sumOfKeyHashes(evens), evens.keyHashSum());
+            HAMT<Integer, Integer> odds = persistent.subtract(evens, objectEquals(), 1);
+            assertEquals(sumOfKeyHashes(odds), odds.keyHashSum());
+            HAMT<Integer, Integer> both = odds.merge(evens, (x, __) -> x, objectEquals(), 1, null);
+            assertEquals(persistent.keyHashSum(), both.keyHashSum());
+            assertEquals(evens.keyHashSum(), persistent.intersect(evens, objectEquals(), 1).keyHashSum());
+            assertEquals(persistent.keyHashSum(), persistent.mapValues((k, v) -> -v).keyHashSum());
+            HAMT<Integer, Integer> tail = persistent.removeFirst();
+            assertEquals(sumOfKeyHashes(tail), tail.keyHashSum());
+        }
+
+        private static int sumOfKeyHashes(HAMT<?, ?> node) {
+            int sum = 0;
+            for (int i = 0; i < node.payloadArity(); i++) {
+                sum += node.hashAt(i);
+            }
+            for (int i = 0; i < node.nodeArity(); i++) {
+                sum += sumOfKeyHashes(node.nodeAt(i));
+            }
+            return sum;
+        }
+    }
+
+    public static final class ChainTest {
+
+        private static final int foo = 0b00_00000_00000_00000_00000_00001_00001;
+        private static final int bar = 0b00_00000_00000_00000_00000_00010_00001;
+        private static final int baz = 0b00_00000_00000_00000_00000_00000_00010;
+
+        @Test
+        public void mergeTwoChainsKeysSharingASlot() {
+            HAMT<Integer, String> chain = Node.mergeTwo(foo, "foo", foo, bar, "bar", bar, objectEquals(), 1, null);
+            Node<Integer, String> expanded = new Node<>(0, 0b10, new Object[]{
+                    new Node<>(0b110, 0, new Object[]{foo, "foo", bar, "bar"}, new int[]{foo, bar})},
+                                                        new int[0]);
+
+            assertTrue(chain instanceof HAMT.Chain<?, ?>);
+            assertEquals(expanded, chain);
+            assertEquals(chain, expanded);
+            assertEquals(expanded.hashCode(), chain.hashCode());
+            assertEquals(expanded.hash(), chain.hash());
+            assertEquals(expanded.keyHashSum(), chain.keyHashSum());
+            assertEquals(2, chain.size());
+            assertEquals(0, chain.payloadArity());
+            assertEquals(1, chain.nodeArity());
+            assertThat(chain, iterates(tuple(foo, "foo"), tuple(bar, "bar")));
+        }
+
+        @Test
+        public void lookupsDescendOnlyThroughTheChainedSlot() {
+            HAMT<Integer, String> chain = Node.mergeTwo(foo, "foo", foo, bar, "bar", bar, objectEquals(), 1, null);
+
+            assertEquals(just("foo"), chain.get(foo, foo, objectEquals(), 1));
+            assertEquals("bar", chain.getOrDefault(bar, null, bar, objectEquals(), 1));
+            assertTrue(chain.contains(bar, bar, objectEquals(), 1));
+            assertEquals(nothing(), chain.get(baz, baz, (x, y) -> {
+                throw new AssertionError("keys in other slots should not be compared");
+            }, 1));
+            assertEquals("none", chain.getOrDefault(baz, "none", baz, objectEquals(), 1));
+            assertFalse(chain.contains(baz, baz, objectEquals(), 1));
+        }
+
+        @Test
+        public void updatesWidenOrCollapseTheChain() {
+            HAMT<Integer, String> chain = Node.mergeTwo(foo, "foo", foo, bar, "bar", bar, objectEquals(), 1, null);
+            HAMT<Integer, String> wider = chain.put(baz, "baz", baz, objectEquals(), 1, null);
+
+            assertEquals(new Node<>(0b100, 0b10, new Object[]{
+                                 baz, "baz",
+                                 new Node<>(0b110, 0, new Object[]{foo, "foo", bar, "bar"}, new int[]{foo, bar})},
+                                    new int[]{baz}),
+                         wider);
+            assertEquals(new Node<>(0b10, 0, new Object[]{foo, "foo"}, new int[]{foo}),
+                         chain.remove(bar, bar, objectEquals(), 1));
+            assertEquals(new Node<>(0b10, 0, new Object[]{bar, "bar"}, new int[]{bar}), chain.removeFirst());
+            assertSame(chain, chain.remove(baz, baz, objectEquals(), 1));
+            assertSame(chain, chain.put(foo, "foo", foo, objectEquals(), 1, null));
+            assertSame(chain, chain.update(baz, baz, __ -> nothing(), objectEquals(), 1, null));
+            assertEquals(wider, chain.update(baz, baz, __ -> just("baz"), objectEquals(), 1, null));
+            assertEquals(Node.mergeTwo(foo, "FOO", foo, bar, "bar", bar, objectEquals(), 1, null),
+                         chain.put(foo, "FOO", foo, objectEquals(), 1, null));
+        }
+
+        @Test
+        public void bulkOperationsPreserveOrCollapseTheChain() {
+            HAMT<Integer, String> chain   = Node.mergeTwo(foo, "foo", foo, bar, "bar", bar, objectEquals(), 1, null);
+            HAMT<Integer, String> onlyFoo = Node.<Integer, String>rootNode()
+                    .put(foo, "foo", foo, objectEquals(), 1, null);
+            HAMT<Integer, String> onlyBaz = Node.<Integer, String>rootNode()
+                    .put(baz, "baz", baz, objectEquals(), 1, null);
+            HAMT<Integer, String> onlyBar = Node.<Integer, String>rootNode()
+                    .put(bar, "bar", bar, objectEquals(), 1, null);
+
+            assertSame(chain, chain.filter((k, v) -> true));
+            assertEquals(onlyFoo, chain.filter((k, v) -> k == foo));
+            assertEquals(rootNode(), chain.filter((k, v) -> false));
+            assertThat(chain.mapValues((k, v) -> v.length()), iterates(tuple(foo, 3), tuple(bar, 3)));
+            assertSame(chain, chain.intersect(chain.put(baz, "baz", baz, objectEquals(), 1, null), objectEquals(), 1));
+            assertEquals(onlyFoo, chain.intersect(onlyFoo, objectEquals(), 1));
+            assertEquals(rootNode(), chain.intersect(onlyBaz, objectEquals(), 1));
+            assertSame(chain, chain.subtract(onlyBaz, objectEquals(), 1));
+            assertEquals(onlyFoo, chain.subtract(onlyBar, objectEquals(), 1));
+            assertThat(chain.changed(chain.put(bar, "BAR", bar, objectEquals(), 1, null), objectEquals(), 1),
+                       iterates(tuple(bar, tuple("bar", "BAR"))));
+            assertEquals(chain.put(baz, "baz", baz, objectEquals(), 1, null),
+                         chain.merge(onlyBaz, (x, y) -> x, objectEquals(), 1, null));
+            assertSame(chain, chain.merge(chain, (x, y) -> x, objectEquals(), 1, null));
+        }
+
+        @Test
+        public void comparesEqualToTheEquivalentNode() {
+            HAMT<Integer, String> chain    = Node.mergeTwo(foo, "foo", foo, bar, "bar", bar, objectEquals(), 1, null);
+            HAMT<Integer, String> expanded = Node.asNode(chain);
+
+            assertTrue(chain.sameEntries(expanded, objectEquals()));
+            assertTrue(expanded.sameEntries(chain, objectEquals()));
+            assertTrue(chain.sameKeys(expanded.mapValues((k, v) -> 0), objectEquals()));
+            assertTrue(expanded.sameKeys(chain, objectEquals()));
+            assertFalse(chain.sameEntries(chain.put(foo, "FOO", foo, objectEquals(), 1, null), objectEquals()));
+            assertFalse(chain.sameEntries(chain.put(baz, "baz", baz, objectEquals(), 1, null), objectEquals()));
+        }
+
+        @Test
+        public void matchesNodeBackedTrieUnderRandomUpdates() {
+            java.util.Map<Integer, Integer> expected = new java.util.HashMap<>();
+            HAMT<Integer, Integer>          trie     = rootNode();
+            HAMT<Integer, Integer>          owned    = rootNode();
+            Object                          edit     = new Object();
+            java.util.Random                random   = new java.util.Random(42);
+            for (int i = 0; i < 5_000; i++) {
+                int key     = random.nextInt(400);
+                int keyHash = key << 20;
+                if (random.nextInt(3) == 0) {
+                    expected.remove(key);
+                    trie = trie.remove(key, keyHash, objectEquals(), 1);
+                    owned = owned.update(key, keyHash, __ -> nothing(), objectEquals(), 1, edit);
+                } else {
+                    expected.put(key, i);
+                    trie = trie.put(key, i, keyHash, objectEquals(), 1, null);
+                    owned = owned.put(key, i, keyHash, objectEquals(), 1, edit);
+                }
+            }
+
+            assertEquals(expected.size(), trie.size());
+            assertTrue(trie.sameEntries(owned, objectEquals()));
+            for (java.util.Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+                assertEquals(just(entry.getValue()), trie.get(entry.getKey(), entry.getKey() << 20, objectEquals(), 1));
+            }
+            HAMT<Integer, Integer> evens = trie.filter((k, v) -> k % 2 == 0);
+            HAMT<Integer, Integer> odds  = trie.subtract(evens, objectEquals(), 1);
+            assertEquals(evens.size() + odds.size(), trie.size());
+            assertTrue(trie.sameEntries(odds.merge(evens, (x, y) -> x, objectEquals(), 1, null), objectEquals()));
+            assertTrue(evens.sameEntries(trie.intersect(evens, objectEquals(), 1), objectEquals()));
+        }
+
+        @Test
+        public void staysCanonicalUnderMixedTransientAndPersistentRemovals() {
+            java.util.Map<Integer, Integer> expected = new java.util.TreeMap<>();
+            HAMT<Integer, Integer>          trie     = rootNode();
+            Object                          edit     = new Object();
+            java.util.Random                random   = new java.util.Random(7);
+            for (int i = 0; i < 3_000; i++) {
+                if (i % 16 == 0)
+                    edit = new Object();
+
+                int key = random.nextBoolean() ? random.nextInt(8) << 10 : random.nextInt(64);
+                switch (random.nextInt(5)) {
+                    case 0:
+                        expected.put(key, i);
+                        trie = trie.put(key, i, key, objectEquals(), 1, null);
+                        break;
+                    case 1:
+                        expected.put(key, i);
+                        trie = trie.put(key, i, key, objectEquals(), 1, edit);
+                        break;
+                    case 2:
+                        expected.remove(key);
+                        trie = trie.remove(key, key, objectEquals(), 1);
+                        break;
+                    case 3:
+                        expected.remove(key);
+                        trie = trie.update(key, key, __ -> nothing(), objectEquals(), 1, edit);
+                        break;
+                    default:
+                        if (!expected.isEmpty()) {
+                            HAMT<Integer, Integer> first = Node.leftmostPayload(trie);
+                            expected.remove(first.keyAt(0));
+                        }
+                        trie = trie.removeFirst();
+                }
+
+                HAMT<Integer, Integer> rebuilt = rootNode();
+                for (java.util.Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+                    rebuilt = rebuilt.put(entry.getKey(), entry.getValue(), entry.getKey(), objectEquals(), 1, null);
+                }
+                assertEquals(rebuilt, trie);
+                assertEquals(rebuilt.size(), trie.size());
+                assertEquals(rebuilt.hash(), trie.hash());
+                assertEquals(rebuilt.keyHashSum(), trie.keyHashSum());
+                if (!expected.isEmpty()) {
+                    assertEquals(Node.leftmostPayload(rebuilt).keyAt(0), Node.leftmostPayload(trie).keyAt(0));
+                    assertEquals(rebuilt.removeFirst(), trie.removeFirst());
+                }
+            }
+        }
+    }
+
+    public static final class CursorTest {
+
+        @Test
+        public void walksInlinedEntriesThenSubNodesDepthFirst() {
+            Node<String, Integer> root = new Node<>(0b1001, 0b0010, new Object[]{
+                    "foo", 1,
+                    "qux", 5,
+                    new Node<>(0, 0b11, new Object[]{
+                            new Collision<>(0, new Object[]{"baz", 3, "quux", 4}),
+                            new Node<>(1, 0, new Object[]{"bar", 2}, hashes("bar"))}, hashes())},
+                                                    hashes("foo", "qux"));
+
+            assertThat(() -> new Cursor<>(root, HList::tuple),
+                       iterates(tuple("foo", 1),
+                                tuple("qux", 5),
+                                tuple("bar", 2),
+                                tuple("baz", 3),
+                                tuple("quux", 4)));
+            assertThat(() -> new Cursor<>(root, (k, v) -> k), iterates("foo", "qux", "bar", "baz", "quux"));
+        }
+
+        @Test
+        public void emptyRoot() {
+            assertThat(() -> new Cursor<>(rootNode(), HList::tuple), isEmpty());
+        }
+
+        @Test(expected = NoSuchElementException.class)
+        public void exhaustedCursorThrowsOnNext() {
+            Cursor<String, Integer, String> cursor = new Cursor<>(new Node<>(1, 0, new Object[]{"foo", 1},
+                                                                             hashes("foo")),
+                                                                  (k, v) -> k);
+            assertEquals("foo", cursor.next());
+            cursor.next();
+        }
+    }
+
+    public static final class SplitterTest {
+
+        private static final Node<String, Integer> ROOT = new Node<>(0b1101, 0b0010, new Object[]{
+                "foo", 1,
+                "qux", 5,
+                "zot", 6,
+                new Node<>(1, 2, new Object[]{
+                        "bar", 2,
+                        new Collision<>(0, new Object[]{"baz", 3, "quux", 4})}, hashes("bar"))},
+                                                                     hashes("foo", "qux", "zot"));
+
+        @Test
+        public void traversesAllEntries() {
+            List<Tuple2<String, Integer>> entries = new ArrayList<>();
+            new Splitter<>(ROOT, HList::tuple).forEachRemaining(entries::add);
+            assertEquals(asList(tuple("foo", 1), tuple("qux", 5), tuple("zot", 6), tuple("bar", 2),
+                                tuple("baz", 3), tuple("quux", 4)),
+                         entries);
+        }
+
+        @Test
+        public void sizedSubsizedAndImmutable() {
+            Splitter<String, Integer, String> splitter = new Splitter<>(ROOT, (k, v) -> k);
+            assertTrue(splitter.hasCharacteristics(Spliterator.SIZED));
+            assertTrue(splitter.hasCharacteristics(Spliterator.SUBSIZED));
+            assertTrue(splitter.hasCharacteristics(Spliterator.IMMUTABLE));
+            assertEquals(6, splitter.getExactSizeIfKnown());
+
+            splitter.tryAdvance(k -> {});
+            assertEquals(5, splitter.getExactSizeIfKnown());
+        }
+
+        @Test
+        public void splitsAlongSlotBoundariesWithExactSizes() {
+            Splitter<String, Integer, String> suffix = new Splitter<>(ROOT, (k, v) -> k);
+            Spliterator<String>               prefix = suffix.trySplit();
+
+            for (Spliterator<String> half : asList(prefix, suffix)) {
+                assertTrue(half.hasCharacteristics(Spliterator.SIZED));
+                assertTrue(half.hasCharacteristics(Spliterator.SUBSIZED));
+                assertTrue(half.hasCharacteristics(Spliterator.IMMUTABLE));
+            }
+            assertEquals(3, prefix.getExactSizeIfKnown());
+            assertEquals(3, suffix.getExactSizeIfKnown());
+
+            Spliterator<String> suffixPrefix = suffix.trySplit();
+            assertEquals(1, suffixPrefix.getExactSizeIfKnown());
+            assertEquals(2, suffix.getExactSizeIfKnown());
+
+            List<String> prefixKeys = new ArrayList<>();
+            List<String> suffixKeys = new ArrayList<>();
+            prefix.forEachRemaining(prefixKeys::add);
+            suffixPrefix.forEachRemaining(suffixKeys::add);
+            suffix.forEachRemaining(suffixKeys::add);
+            assertEquals(asList("foo", "qux", "zot"), prefixKeys);
+            assertEquals(asList("bar", "baz", "quux"), suffixKeys);
+        }
+
+        @Test
+        public void splitsOfLargeTrieReportExactSizes() {
+            HAMT<Integer, Integer>     trie      = trie(0, 10_000);
+            List<Spliterator<Integer>> splitters = new ArrayList<>(asList(new Splitter<>(trie, (k, v) -> k)));
+            for (int round = 0; round < 6; round++) {
+                List<Spliterator<Integer>> next = new ArrayList<>();
+                for (Spliterator<Integer> splitter : splitters) {
+                    Spliterator<Integer> prefix = splitter.trySplit();
+                    if (prefix != null)
+                        next.add(prefix);
+                    next.add(splitter);
+                }
+                splitters = next;
+            }
+
+            long total = 0;
+            for (Spliterator<Integer> splitter : splitters) {
+                long   exact = splitter.getExactSizeIfKnown();
+                long[] count = {0};
+                splitter.forEachRemaining(k -> count[0]++);
+                assertEquals(exact, count[0]);
+                total += exact;
+            }
+            assertEquals(10_000, total);
+        }
+
+        @Test
+        public void descendsIntoSoleSubNode() {
+            Splitter<String, Integer, String> suffix = new Splitter<>(
+                    new Node<>(0, 1, new Object[]{
+                            new Node<>(0b11, 0, new Object[]{"foo", 1, "bar", 2}, hashes("foo", "bar"))}, hashes()),
+                    (k, v) -> k);
+            Spliterator<String> prefix = suffix.trySplit();
+
+            List<String> prefixKeys = new ArrayList<>();
+            List<String> suffixKeys = new ArrayList<>();
+            prefix.forEachRemaining(prefixKeys::add);
+            suffix.forEachRemaining(suffixKeys::add);
+            assertEquals(asList("foo"), prefixKeys);
+            assertEquals(asList("bar"), suffixKeys);
+        }
+
+        @Test
+        public void singleEntryDoesNotSplit() {
+            assertNull(new Splitter<>(new Node<>(1, 0, new Object[]{"foo", 1}, hashes("foo")), HList::tuple)
+                               .trySplit());
+            assertNull(new Splitter<>(rootNode(), HList::tuple).trySplit());
+        }
+    }
+
+    public static final class MergeTaskTest {
+
+        @Test
+        public void matchesSequentialMerge() {
+            HAMT<Integer, Integer> left  = trie(0, 2_000);
+            HAMT<Integer, Integer> right = trie(1_500, 3_000);
+
+            HAMT<Integer, Integer> sequential = left.merge(right, Integer::sum, objectEquals(), 1, new Object());
+            assertEquals(sequential, new MergeTask<>(left, right, Integer::sum, objectEquals(), 1, 0).invoke());
+            assertEquals(sequential, new MergeTask<>(left, right, Integer::sum, objectEquals(), 1, 64).invoke());
+            assertEquals(sequential.size(), 3_000);
+        }
+
+        @Test
+        public void emptySideReturnsOther() {
+            HAMT<Integer, Integer> trie = trie(0, 100);
+            assertSame(trie, new MergeTask<>(trie, rootNode(), Integer::sum, objectEquals(), 1, 0).invoke());
+            assertSame(trie, new MergeTask<>(rootNode(), trie, Integer::sum, objectEquals(), 1, 0).invoke());
+        }
+    }
+
+    public static final class FilterTaskTest {
+
+        @Test
+        public void matchesSequentialFilter() {
+            HAMT<Integer, Integer> trie = trie(0, 2_000);
+
+            HAMT<Integer, Integer> sequential = trie.filter((k, v) -> k % 3 == 0);
+            assertEquals(sequential, new FilterTask<>(trie, (Integer k, Integer v) -> k % 3 == 0, 0).invoke());
+            assertEquals(sequential, new FilterTask<>(trie, (Integer k, Integer v) -> k % 3 == 0, 64).invoke());
+            assertEquals(667, sequential.size());
+        }
+
+        @Test
+        public void reusesTrieWhenEverythingIsRetained() {
+            HAMT<Integer, Integer> trie = trie(0, 2_000);
+            assertSame(trie, new FilterTask<>(trie, (Integer k, Integer v) -> true, 0).invoke());
+            assertSame(rootNode(), new FilterTask<>(trie, (Integer k, Integer v) -> false, 0).invoke());
+        }
+    }
+
+    private static HAMT<Integer, Integer> trie(int from, int to) {
+        HAMT<Integer, Integer> trie = rootNode();
+        for (int i = from; i < to; i++) {
+            trie = trie.put(i, i, i % 700, objectEquals(), 1, null);
+        }
+        return trie;
+    }
+
+    private static int[] hashes(Object... keys) {
+        int[] hashes = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            hashes[i] = keys[i].hashCode();
         }
+        return hashes;
     }
-}
\ No newline at end of file
+}
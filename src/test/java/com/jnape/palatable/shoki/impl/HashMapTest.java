@@ -1,15 +1,24 @@
 package com.jnape.palatable.shoki.impl;
 
+import com.jnape.palatable.lambda.adt.hlist.Tuple2;
+import com.jnape.palatable.shoki.api.Collection;
 import com.jnape.palatable.shoki.api.EquivalenceRelation;
 import com.jnape.palatable.shoki.api.HashingAlgorithm;
+import com.jnape.palatable.shoki.api.Natural;
 import com.jnape.palatable.shoki.testsupport.EquivalenceRelationMatcher;
 import com.jnape.palatable.shoki.testsupport.StubbedHashingAlgorithm;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.StreamSupport;
+
 import static com.jnape.palatable.lambda.adt.Maybe.just;
 import static com.jnape.palatable.lambda.adt.Maybe.nothing;
 import static com.jnape.palatable.lambda.adt.hlist.HList.tuple;
+import static com.jnape.palatable.shoki.api.EquivalenceRelation.comparablyEquals;
 import static com.jnape.palatable.shoki.api.EquivalenceRelation.objectEquals;
 import static com.jnape.palatable.shoki.api.EquivalenceRelation.referenceEquals;
 import static com.jnape.palatable.shoki.api.HashingAlgorithm.identityHashCode;
@@ -20,10 +29,14 @@ import static com.jnape.palatable.shoki.api.Natural.zero;
 import static com.jnape.palatable.shoki.api.SizeInfo.known;
 import static com.jnape.palatable.shoki.impl.HashMap.empty;
 import static com.jnape.palatable.shoki.impl.HashMap.of;
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static testsupport.matchers.IterableMatcher.isEmpty;
@@ -47,6 +60,28 @@ public class HashMapTest {
         assertEquals(just(false), populated.get(1));
     }
 
+    @Test
+    public void getOrDefaultAndGetOrNull() {
+        HashMap<String, Integer> map = HashMap.<String, Integer>empty(
+                objectEquals(), StubbedHashingAlgorithm.<String>stubbedHashingAlgorithm()
+                        .stub("a", 0b00_00000_00000_00000_00000_00000_00000)
+                        .stub("b", 0b00_00000_00000_00000_00000_00001_00000)
+                        .stub("c", 0b00_00000_00000_00000_00000_00001_00000)
+                        .stub("d", 0b00_00000_00000_00000_00000_00001_00000))
+                .put("a", 1)
+                .put("b", 2)
+                .put("c", 3);
+
+        assertEquals((Integer) 1, map.getOrDefault("a", -1));
+        assertEquals((Integer) 2, map.getOrDefault("b", -1));
+        assertEquals((Integer) 3, map.getOrNull("c"));
+        assertEquals((Integer) (-1), map.getOrDefault("d", -1));
+        assertNull(map.getOrNull("d"));
+        assertTrue(map.contains("c"));
+        assertFalse(map.contains("d"));
+        assertNull(HashMap.<String, Integer>empty().getOrNull("a"));
+    }
+
     @Test
     public void deepCollisions() {
         int a = 0b00_00000_00000_00000_00000_00000_00000;
@@ -87,6 +122,19 @@ public class HashMapTest {
                 .get(0));
     }
 
+    @Test
+    public void noOpWritesReturnSameMap() {
+        String                   value = "foo";
+        HashMap<Integer, String> map   = HashMap.<Integer, String>empty().put(0, value).put(32, "bar");
+
+        assertSame(map, map.put(0, value));
+        assertSame(map, map.put(32, "bar"));
+        assertSame(map, map.remove(1));
+        assertSame(map, map.remove(64));
+        assertNotSame(map, map.put(0, new String(value)));
+        assertNotSame(map, map.remove(32));
+    }
+
     @Test
     public void immutability() {
         HashMap<Integer, Boolean> empty = empty();
@@ -211,6 +259,63 @@ public class HashMapTest {
         assertEquals(known(zero()), empty().put(1, 1).remove(1).sizeInfo());
     }
 
+    @Test
+    public void sizeInfoIgnoresReplacementsAndAbsentRemovals() {
+        HashMap<String, Integer> collisions = HashMap.<String, Integer>empty(
+                objectEquals(), StubbedHashingAlgorithm.<String>stubbedHashingAlgorithm()
+                        .stub("foo", 0b00_00000_00000_00000_00000_00000_00000)
+                        .stub("bar", 0b00_00000_00000_00000_00000_00000_00000)
+                        .stub("baz", 0b00_00000_00000_00000_00000_00000_00000))
+                .put("foo", 0)
+                .put("bar", 1)
+                .put("foo", 2);
+        assertEquals(known(abs(2)), collisions.sizeInfo());
+        assertEquals(known(abs(2)), collisions.remove("baz").sizeInfo());
+        assertEquals(known(one()), collisions.remove("foo").sizeInfo());
+        assertEquals(known(abs(2)), collisions.asTransient().put("bar", 3).persistent().sizeInfo());
+        assertEquals(known(abs(3)), collisions.asTransient().put("baz", 3).persistent().sizeInfo());
+    }
+
+    @Test
+    public void keysAreHashedOncePerOperationAndComparedByHashFirst() {
+        AtomicInteger hashes      = new AtomicInteger();
+        AtomicInteger comparisons = new AtomicInteger();
+        HashMap<Integer, String> map = HashMap.<Integer, String>empty(
+                (x, y) -> {
+                    comparisons.incrementAndGet();
+                    return x.equals(y);
+                },
+                x -> {
+                    hashes.incrementAndGet();
+                    return x;
+                })
+                .put(0, "foo")
+                .put(32, "bar")
+                .put(1024, "baz");
+        assertEquals(3, hashes.get());
+        assertEquals(0, comparisons.get());
+
+        assertEquals(nothing(), map.get(1 << 15));
+        assertEquals(just("bar"), map.get(32));
+        assertEquals(5, hashes.get());
+        assertEquals(1, comparisons.get());
+    }
+
+    @Test
+    public void orderedKeysKeepFullCollisionsSorted() {
+        HashMap<Integer, String> collisions = HashMap.<Integer, String>empty(comparablyEquals(), x -> 0)
+                .put(3, "c")
+                .put(1, "a")
+                .put(4, "d")
+                .put(2, "b");
+
+        assertThat(collisions, iterates(tuple(1, "a"), tuple(2, "b"), tuple(3, "c"), tuple(4, "d")));
+        assertEquals(just("c"), collisions.get(3));
+        assertEquals(nothing(), collisions.get(5));
+        assertThat(collisions.remove(2).put(0, "z"), iterates(tuple(0, "z"), tuple(1, "a"), tuple(3, "c"),
+                                                              tuple(4, "d")));
+    }
+
     @Test
     public void emptyDetection() {
         assertTrue(empty().isEmpty());
@@ -222,7 +327,7 @@ public class HashMapTest {
     public void toStringIsUseful() {
         assertEquals("HashMap[]", empty().toString());
         assertEquals("HashMap[(key=value)]", empty().put("key", "value").toString());
-        assertEquals("HashMap[(foo=foo value), (baz=baz value), (bar=bar value)]",
+        assertEquals("HashMap[(foo=foo value), (bar=bar value), (baz=baz value)]",
                      empty(objectEquals(),
                            StubbedHashingAlgorithm.<String>stubbedHashingAlgorithm()
                                    .stub("foo", 0b00_00000_00000_00000_00000_00000_00000)
@@ -246,7 +351,43 @@ public class HashMapTest {
                            .put("foo", 1)
                            .put("bar", 2)
                            .put("baz", 3),
-                   iterates(tuple("foo", 1), tuple("baz", 3), tuple("bar", 2)));
+                   iterates(tuple("foo", 1), tuple("bar", 2), tuple("baz", 3)));
+    }
+
+    @Test
+    public void uncons() {
+        assertEquals(nothing(), empty().uncons());
+
+        HashMap<Integer, String>      map     = HashMap.<Integer, String>empty().put(0, "a").put(32, "b").put(1, "c");
+        List<Tuple2<Integer, String>> entries = new ArrayList<>();
+        for (HashMap<Integer, String> rest = map; !rest.isEmpty(); ) {
+            Tuple2<Tuple2<Integer, String>, HashMap<Integer, String>> unconsed =
+                    rest.uncons().orElseThrow(AssertionError::new);
+            assertEquals(rest.head(), just(unconsed._1()));
+            assertEquals(rest.tail(), unconsed._2());
+            entries.add(unconsed._1());
+            rest = unconsed._2();
+        }
+        List<Tuple2<Integer, String>> iterated = new ArrayList<>();
+        map.forEach(iterated::add);
+        assertEquals(iterated, entries);
+    }
+
+    @Test
+    public void tailFollowsIterationOrder() {
+        HashMap<Integer, Integer> map = empty(objectEquals(), i -> i % 700);
+        for (int i = 0; i < 2_000; i++) {
+            map = map.put(i, i);
+        }
+
+        List<Tuple2<Integer, Integer>> expected = new ArrayList<>();
+        map.forEach(expected::add);
+        List<Tuple2<Integer, Integer>> actual = new ArrayList<>();
+        for (HashMap<Integer, Integer> rest = map; !rest.isEmpty(); rest = rest.tail()) {
+            actual.add(rest.head().orElseThrow(AssertionError::new));
+            assertEquals(known(abs(2_000 - actual.size() + 1)), rest.sizeInfo());
+        }
+        assertEquals(expected, actual);
     }
 
     @Test
@@ -290,6 +431,37 @@ public class HashMapTest {
                              .remove(64));
     }
 
+    @Test
+    public void equalsIsIndependentOfInsertionAndRemovalHistory() {
+        StubbedHashingAlgorithm<String> deepPrefixes = StubbedHashingAlgorithm.<String>stubbedHashingAlgorithm()
+                .stub("foo", 0b00_00000_00000_00000_00000_00000_00000)
+                .stub("bar", 0b00_00000_00000_00000_00001_00000_00000)
+                .stub("baz", 0b00_00000_00000_00000_00001_00000_00000)
+                .stub("qux", 0b00_00000_00000_00000_00000_00000_00001);
+        HashMap<String, Integer> empty = HashMap.empty(objectEquals(), deepPrefixes);
+
+        assertEquals(empty.put("foo", 1).put("qux", 4),
+                     empty.put("foo", 1).put("bar", 2).put("baz", 3).put("qux", 4).remove("bar").remove("baz"));
+        assertEquals(empty.put("baz", 3).put("foo", 1).put("bar", 2),
+                     empty.put("foo", 1).put("bar", 2).put("baz", 3));
+        assertNotEquals(empty.put("foo", 1).put("bar", 2).put("baz", 3),
+                        empty.put("foo", 1).put("bar", 2).put("baz", 0));
+        assertNotEquals(empty.put("foo", 1).put("bar", 2),
+                        empty.put("foo", 1).put("baz", 2));
+    }
+
+    @Test
+    public void equalsAcrossVersionsSharingStructure() {
+        HashMap<Integer, Integer> original = HashMap.<Integer, Integer>empty().asTransient()
+                .put(0, 0).put(1, 1).put(32, 32).put(33, 33).put(1024, 1024)
+                .persistent();
+
+        assertEquals(original, original.put(1024, 1024));
+        assertEquals(original.put(64, 64).remove(64), original);
+        assertNotEquals(original.put(32, -32), original);
+        assertNotEquals(original, original.put(32, -32));
+    }
+
     @Test
     public void hashCodeUsesKeyHashingAlgorithmForKeysAndObjectHashForValuesForEqualsSymmetry() {
         assertEquals(empty().hashCode(), empty().hashCode());
@@ -301,6 +473,26 @@ public class HashMapTest {
         assertEquals(empty().put(0, 1).put(32, 2).remove(32).hashCode(), empty().put(0, 1).hashCode());
     }
 
+    @Test
+    public void hashCodeIsMaintainedAcrossReplacementsRemovalsAndCollisions() {
+        HashMap<String, Integer> collisions = HashMap.<String, Integer>empty(
+                objectEquals(), StubbedHashingAlgorithm.<String>stubbedHashingAlgorithm()
+                        .stub("foo", 0b00_00000_00000_00000_00000_00000_00000)
+                        .stub("bar", 0b00_00000_00000_00000_00000_00000_00000)
+                        .stub("baz", 0b00_00000_00000_00000_00000_00001_00000))
+                .put("foo", 0)
+                .put("bar", 1)
+                .put("baz", 2)
+                .put("foo", 3);
+
+        assertEquals(3 + 1 + (31 * 0b100000 + 2), collisions.hashCode());
+        assertEquals(1 + (31 * 0b100000 + 2), collisions.remove("foo").hashCode());
+        assertEquals(collisions.hashCode(), collisions.remove("missing").hashCode());
+        assertEquals(collisions.put("qux", 4).hashCode(),
+                     collisions.asTransient().put("qux", 4).persistent().hashCode());
+        assertEquals(0, collisions.remove("foo").remove("bar").remove("baz").hashCode());
+    }
+
     @SuppressWarnings("UnnecessaryBoxing")
     @Test
     public void keys() {
@@ -320,13 +512,95 @@ public class HashMapTest {
                                          HashSet.EquivalenceRelations.sameElements()));
     }
 
+    @Test
+    public void keysIsAViewOverTheSameTrie() {
+        HashMap<Integer, String> map      = empty();
+        HashSet<Integer>         expected = HashSet.empty();
+        for (int i = 0; i < 100; i++) {
+            map = map.put(i, "value " + i);
+            expected = expected.add(i);
+        }
+
+        HashSet<Integer> keys = map.keys();
+        assertEquals(expected, keys);
+        assertEquals(keys, expected);
+        assertEquals(expected.hashCode(), keys.hashCode());
+        assertEquals(known(abs(100)), keys.sizeInfo());
+        assertTrue(keys.contains(42));
+        assertFalse(keys.contains(100));
+        assertSame(keys, keys.add(42));
+        assertSame(keys, keys.remove(100));
+
+        assertEquals(expected.remove(42), keys.remove(42));
+        assertEquals(expected.remove(42).hashCode(), keys.remove(42).hashCode());
+        assertEquals(expected.add(100), keys.add(100));
+        assertEquals(expected.add(100).hashCode(), keys.add(100).hashCode());
+        assertEquals(HashSet.of(0, 1, 200), keys.intersection(HashSet.of(0, 1)).union(HashSet.of(200)));
+        assertEquals(HashSet.of(98, 99), keys.difference(expected.removeAll(asList(98, 99))));
+        assertEquals(HashSet.of(98, 99, -1), keys.symmetricDifference(expected.removeAll(asList(98, 99)).add(-1)));
+        assertEquals(known(abs(100)), map.sizeInfo());
+        assertEquals(just("value 42"), map.get(42));
+    }
+
+    @Test
+    public void unionWithKeysViewMergesAgainstItsTrie() {
+        HashMap<Integer, String> map      = empty();
+        HashSet<Integer>         expected = HashSet.empty();
+        for (int i = 0; i < 100; i++) {
+            map = map.put(i, "value " + i);
+            expected = expected.add(i);
+        }
+
+        HashSet<Integer> keys  = map.keys();
+        HashSet<Integer> union = keys.union(HashSet.of(-1, 100));
+        assertEquals(just("value 42"), union.underlyingMap().get(42));
+        assertEquals(just("value 42"), HashSet.of(-1, 100).parallelUnion(keys).underlyingMap().get(42));
+        assertEquals(keys, keys.union(HashSet.of(1, 2, 3)));
+        assertEquals(keys.hashCode(), expected.union(keys).hashCode());
+        assertEquals(expected.add(-1).add(100), union);
+        assertEquals(expected.add(-1).add(100).hashCode(), union.hashCode());
+        assertEquals(union, HashSet.of(-1, 100).union(keys));
+        assertEquals(union.hashCode(), HashSet.of(-1, 100).union(keys).hashCode());
+        assertEquals(union, HashSet.of(-1, 100).parallelUnion(keys));
+        assertEquals(union.add(-2), union.add(-2).union(keys));
+        assertEquals(expected.add(-1).add(100).add(-2).hashCode(), union.add(-2).hashCode());
+    }
+
     @Test
     public void values() {
-        assertEquals(StrictQueue.of(1, 2, 3),
-                     of(tuple("foo", 1),
-                        tuple("bar", 2),
-                        tuple("baz", 3))
-                             .values());
+        assertThat(of(tuple("foo", 1),
+                      tuple("bar", 2),
+                      tuple("baz", 3))
+                           .values(),
+                   iterates(1, 2, 3));
+        assertThat(empty().values(), isEmpty());
+    }
+
+    @Test
+    public void valuesIsAViewOverTheSameTrie() {
+        HashMap<Integer, String> map = empty(objectEquals(), i -> i % 700);
+        for (int i = 0; i < 2_000; i++) {
+            map = map.put(i, "value " + i);
+        }
+
+        Collection<Natural, String> values = map.values();
+        assertEquals(known(abs(2_000)), values.sizeInfo());
+        assertEquals(map.head().fmap(Tuple2::_2), values.head());
+        assertEquals(known(abs(1_999)), values.tail().sizeInfo());
+
+        List<String> expected = new ArrayList<>();
+        map.forEach(kv -> expected.add(kv._2()));
+        List<String> iterated = new ArrayList<>();
+        values.forEach(iterated::add);
+        assertEquals(expected, iterated);
+        assertEquals(expected, StreamSupport.stream(values.spliterator(), true).collect(toList()));
+
+        List<String> consumed = new ArrayList<>();
+        for (Collection<Natural, String> rest = values; !rest.isEmpty(); rest = rest.tail()) {
+            consumed.add(rest.head().orElseThrow(AssertionError::new));
+        }
+        assertEquals(expected, consumed);
+        assertEquals("Values[a, b]", HashMap.<Integer, String>empty().put(0, "a").put(1, "b").values().toString());
     }
 
     @Test
@@ -359,4 +633,438 @@ public class HashMapTest {
         assertEquals(nothing(), doubleCollision.remove("foo").get("foo"));
         assertEquals(known(abs(2)), doubleCollision.sizeInfo());
     }
+
+    @Test
+    public void transientBuildsEquivalentMap() {
+        HashMap<Integer, String> persistent = HashMap.<Integer, String>empty()
+                .put(0, "a")
+                .put(32, "b")
+                .put(1, "c")
+                .put(0, "d");
+        HashMap<Integer, String> built = HashMap.<Integer, String>empty().asTransient()
+                .put(0, "a")
+                .put(32, "b")
+                .put(1, "c")
+                .put(0, "d")
+                .persistent();
+
+        assertEquals(persistent, built);
+        assertThat(built, iterates(tuple(1, "c"), tuple(0, "d"), tuple(32, "b")));
+    }
+
+    @Test
+    public void update() {
+        HashMap<Integer, String> map = HashMap.<Integer, String>empty().put(0, "a").put(32, "b");
+
+        assertEquals(HashMap.<Integer, String>empty().put(0, "a").put(32, "b").put(64, "c"),
+                     map.update(64, current -> just(current.orElse("c"))));
+        assertEquals(HashMap.<Integer, String>empty().put(0, "a").put(32, "bb"),
+                     map.update(32, current -> current.fmap(b -> b + b)));
+        assertEquals(HashMap.<Integer, String>empty().put(0, "a"),
+                     map.update(32, current -> nothing()));
+        assertSame(map, map.update(64, current -> nothing()));
+        assertSame(map, map.update(0, current -> current));
+    }
+
+    @Test
+    public void updateMatchesGetThenPutOrRemoveForFullCollisions() {
+        StubbedHashingAlgorithm<String> colliding = StubbedHashingAlgorithm.<String>stubbedHashingAlgorithm()
+                .stub("foo", 0)
+                .stub("bar", 0)
+                .stub("baz", 0);
+        HashMap<String, Integer> map = HashMap.of(objectEquals(), colliding, tuple("foo", 1), tuple("bar", 2));
+
+        assertEquals(HashMap.of(objectEquals(), colliding, tuple("foo", 1), tuple("bar", 2), tuple("baz", 3)),
+                     map.update("baz", current -> just(3)));
+        assertEquals(HashMap.of(objectEquals(), colliding, tuple("foo", 1), tuple("bar", 20)),
+                     map.update("bar", current -> current.fmap(x -> x * 10)));
+        assertEquals(HashMap.of(objectEquals(), colliding, tuple("foo", 1)),
+                     map.update("bar", current -> nothing()));
+        assertSame(map, map.update("baz", current -> nothing()));
+    }
+
+    @Test
+    public void updateHashesKeyOnce() {
+        AtomicInteger            hashes = new AtomicInteger();
+        HashMap<Integer, String> map    = HashMap.<Integer, String>empty(objectEquals(), x -> {
+            hashes.incrementAndGet();
+            return x;
+        }).put(0, "a").put(32, "b");
+        hashes.set(0);
+
+        map.update(32, current -> current.fmap(String::toUpperCase));
+        map.adjust(0, String::toUpperCase);
+        map.putIfAbsent(64, "c");
+        map.computeIfAbsent(96, String::valueOf);
+        assertEquals(4, hashes.get());
+    }
+
+    @Test
+    public void adjust() {
+        HashMap<String, Integer> map = HashMap.of(tuple("foo", 1));
+        assertEquals(HashMap.of(tuple("foo", 2)), map.adjust("foo", x -> x + 1));
+        assertSame(map, map.adjust("bar", x -> x + 1));
+    }
+
+    @Test
+    public void putIfAbsent() {
+        HashMap<String, Integer> map = HashMap.of(tuple("foo", 1));
+        assertEquals(HashMap.of(tuple("foo", 1), tuple("bar", 2)), map.putIfAbsent("bar", 2));
+        assertSame(map, map.putIfAbsent("foo", 2));
+    }
+
+    @Test
+    public void computeIfAbsent() {
+        HashMap<String, Integer> map = HashMap.of(tuple("foo", 1));
+        assertEquals(HashMap.of(tuple("foo", 1), tuple("quux", 4)), map.computeIfAbsent("quux", String::length));
+        assertSame(map, map.computeIfAbsent("foo", k -> {
+            throw new AssertionError("should not be computed");
+        }));
+    }
+
+    @Test
+    public void transientUpdate() {
+        HashMap<Integer, String> built = HashMap.<Integer, String>empty().asTransient()
+                .update(0, current -> just("a"))
+                .update(32, current -> just("b"))
+                .update(0, current -> current.fmap(a -> a + "!"))
+                .update(64, current -> just("c"))
+                .update(32, current -> nothing())
+                .persistent();
+
+        assertEquals(HashMap.<Integer, String>empty().put(0, "a!").put(64, "c"), built);
+        assertEquals(known(abs(2)), built.sizeInfo());
+    }
+
+    @Test
+    public void transientRemove() {
+        HashMap<Integer, String> built = HashMap.<Integer, String>empty().put(0, "a").put(32, "b").put(1, "c")
+                .asTransient()
+                .remove(32)
+                .remove(2)
+                .put(64, "d")
+                .remove(0)
+                .persistent();
+
+        assertEquals(HashMap.<Integer, String>empty().put(1, "c").put(64, "d"), built);
+        assertEquals(known(abs(2)), built.sizeInfo());
+    }
+
+    @Test
+    public void removalsThroughChainedSlotsKeepTheTrieCanonical() {
+        HashMap<Integer, String> removed = HashMap.<Integer, String>empty(objectEquals(), objectHashCode())
+                .asTransient()
+                .put(0, "a")
+                .put(1 << 10, "b")
+                .remove(0)
+                .persistent();
+        assertEquals(HashMap.<Integer, String>empty().put(1 << 10, "b"), removed);
+        assertEquals(HashMap.<Integer, String>empty().put(1 << 10, "b").hashCode(), removed.hashCode());
+        assertEquals(just(tuple(1 << 10, "b")), removed.head());
+
+        HashMap<Integer, String> emptied = HashMap.<Integer, String>empty().asTransient()
+                .put(0, "a")
+                .put(1 << 10, "b")
+                .remove(0)
+                .remove(1 << 10)
+                .persistent();
+        assertEquals(HashMap.empty(), emptied);
+        assertTrue(emptied.isEmpty());
+
+        HashMap<Integer, String> map = HashMap.<Integer, String>empty()
+                .putAll(asList(tuple(0, "a"), tuple(1 << 10, "b"), tuple(2 << 10, "c"), tuple(1, "d"),
+                               tuple(33, "e")));
+        HashMap<Integer, String> remaining = map.removeAll(HashSet.of(objectEquals(), objectHashCode(),
+                                                                      0, 1 << 10, 2 << 10));
+        assertEquals(HashMap.<Integer, String>empty().put(1, "d").put(33, "e"), remaining);
+        assertTrue(remaining.head().match(__ -> false, e -> e._1() == 1 || e._1() == 33));
+        assertEquals(known(one()), remaining.tail().sizeInfo());
+        assertEquals(known(zero()), remaining.tail().tail().sizeInfo());
+    }
+
+    @Test
+    public void putAll() {
+        HashMap<Integer, String> map = HashMap.<Integer, String>empty().put(0, "a").put(1, "b");
+
+        assertSame(map, map.putAll(asList()));
+        assertEquals(HashMap.<Integer, String>empty().put(0, "z").put(1, "b").put(32, "y"),
+                     map.putAll(asList(tuple(0, "x"), tuple(32, "y"), tuple(0, "z"))));
+        assertEquals(HashMap.<Integer, String>empty().put(0, "a").put(1, "c").put(2, "d"),
+                     map.putAll(HashMap.<Integer, String>empty().put(1, "c").put(2, "d")));
+        assertEquals(HashMap.<Integer, String>empty().put(0, "a").put(1, "b"), map);
+    }
+
+    @Test
+    public void putAllAndMergeOfEntriesAlreadyInSubNodesReturnTheSameInstance() {
+        HashMap<Integer, String> map = HashMap.<Integer, String>empty()
+                .put(0, "a").put(32, "b").put(64, "c").put(1, "d").put(1 << 10, "e");
+
+        assertSame(map, map.putAll(HashMap.<Integer, String>empty().put(32, "b").put(1 << 10, "e")));
+        assertSame(map, map.putAll(map));
+        assertSame(map, map.merge(HashMap.<Integer, String>empty().put(64, "x").put(1, "y"), (x, y) -> x));
+    }
+
+    @Test
+    public void removeAll() {
+        HashMap<Integer, String> map = HashMap.<Integer, String>empty().put(0, "a").put(1, "b").put(32, "c");
+
+        assertSame(map, map.removeAll(HashSet.of(2, 3)));
+        assertEquals(HashMap.<Integer, String>empty().put(1, "b"), map.removeAll(HashSet.of(0, 32, 64)));
+        assertEquals(HashMap.<Integer, String>empty().put(0, "a"),
+                     map.removeAll(HashSet.of(referenceEquals(), identityHashCode(), 1, 32)));
+        assertEquals(HashMap.<Integer, String>empty().put(0, "a").put(1, "b").put(32, "c"), map);
+    }
+
+    @Test
+    public void mapValues() {
+        HashMap<Integer, String> map = HashMap.<Integer, String>empty().put(0, "a").put(1, "b").put(32, "c");
+
+        assertEquals(HashMap.<Integer, Integer>empty().put(0, 97).put(1, 98).put(32, 99),
+                     map.mapValues(s -> (int) s.charAt(0)));
+        assertEquals(HashMap.<Integer, Integer>empty(), HashMap.<Integer, String>empty().mapValues(String::length));
+
+        HashMap<Integer, String> large = HashMap.empty();
+        for (int i = 0; i < 1_000; i++) {
+            large = large.put(i, String.valueOf(i));
+        }
+        HashMap<Integer, Integer> parsed = large.mapValues(Integer::parseInt);
+        assertTrue(parsed.sameKeys(large));
+        parsed.forEach(kv -> assertEquals(kv._1(), kv._2()));
+    }
+
+    @Test
+    public void filter() {
+        HashMap<Integer, String> map = HashMap.<Integer, String>empty().put(0, "a").put(1, "b").put(32, "c");
+
+        assertSame(map, map.filter((k, v) -> true));
+        assertEquals(HashMap.<Integer, String>empty().put(0, "a").put(32, "c"), map.filter((k, v) -> !v.equals("b")));
+        assertEquals(HashMap.<Integer, String>empty(), map.filter((k, v) -> false));
+        assertSame(map, map.filterKeys(k -> k < 64));
+        assertEquals(HashMap.<Integer, String>empty().put(1, "b"), map.filterKeys(k -> k % 2 == 1));
+    }
+
+    @Test
+    public void diff() {
+        HashMap<Integer, String> older = HashMap.empty();
+        for (int i = 0; i < 1_000; i++) {
+            older = older.put(i, String.valueOf(i));
+        }
+        HashMap<Integer, String> newer = older.put(1, "one").put(1_000, "1000").remove(2).put(3, "3");
+
+        assertEquals(tuple(HashMap.<Integer, String>empty().put(1_000, "1000"),
+                           HashMap.<Integer, String>empty().put(2, "2"),
+                           HashMap.<Integer, Tuple2<String, String>>empty().put(1, tuple("1", "one"))),
+                     older.diff(newer));
+        assertEquals(tuple(HashMap.<Integer, String>empty().put(2, "2"),
+                           HashMap.<Integer, String>empty().put(1_000, "1000"),
+                           HashMap.<Integer, Tuple2<String, String>>empty().put(1, tuple("one", "1"))),
+                     newer.diff(older));
+        assertEquals(tuple(HashMap.empty(), HashMap.empty(), HashMap.empty()), older.diff(older));
+    }
+
+    @Test
+    public void diffAcrossAlgebras() {
+        HashMap<Integer, String> older = HashMap.<Integer, String>empty().put(0, "a").put(1, "b").put(2, "c");
+        HashMap<Integer, String> newer = HashMap.<Integer, String>empty(objectEquals(), identityHashCode())
+                .put(1, "b").put(2, "z").put(3, "d");
+
+        assertEquals(tuple(HashMap.<Integer, String>empty().put(3, "d"),
+                           HashMap.<Integer, String>empty().put(0, "a"),
+                           HashMap.<Integer, Tuple2<String, String>>empty().put(2, tuple("c", "z"))),
+                     older.diff(newer));
+    }
+
+    @Test
+    public void batchedWritesMatchSuccessiveWrites() {
+        List<Tuple2<Integer, Integer>> entries = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            entries.add(tuple(i * 31, i));
+        }
+        HashMap<Integer, Integer> base = HashMap.<Integer, Integer>empty().putAll(entries.subList(0, 5_000));
+
+        HashMap<Integer, Integer> successive = base;
+        for (Tuple2<Integer, Integer> entry : entries) {
+            successive = successive.put(entry._1(), -entry._2());
+        }
+        List<Tuple2<Integer, Integer>> negated = new ArrayList<>();
+        entries.forEach(entry -> negated.add(tuple(entry._1(), -entry._2())));
+        HashMap<Integer, Integer> batched = base.putAll(negated);
+
+        assertEquals(successive, batched);
+        assertEquals(known(abs(10_000)), batched.sizeInfo());
+        assertEquals(known(abs(5_000)), base.sizeInfo());
+
+        HashSet<Integer> evens = HashSet.empty(referenceEquals(), identityHashCode());
+        for (int i = 0; i < 10_000; i += 2) {
+            evens = evens.add(i * 31);
+        }
+        HashMap<Integer, Integer> remaining = batched.removeAll(evens);
+        assertEquals(known(abs(5_000)), remaining.sizeInfo());
+        for (Tuple2<Integer, Integer> entry : entries) {
+            assertEquals(entry._2() % 2 == 0 ? nothing() : just(-entry._2()), remaining.get(entry._1()));
+        }
+        assertEquals(known(abs(10_000)), batched.sizeInfo());
+    }
+
+    @Test
+    public void transientGet() {
+        HashMap.Transient<String, Integer> t = HashMap.<String, Integer>empty().asTransient().put("foo", 1);
+        assertEquals(just(1), t.get("foo"));
+        assertEquals(nothing(), t.get("bar"));
+    }
+
+    @Test
+    public void transientDoesNotAffectSourceMap() {
+        HashMap<Integer, String> source = HashMap.<Integer, String>empty().put(0, "a").put(32, "b");
+        HashMap<Integer, String> built  = source.asTransient().put(64, "c").put(0, "z").persistent();
+
+        assertEquals(HashMap.<Integer, String>empty().put(0, "a").put(32, "b"), source);
+        assertEquals(HashMap.<Integer, String>empty().put(0, "z").put(32, "b").put(64, "c"), built);
+    }
+
+    @Test
+    public void writesAfterPersistentDoNotAffectPreviouslyProducedMaps() {
+        HashMap.Transient<Integer, String> t      = HashMap.<Integer, String>empty().asTransient().put(0, "a");
+        HashMap<Integer, String>           first  = t.persistent();
+        HashMap<Integer, String>           second = t.put(32, "b").put(0, "z").persistent();
+
+        assertEquals(HashMap.<Integer, String>empty().put(0, "a"), first);
+        assertEquals(HashMap.<Integer, String>empty().put(0, "z").put(32, "b"), second);
+    }
+
+    @Test
+    public void parallelStreamOverSpliterator() {
+        HashMap.Transient<Integer, Integer> t = HashMap.<Integer, Integer>empty().asTransient();
+        for (int i = 0; i < 10_000; i++) {
+            t.put(i, i * 2);
+        }
+        HashMap<Integer, Integer> map = t.persistent();
+
+        assertEquals(10_000L, map.spliterator().getExactSizeIfKnown());
+        assertEquals(10_000L, StreamSupport.stream(map.spliterator(), true).count());
+        assertEquals(2 * (9_999L * 10_000L / 2),
+                     StreamSupport.stream(map.spliterator(), true).mapToLong(Tuple2::_2).sum());
+    }
+
+    @Test
+    public void mergeCombinesSharedKeysAndAdoptsTheRest() {
+        HashMap<Integer, String> left   = HashMap.<Integer, String>empty().put(0, "a").put(1, "b").put(33, "c");
+        HashMap<Integer, String> right  = HashMap.<Integer, String>empty().put(1, "x").put(2, "y").put(34, "z");
+        HashMap<Integer, String> merged = left.merge(right, (x, y) -> x + y);
+
+        HashMap<Integer, String> expected = HashMap.<Integer, String>empty()
+                .put(0, "a").put(1, "bx").put(33, "c").put(2, "y").put(34, "z");
+        assertEquals(expected, merged);
+        assertEquals(expected.hashCode(), merged.hashCode());
+        assertEquals(known(abs(5)), merged.sizeInfo());
+        assertEquals(HashMap.<Integer, String>empty().put(0, "a").put(1, "b").put(33, "c"), left);
+        assertEquals(HashMap.<Integer, String>empty().put(1, "x").put(2, "y").put(34, "z"), right);
+    }
+
+    @Test
+    public void mergeMatchesEntryWiseMerge() {
+        HashMap.Transient<Integer, Integer> left     = HashMap.<Integer, Integer>empty().asTransient();
+        HashMap.Transient<Integer, Integer> right    = HashMap.<Integer, Integer>empty().asTransient();
+        HashMap.Transient<Integer, Integer> expected = HashMap.<Integer, Integer>empty().asTransient();
+        for (int i = 0; i < 2_000; i++) {
+            left.put(i, i);
+            right.put(i + 1_500, i);
+            expected.put(i, i < 1_500 ? i : 2 * i - 1_500);
+            expected.put(i + 1_500, i);
+        }
+
+        HashMap<Integer, Integer> merged = left.persistent().merge(right.persistent(), Integer::sum);
+        assertEquals(expected.persistent(), merged);
+        assertEquals(known(abs(3_500)), merged.sizeInfo());
+    }
+
+    @Test
+    public void mergeCombinesFullCollisions() {
+        StubbedHashingAlgorithm<String> colliding = StubbedHashingAlgorithm.<String>stubbedHashingAlgorithm()
+                .stub("foo", 0)
+                .stub("bar", 0)
+                .stub("baz", 0);
+        HashMap<String, Integer> left  = HashMap.of(objectEquals(), colliding, tuple("foo", 1), tuple("bar", 2));
+        HashMap<String, Integer> right = HashMap.of(objectEquals(), colliding, tuple("bar", 20), tuple("baz", 3));
+
+        assertEquals(HashMap.of(objectEquals(), colliding, tuple("foo", 1), tuple("bar", 22), tuple("baz", 3)),
+                     left.merge(right, Integer::sum));
+        assertEquals(HashMap.of(objectEquals(), colliding, tuple("foo", 1), tuple("bar", 2), tuple("baz", 3)),
+                     left.merge(HashMap.of(objectEquals(), colliding, tuple("baz", 3)), Integer::sum));
+    }
+
+    @Test
+    public void mergeAcrossDifferentAlgebrasFallsBackToEntryWiseMerge() {
+        HashMap<String, Integer> left  = HashMap.of(tuple("foo", 1), tuple("bar", 2));
+        HashMap<String, Integer> right = HashMap.of(referenceEquals(), identityHashCode(),
+                                                    tuple("bar", 20), tuple("baz", 3));
+
+        assertEquals(HashMap.of(tuple("foo", 1), tuple("bar", 22), tuple("baz", 3)),
+                     left.merge(right, Integer::sum));
+    }
+
+    @Test
+    public void mergeWithEmpty() {
+        HashMap<String, Integer> map = HashMap.of(tuple("foo", 1));
+        assertEquals(map, map.merge(HashMap.empty(), Integer::sum));
+        assertEquals(map, HashMap.<String, Integer>empty().merge(map, Integer::sum));
+    }
+
+    @Test
+    public void parallelMergeMatchesMerge() {
+        HashMap.Transient<Integer, Integer> left  = HashMap.<Integer, Integer>empty().asTransient();
+        HashMap.Transient<Integer, Integer> right = HashMap.<Integer, Integer>empty().asTransient();
+        for (int i = 0; i < 20_000; i++) {
+            left.put(i, i);
+            right.put(i + 15_000, i);
+        }
+
+        HashMap<Integer, Integer> merged = left.persistent().parallelMerge(right.persistent(), Integer::sum);
+        assertEquals(left.persistent().merge(right.persistent(), Integer::sum), merged);
+        assertEquals(known(abs(35_000)), merged.sizeInfo());
+        assertEquals(HashMap.of(tuple("foo", 1), tuple("bar", 22)),
+                     HashMap.of(tuple("foo", 1), tuple("bar", 2))
+                             .parallelMerge(HashMap.of(objectEquals(), String::length, tuple("bar", 20)),
+                                            Integer::sum));
+    }
+
+    @Test
+    public void parallelFilterMatchesEntryWiseFilter() {
+        HashMap.Transient<Integer, Integer> map      = HashMap.<Integer, Integer>empty().asTransient();
+        HashMap.Transient<Integer, Integer> expected = HashMap.<Integer, Integer>empty().asTransient();
+        for (int i = 0; i < 20_000; i++) {
+            map.put(i, i);
+            if (i % 7 == 0)
+                expected.put(i, i);
+        }
+
+        HashMap<Integer, Integer> persistent = map.persistent();
+        assertEquals(expected.persistent(), persistent.parallelFilter((k, v) -> v % 7 == 0));
+        assertSame(persistent, persistent.parallelFilter((k, v) -> true));
+        assertEquals(HashMap.empty(), persistent.parallelFilter((k, v) -> false));
+    }
+
+    @Test
+    public void fromIterableMatchesSuccessivePuts() {
+        List<Tuple2<Integer, Integer>>      entries  = new ArrayList<>();
+        HashMap.Transient<Integer, Integer> expected = HashMap.<Integer, Integer>empty().asTransient();
+        for (int i = 0; i < 10_000; i++) {
+            entries.add(tuple(i % 7_500, i));
+            expected.put(i % 7_500, i);
+        }
+
+        HashMap<Integer, Integer> map = HashMap.fromIterable(entries);
+        assertEquals(expected.persistent(), map);
+        assertEquals(known(abs(7_500)), map.sizeInfo());
+        assertEquals(just(9_999), map.get(2_499));
+        assertEquals(empty(), HashMap.fromIterable(new ArrayList<Tuple2<Integer, Integer>>()));
+    }
+
+    @Test
+    public void fromIterableUsesGivenAlgebra() {
+        HashMap<String, Integer> map = HashMap.fromIterable(String::equalsIgnoreCase, s -> s.toLowerCase().hashCode(),
+                                                            asList(tuple("foo", 1), tuple("FOO", 2), tuple("bar", 3)));
+        assertEquals(known(abs(2)), map.sizeInfo());
+        assertEquals(just(2), map.get("Foo"));
+    }
 }
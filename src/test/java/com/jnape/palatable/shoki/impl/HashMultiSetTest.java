@@ -54,6 +54,15 @@ public class HashMultiSetTest {
         assertEquals(EMPTY.inc("foo", one()), EMPTY.inc("foo", one()).dec("bar", one()));
     }
 
+    @Test
+    public void noOpRemovalsReturnSameMultiSet() {
+        HashMultiSet<String> multiSet = EMPTY.inc("foo");
+
+        assertSame(multiSet, multiSet.dec("bar"));
+        assertSame(multiSet, multiSet.remove("bar"));
+        assertSame(EMPTY, EMPTY.tail());
+    }
+
     @Test
     public void removesOneByDefault() {
         assertEquals(EMPTY, EMPTY.inc("foo", one()).dec("foo"));
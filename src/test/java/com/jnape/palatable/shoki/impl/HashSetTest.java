@@ -1,10 +1,19 @@
 package com.jnape.palatable.shoki.impl;
 
+import com.jnape.palatable.shoki.api.EquivalenceRelation;
+import com.jnape.palatable.shoki.api.HashingAlgorithm;
 import com.jnape.palatable.shoki.testsupport.DefaultMethodsSet;
 import org.junit.Test;
+import testsupport.matchers.IterableMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.StreamSupport;
 
 import static com.jnape.palatable.lambda.adt.Maybe.just;
 import static com.jnape.palatable.lambda.adt.Maybe.nothing;
+import static com.jnape.palatable.lambda.adt.hlist.HList.tuple;
+import static com.jnape.palatable.lambda.functions.builtin.fn3.FoldLeft.foldLeft;
 import static com.jnape.palatable.shoki.api.EquivalenceRelation.referenceEquals;
 import static com.jnape.palatable.shoki.api.HashingAlgorithm.identityHashCode;
 import static com.jnape.palatable.shoki.api.Natural.abs;
@@ -13,12 +22,14 @@ import static com.jnape.palatable.shoki.api.Natural.zero;
 import static com.jnape.palatable.shoki.api.Set.EquivalenceRelations.sameElements;
 import static com.jnape.palatable.shoki.api.SizeInfo.known;
 import static com.jnape.palatable.shoki.testsupport.EquivalenceRelationMatcher.equivalentTo;
+import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static testsupport.matchers.IterableMatcher.iterates;
 
 public class HashSetTest {
 
@@ -36,6 +47,16 @@ public class HashSetTest {
         assertEquals(HashSet.of("bar"), HashSet.<String>empty().add("foo").add("bar").remove("foo"));
     }
 
+    @Test
+    public void noOpWritesReturnSameSet() {
+        HashSet<String> set = HashSet.of("foo", "bar");
+
+        assertSame(set, set.add("foo"));
+        assertSame(set, set.add(new String("bar")));
+        assertSame(set, set.remove("baz"));
+        assertSame(HashSet.empty(), HashSet.empty().tail());
+    }
+
     @Test
     public void head() {
         assertEquals(nothing(), HashSet.empty().head());
@@ -61,6 +82,21 @@ public class HashSetTest {
         assertFalse(HashSet.<String>empty().add("foo").remove("foo").contains("foo"));
     }
 
+    @Test
+    public void iteration() {
+        assertThat(HashSet.empty(), IterableMatcher.isEmpty());
+        assertThat(HashSet.of("foo"), iterates("foo"));
+        assertThat(HashSet.<Integer>empty().add(32).add(0).add(1), iterates(1, 0, 32));
+    }
+
+    @Test
+    public void parallelStreamOverSpliterator() {
+        HashSet<Integer> set = HashSet.of(1, 2, 3, 32, 64, 1024, 1025);
+        assertEquals(7L, set.spliterator().getExactSizeIfKnown());
+        assertEquals(1 + 2 + 3 + 32 + 64 + 1024 + 1025,
+                     StreamSupport.stream(set.spliterator(), true).mapToInt(Integer::intValue).sum());
+    }
+
     @Test
     public void isEmpty() {
         assertTrue(HashSet.empty().isEmpty());
@@ -149,6 +185,36 @@ public class HashSetTest {
         assertEquals(HashSet.of(4), HashSet.of(2, 3, 4).difference(HashSet.of(1, 2, 3)));
     }
 
+    @Test
+    public void addAll() {
+        HashSet<Integer> set = HashSet.of(1, 2);
+
+        assertSame(set, set.addAll(asList(1, 2)));
+        assertEquals(HashSet.of(1, 2, 3, 4), set.addAll(asList(3, 2, 4)));
+        assertEquals(HashSet.of(1, 2, 3), set.addAll(HashSet.of(2, 3)));
+        assertEquals(HashSet.of(1, 2), set);
+    }
+
+    @Test
+    public void removeAll() {
+        HashSet<Integer> set = HashSet.of(1, 2, 3);
+
+        assertSame(set, set.removeAll(asList(4, 5)));
+        assertEquals(HashSet.of(2), set.removeAll(asList(3, 1, 4)));
+        assertEquals(HashSet.of(1), set.removeAll(HashSet.of(2, 3)));
+        assertEquals(HashSet.of(1, 2, 3), set);
+    }
+
+    @Test
+    public void diff() {
+        HashSet<Integer> older = HashSet.of(1, 2, 3);
+
+        assertEquals(tuple(HashSet.of(4), HashSet.of(1)), older.diff(older.remove(1).add(4)));
+        assertEquals(tuple(HashSet.of(4), HashSet.of(1)),
+                     older.diff(HashSet.of(referenceEquals(), identityHashCode(), 2, 3, 4)));
+        assertEquals(tuple(HashSet.empty(), HashSet.empty()), older.diff(older));
+    }
+
     @Test
     public void symmetricDifference() {
         HashSet<Object> empty = HashSet.empty();
@@ -156,4 +222,91 @@ public class HashSetTest {
                    equivalentTo(empty.symmetricDifference(empty), sameElements()));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void setAlgebraMatchesElementWiseDefinitions() {
+        HashSet<Integer> xs = HashSet.empty();
+        HashSet<Integer> ys = HashSet.empty();
+        for (int i = 0; i < 3_000; i++) {
+            xs = xs.add(i);
+            ys = ys.add(i + 2_000);
+        }
+
+        HashSet<Integer> intersection = HashSet.empty();
+        HashSet<Integer> difference   = HashSet.empty();
+        HashSet<Integer> union        = xs;
+        HashSet<Integer> symmetric    = HashSet.empty();
+        for (int i = 0; i < 5_000; i++) {
+            if (i >= 2_000 && i < 3_000)
+                intersection = intersection.add(i);
+            else
+                symmetric = symmetric.add(i);
+            if (i < 2_000)
+                difference = difference.add(i);
+            union = union.add(i);
+        }
+
+        assertEquals(intersection, xs.intersection(ys));
+        assertEquals(intersection, ys.intersection(xs));
+        assertEquals(difference, xs.difference(ys));
+        assertEquals(union, xs.union(ys));
+        assertEquals(symmetric, xs.symmetricDifference(ys));
+        assertEquals(known(abs(1_000)), xs.intersection(ys).sizeInfo());
+        assertEquals(known(abs(5_000)), xs.union(ys).sizeInfo());
+    }
+
+    @Test
+    public void setAlgebraReusesUnchangedSets() {
+        HashSet<Integer> xs = HashSet.of(1, 2, 3);
+        assertSame(xs, xs.intersection(xs));
+        assertSame(xs, xs.intersection(HashSet.of(1, 2, 3, 4)));
+        assertSame(xs, xs.difference(HashSet.of(4, 5)));
+        assertEquals(HashSet.empty(), xs.difference(xs));
+    }
+
+    @Test
+    public void parallelUnionAndFilterMatchSequentialDefinitions() {
+        HashSet<Integer> xs = HashSet.empty();
+        HashSet<Integer> ys = HashSet.empty();
+        for (int i = 0; i < 20_000; i++) {
+            xs = xs.add(i);
+            ys = ys.add(i + 15_000);
+        }
+
+        assertEquals(xs.union(ys), xs.parallelUnion(ys));
+        assertEquals(xs.union(HashSet.of(-1, 0)), xs.parallelUnion(HashSet.of(-1, 0)));
+        assertEquals(foldLeft((acc, x) -> x % 5 == 0 ? acc : acc.remove(x), xs, xs),
+                     xs.parallelFilter(x -> x % 5 == 0));
+        assertSame(xs, xs.parallelFilter(x -> true));
+    }
+
+    @Test
+    public void fromIterable() {
+        List<Integer>    elements = new ArrayList<>();
+        HashSet<Integer> expected = HashSet.empty();
+        for (int i = 0; i < 10_000; i++) {
+            elements.add(i % 6_000);
+            expected = expected.add(i % 6_000);
+        }
+
+        assertEquals(expected, HashSet.fromIterable(elements));
+        assertEquals(known(abs(6_000)), HashSet.fromIterable(elements).sizeInfo());
+        assertEquals(HashSet.empty(), HashSet.fromIterable(new ArrayList<>()));
+        assertEquals(HashSet.of(referenceEquals(), identityHashCode(), elements.get(0)),
+                     HashSet.fromIterable(referenceEquals(), identityHashCode(), asList(elements.get(0))));
+    }
+
+    @Test
+    public void setAlgebraRetainsReceiverAlgebra() {
+        EquivalenceRelation<String> caseInsensitive = String::equalsIgnoreCase;
+        HashingAlgorithm<String>    lowerCaseHash   = s -> s.toLowerCase().hashCode();
+        HashSet<String>             xs              = HashSet.of(caseInsensitive, lowerCaseHash, "Foo", "Bar", "Baz");
+
+        assertTrue(xs.intersection(HashSet.of("Foo", "Bar")).contains("FOO"));
+        assertTrue(xs.intersection(HashSet.of(caseInsensitive, lowerCaseHash, "FOO")).contains("foo"));
+        assertTrue(xs.union(HashSet.of("Qux")).contains("QUX"));
+        assertTrue(xs.union(HashSet.of(caseInsensitive, lowerCaseHash, "Qux")).contains("qux"));
+        assertFalse(xs.difference(HashSet.of(caseInsensitive, lowerCaseHash, "BAR")).contains("Bar"));
+        assertTrue(xs.difference(HashSet.of("Bar")).contains("BAZ"));
+    }
+}
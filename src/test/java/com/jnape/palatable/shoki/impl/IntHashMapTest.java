@@ -0,0 +1,92 @@
+package com.jnape.palatable.shoki.impl;
+
+import org.junit.Test;
+
+import static com.jnape.palatable.lambda.adt.Maybe.just;
+import static com.jnape.palatable.lambda.adt.Maybe.nothing;
+import static com.jnape.palatable.lambda.adt.hlist.HList.tuple;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class IntHashMapTest extends PrimitiveHashMapTest<Integer, IntHashMap<String>> {
+
+    @Override
+    protected IntHashMap<String> empty() {
+        return IntHashMap.empty();
+    }
+
+    @Override
+    protected Integer key(int i) {
+        return i;
+    }
+
+    @Override
+    protected Integer wideKey(int i) {
+        return i;
+    }
+
+    @Override
+    protected Integer minKey() {
+        return Integer.MIN_VALUE;
+    }
+
+    @Override
+    protected Integer maxKey() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Test
+    public void primitiveOverloads() {
+        IntHashMap<String> map = IntHashMap.<String>empty().putInt(1, "one").putInt(-1, "minus one");
+        assertEquals(just("one"), map.getInt(1));
+        assertEquals(just("minus one"), map.getInt(-1));
+        assertEquals(nothing(), map.getInt(2));
+        assertTrue(map.containsInt(1));
+        assertFalse(map.containsInt(2));
+        assertEquals(IntHashMap.<String>empty().putInt(-1, "minus one"), map.removeInt(1));
+        assertSame(map, map.removeInt(2));
+        assertSame(map, map.putInt(1, "one"));
+        assertEquals(map, IntHashMap.<String>empty()
+                .put(Integer.valueOf(1), "one")
+                .put(Integer.valueOf(-1), "minus one"));
+    }
+
+    @Test
+    public void numericValuesResolveWithoutCasts() {
+        IntHashMap<Long> map = IntHashMap.<Long>empty().put(1, 5L);
+        assertEquals(just(Long.valueOf(5)), map.get(Integer.valueOf(1)));
+        assertEquals(map, IntHashMap.<Long>empty().putInt(1, 5L));
+        assertSame(map, map.put(1, 5L));
+    }
+
+    @Test
+    public void getOrDefaultAndGetOrNull() {
+        IntHashMap<String> map = IntHashMap.<String>empty().putInt(1, "one").putInt(-1, "minus one");
+        assertEquals("one", map.getOrDefault(1, "none"));
+        assertEquals("minus one", map.getOrNull(-1));
+        assertEquals("none", map.getOrDefault(2, "none"));
+        assertNull(map.getOrNull(2));
+    }
+
+    @Test
+    public void keys() {
+        assertEquals(IntHashSet.of(1, 2), IntHashMap.<String>empty().putInt(1, "one").putInt(2, "two").keys());
+        assertEquals(IntHashSet.empty(), IntHashMap.empty().keys());
+    }
+
+    @Test
+    public void of() {
+        assertEquals(IntHashMap.<String>empty().putInt(1, "one").putInt(2, "two"),
+                     IntHashMap.of(tuple(1, "one"), tuple(2, "two")));
+    }
+
+    @Test
+    public void notEqualToOtherKeyWidths() {
+        assertNotEquals(IntHashMap.<String>empty().putInt(1, "one"),
+                        LongHashMap.<String>empty().putLong(1, "one"));
+    }
+}
@@ -0,0 +1,48 @@
+package com.jnape.palatable.shoki.impl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class IntHashSetTest extends PrimitiveHashSetTest<Integer, IntHashSet> {
+
+    @Override
+    protected IntHashSet empty() {
+        return IntHashSet.empty();
+    }
+
+    @Override
+    protected Integer element(int i) {
+        return i;
+    }
+
+    @Override
+    protected Integer minElement() {
+        return Integer.MIN_VALUE;
+    }
+
+    @Test
+    public void primitiveOverloads() {
+        IntHashSet set = IntHashSet.empty().add(1).add(2);
+        assertTrue(set.contains(1));
+        assertFalse(set.contains(3));
+        assertEquals(IntHashSet.of(2), set.remove(1));
+        assertSame(set, set.remove(3));
+        assertSame(set, set.add(1));
+        assertTrue(IntHashSet.of(1, Integer.MIN_VALUE).contains(Integer.MIN_VALUE));
+    }
+
+    @Test
+    public void of() {
+        assertEquals(IntHashSet.empty().add(1).add(2), IntHashSet.of(1, 2, 1));
+    }
+
+    @Test
+    public void notEqualToOtherElementWidths() {
+        assertNotEquals(IntHashSet.of(1), LongHashSet.of(1));
+    }
+}
@@ -0,0 +1,157 @@
+package com.jnape.palatable.shoki.impl;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static com.jnape.palatable.lambda.adt.Maybe.just;
+import static com.jnape.palatable.lambda.adt.Maybe.nothing;
+import static com.jnape.palatable.shoki.impl.LongHAMT.rootNode;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LongHAMTTest {
+
+    @Test
+    public void putGetAndRemove() {
+        LongHAMT<String> hamt = LongHAMT.<String>rootNode()
+                .put(0, "zero")
+                .put(-1, "minus one")
+                .put(Long.MIN_VALUE, "min")
+                .put(Long.MAX_VALUE, "max");
+
+        assertEquals(just("zero"), hamt.get(0));
+        assertEquals(just("minus one"), hamt.get(-1));
+        assertEquals(just("min"), hamt.get(Long.MIN_VALUE));
+        assertEquals(just("max"), hamt.get(Long.MAX_VALUE));
+        assertEquals(nothing(), hamt.get(1));
+        assertEquals(4, hamt.size());
+
+        assertEquals(just("updated"), hamt.put(-1, "updated").get(-1));
+        assertEquals(nothing(), hamt.remove(-1).get(-1));
+        assertEquals(3, hamt.remove(-1).size());
+        assertSame(hamt, hamt.remove(1));
+    }
+
+    @Test
+    public void removeFirstFollowsIterationOrder() {
+        assertSame(rootNode(), LongHAMT.rootNode().removeFirst());
+
+        LongHAMT<Long> hamt = rootNode();
+        for (long i = 0; i < 1_000; i++) {
+            hamt = hamt.put(i * 7, i);
+        }
+        while (hamt.size() > 0) {
+            long           first    = hamt.iterator((k, v) -> k).next();
+            LongHAMT<Long> expected = hamt.remove(first);
+            hamt = hamt.removeFirst();
+            assertTrue(expected.sameEntries(hamt));
+        }
+    }
+
+    @Test
+    public void contains() {
+        LongHAMT<String> hamt = LongHAMT.<String>rootNode().put(1, "one").put(1L << 40, "big");
+        assertTrue(hamt.contains(1));
+        assertTrue(hamt.contains(1L << 40));
+        assertFalse(hamt.contains(2));
+        assertFalse(hamt.contains(1L << 41));
+    }
+
+    @Test
+    public void mixIsABijectionThatSpreadsSequentialKeys() {
+        java.util.Set<Long> mixed = new java.util.HashSet<>();
+        java.util.Set<Long> slots = new java.util.HashSet<>();
+        for (long key = -1_000; key < 1_000; key++) {
+            mixed.add(LongHAMT.mix(key));
+            slots.add(LongHAMT.mix(key) & 0b11111);
+        }
+        assertEquals(2_000, mixed.size());
+        assertEquals(32, slots.size());
+    }
+
+    @Test
+    public void shapeIsIndependentOfInsertionOrderAndRemovalHistory() {
+        List<Long> keys   = new ArrayList<>();
+        Random     random = new Random(42);
+        for (int i = 0; i < 5_000; i++) {
+            keys.add(random.nextLong());
+        }
+
+        LongHAMT<Long> forward = rootNode();
+        for (long key : keys) {
+            forward = forward.put(key, key);
+        }
+        Collections.shuffle(keys, random);
+        LongHAMT<Long> shuffled = rootNode();
+        for (long key : keys) {
+            shuffled = shuffled.put(key, key);
+        }
+        assertTrue(forward.sameEntries(shuffled));
+        assertEquals(forward.hash(), shuffled.hash());
+
+        LongHAMT<Long> pruned = forward;
+        LongHAMT<Long> subset = rootNode();
+        for (int i = 0; i < keys.size(); i++) {
+            long key = keys.get(i);
+            if (i % 2 == 0)
+                pruned = pruned.remove(key);
+            else
+                subset = subset.put(key, key);
+        }
+        assertTrue(pruned.sameEntries(subset));
+        assertEquals(2_500, pruned.size());
+        assertEquals(subset.hash(), pruned.hash());
+
+        for (long key : keys) {
+            pruned = pruned.remove(key);
+        }
+        assertEquals(0, pruned.size());
+        assertEquals(0, pruned.hash());
+        assertTrue(pruned.sameEntries(rootNode()));
+    }
+
+    @Test
+    public void sameEntriesComparesValues() {
+        LongHAMT<String> hamt = LongHAMT.<String>rootNode().put(1, "one").put(2, "two");
+        assertTrue(hamt.sameEntries(LongHAMT.<String>rootNode().put(2, "two").put(1, "one")));
+        assertFalse(hamt.sameEntries(hamt.put(2, "deux")));
+        assertFalse(hamt.sameEntries(hamt.remove(2)));
+        assertNotEquals(hamt.hash(), hamt.put(2, "deux").hash());
+    }
+
+    @Test
+    public void cursorVisitsEveryEntryOnce() {
+        LongHAMT<Long> hamt = rootNode();
+        long           sum  = 0;
+        for (long key = 0; key < 3_000; key++) {
+            hamt = hamt.put(key, key);
+            sum += key;
+        }
+
+        Iterator<Long> cursor  = hamt.iterator((k, v) -> k + v);
+        long           visited = 0;
+        int            count   = 0;
+        while (cursor.hasNext()) {
+            visited += cursor.next();
+            count++;
+        }
+        assertEquals(3_000, count);
+        assertEquals(2 * sum, visited);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void exhaustedCursorThrows() {
+        Iterator<Long> cursor = LongHAMT.<String>rootNode().put(1, "one").iterator((k, v) -> k);
+        cursor.next();
+        cursor.next();
+    }
+}
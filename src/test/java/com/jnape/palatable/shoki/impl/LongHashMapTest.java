@@ -0,0 +1,92 @@
+package com.jnape.palatable.shoki.impl;
+
+import org.junit.Test;
+
+import static com.jnape.palatable.lambda.adt.Maybe.just;
+import static com.jnape.palatable.lambda.adt.Maybe.nothing;
+import static com.jnape.palatable.lambda.adt.hlist.HList.tuple;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LongHashMapTest extends PrimitiveHashMapTest<Long, LongHashMap<String>> {
+
+    @Override
+    protected LongHashMap<String> empty() {
+        return LongHashMap.empty();
+    }
+
+    @Override
+    protected Long key(int i) {
+        return (long) i;
+    }
+
+    @Override
+    protected Long wideKey(int i) {
+        return i * (1L << 35);
+    }
+
+    @Override
+    protected Long minKey() {
+        return Long.MIN_VALUE;
+    }
+
+    @Override
+    protected Long maxKey() {
+        return Long.MAX_VALUE;
+    }
+
+    @Test
+    public void primitiveOverloads() {
+        LongHashMap<String> map = LongHashMap.<String>empty().putLong(1, "one").putLong(-1, "minus one");
+        assertEquals(just("one"), map.getLong(1));
+        assertEquals(just("minus one"), map.getLong(-1));
+        assertEquals(nothing(), map.getLong(2));
+        assertTrue(map.containsLong(1));
+        assertFalse(map.containsLong(2));
+        assertEquals(LongHashMap.<String>empty().putLong(-1, "minus one"), map.removeLong(1));
+        assertSame(map, map.removeLong(2));
+        assertSame(map, map.putLong(1, "one"));
+        assertEquals(map, LongHashMap.<String>empty()
+                .put(Long.valueOf(1), "one")
+                .put(Long.valueOf(-1), "minus one"));
+    }
+
+    @Test
+    public void numericValuesResolveWithoutCasts() {
+        LongHashMap<Integer> map = LongHashMap.<Integer>empty().put(1L, 5);
+        assertEquals(just(Integer.valueOf(5)), map.get(Long.valueOf(1)));
+        assertEquals(map, LongHashMap.<Integer>empty().putLong(1, 5));
+        assertSame(map, map.put(1L, 5));
+    }
+
+    @Test
+    public void getOrDefaultAndGetOrNull() {
+        LongHashMap<String> map = LongHashMap.<String>empty().putLong(1, "one").putLong(-1, "minus one");
+        assertEquals("one", map.getOrDefault(1, "none"));
+        assertEquals("minus one", map.getOrNull(-1));
+        assertEquals("none", map.getOrDefault(2, "none"));
+        assertNull(map.getOrNull(2));
+    }
+
+    @Test
+    public void keys() {
+        assertEquals(LongHashSet.of(1, 2), LongHashMap.<String>empty().putLong(1, "one").putLong(2, "two").keys());
+        assertEquals(LongHashSet.empty(), LongHashMap.empty().keys());
+    }
+
+    @Test
+    public void of() {
+        assertEquals(LongHashMap.<String>empty().putLong(1, "one").putLong(2, "two"),
+                     LongHashMap.of(tuple(1L, "one"), tuple(2L, "two")));
+    }
+
+    @Test
+    public void notEqualToOtherKeyWidths() {
+        assertNotEquals(LongHashMap.<String>empty().putLong(1, "one"),
+                        IntHashMap.<String>empty().putInt(1, "one"));
+    }
+}
@@ -0,0 +1,48 @@
+package com.jnape.palatable.shoki.impl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LongHashSetTest extends PrimitiveHashSetTest<Long, LongHashSet> {
+
+    @Override
+    protected LongHashSet empty() {
+        return LongHashSet.empty();
+    }
+
+    @Override
+    protected Long element(int i) {
+        return (long) i;
+    }
+
+    @Override
+    protected Long minElement() {
+        return Long.MIN_VALUE;
+    }
+
+    @Test
+    public void primitiveOverloads() {
+        LongHashSet set = LongHashSet.empty().add(1).add(2);
+        assertTrue(set.contains(1));
+        assertFalse(set.contains(3));
+        assertEquals(LongHashSet.of(2), set.remove(1));
+        assertSame(set, set.remove(3));
+        assertSame(set, set.add(1));
+        assertTrue(LongHashSet.of(1, Long.MIN_VALUE).contains(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void of() {
+        assertEquals(LongHashSet.empty().add(1).add(2), LongHashSet.of(1, 2, 1));
+    }
+
+    @Test
+    public void notEqualToOtherElementWidths() {
+        assertNotEquals(LongHashSet.of(1), IntHashSet.of(1));
+    }
+}
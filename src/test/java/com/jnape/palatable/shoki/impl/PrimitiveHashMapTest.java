@@ -0,0 +1,181 @@
+package com.jnape.palatable.shoki.impl;
+
+import com.jnape.palatable.lambda.adt.hlist.Tuple2;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static com.jnape.palatable.lambda.adt.Maybe.just;
+import static com.jnape.palatable.lambda.adt.Maybe.nothing;
+import static com.jnape.palatable.lambda.adt.hlist.HList.tuple;
+import static com.jnape.palatable.shoki.api.Natural.abs;
+import static com.jnape.palatable.shoki.api.Natural.one;
+import static com.jnape.palatable.shoki.api.Natural.zero;
+import static com.jnape.palatable.shoki.api.SizeInfo.known;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static testsupport.matchers.IterableMatcher.isEmpty;
+import static testsupport.matchers.IterableMatcher.iterates;
+
+public abstract class PrimitiveHashMapTest<K extends Number, M extends PrimitiveHashMap<K, String, M>> {
+
+    protected abstract M empty();
+
+    protected abstract K key(int i);
+
+    protected abstract K wideKey(int i);
+
+    protected abstract K minKey();
+
+    protected abstract K maxKey();
+
+    @Test
+    public void getMissingKey() {
+        assertEquals(nothing(), empty().get(key(0)));
+        assertEquals(nothing(), empty().put(key(1), "one").get(key(0)));
+    }
+
+    @Test
+    public void getPresentKey() {
+        M map = empty().put(key(1), "one").put(key(-1), "minus one");
+        assertEquals(just("one"), map.get(key(1)));
+        assertEquals(just("minus one"), map.get(key(-1)));
+    }
+
+    @Test
+    public void putReplacesExistingValue() {
+        M map = empty().put(key(1), "one").put(key(1), "uno");
+        assertEquals(just("uno"), map.get(key(1)));
+        assertEquals(known(one()), map.sizeInfo());
+        assertEquals(map, empty().put(key(1), "uno"));
+    }
+
+    @Test
+    public void noOpWritesReturnSameMap() {
+        M map = empty().put(key(1), "one").put(key(33), "thirty-three");
+
+        assertSame(map, map.put(key(1), "one"));
+        assertSame(map, map.put(key(33), "thirty-three"));
+        assertSame(map, map.remove(key(2)));
+        assertNotSame(map, map.put(key(1), "uno"));
+    }
+
+    @Test
+    public void extremeKeys() {
+        M map = empty()
+                .put(minKey(), "min")
+                .put(maxKey(), "max")
+                .put(key(0), "zero");
+        assertEquals(just("min"), map.get(minKey()));
+        assertEquals(just("max"), map.get(maxKey()));
+        assertEquals(just("zero"), map.get(key(0)));
+        assertEquals(known(abs(3)), map.sizeInfo());
+    }
+
+    @Test
+    public void remove() {
+        M map = empty().put(key(1), "one").put(key(2), "two");
+        assertEquals(empty().put(key(2), "two"), map.remove(key(1)));
+        assertSame(map, map.remove(key(3)));
+        assertEquals(empty(), map.remove(key(1)).remove(key(2)));
+    }
+
+    @Test
+    public void contains() {
+        M map = empty().put(key(1), "one");
+        assertTrue(map.contains(key(1)));
+        assertFalse(map.contains(key(2)));
+        assertFalse(map.remove(key(1)).contains(key(1)));
+    }
+
+    @Test
+    public void matchesJavaUtilHashMapUnderRandomUpdates() {
+        java.util.Map<K, String> expected = new java.util.HashMap<>();
+        M                        actual   = empty();
+        Random                   random   = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            K key = wideKey(random.nextInt(5_000) - 2_500);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                actual = actual.remove(key);
+            } else {
+                expected.put(key, String.valueOf(i));
+                actual = actual.put(key, String.valueOf(i));
+            }
+        }
+
+        assertEquals(known(abs(expected.size())), actual.sizeInfo());
+        for (java.util.Map.Entry<K, String> entry : expected.entrySet()) {
+            assertEquals(just(entry.getValue()), actual.get(entry.getKey()));
+        }
+        int iterated = 0;
+        for (Tuple2<K, String> entry : actual) {
+            assertEquals(expected.get(entry._1()), entry._2());
+            iterated++;
+        }
+        assertEquals(expected.size(), iterated);
+    }
+
+    @Test
+    public void values() {
+        M map = empty().put(key(1), "one").put(key(2), "two");
+        assertEquals(known(abs(2)), map.values().sizeInfo());
+        assertTrue(map.values().head().match(__ -> false, v -> v.equals("one") || v.equals("two")));
+    }
+
+    @Test
+    public void headAndTail() {
+        assertEquals(nothing(), empty().head());
+        assertEquals(empty(), empty().tail());
+
+        M map = empty().put(key(1), "one").put(key(2), "two");
+        K key = map.head().orElseThrow(AssertionError::new)._1();
+        assertEquals(map.remove(key), map.tail());
+        assertEquals(known(one()), map.tail().sizeInfo());
+    }
+
+    @Test
+    public void merge() {
+        M left  = empty().put(key(1), "a").put(key(2), "b");
+        M right = empty().put(key(2), "c").put(key(3), "d");
+        assertEquals(empty().put(key(1), "a").put(key(2), "bc").put(key(3), "d"), left.merge(right, String::concat));
+    }
+
+    @Test
+    public void iteration() {
+        assertThat(empty(), isEmpty());
+        assertThat(empty().put(key(1), "one"), iterates(tuple(key(1), "one")));
+    }
+
+    @Test
+    public void isEmptyAndSizeInfo() {
+        assertTrue(empty().isEmpty());
+        assertEquals(known(zero()), empty().sizeInfo());
+        assertFalse(empty().put(key(1), "one").isEmpty());
+        assertTrue(empty().put(key(1), "one").remove(key(1)).isEmpty());
+    }
+
+    @Test
+    public void equalsAndHashCode() {
+        M map = empty().put(key(1), "one").put(key(2), "two");
+        assertEquals(map, empty().put(key(2), "two").put(key(1), "one"));
+        assertEquals(map.hashCode(), empty().put(key(2), "two").put(key(1), "one").hashCode());
+        assertNotEquals(map, map.put(key(1), "uno"));
+        assertNotEquals(map, map.remove(key(1)));
+        assertNotEquals(map, HashMap.of(tuple(key(1), "one"), tuple(key(2), "two")));
+        assertEquals(empty(), empty().put(key(1), "one").remove(key(1)));
+        assertEquals(empty().hashCode(), empty().put(key(1), "one").remove(key(1)).hashCode());
+    }
+
+    @Test
+    public void toStringIsUseful() {
+        String name = empty().getClass().getSimpleName();
+        assertEquals(name + "[]", empty().toString());
+        assertEquals(name + "[(1=one)]", empty().put(key(1), "one").toString());
+    }
+}
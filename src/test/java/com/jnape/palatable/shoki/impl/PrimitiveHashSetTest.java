@@ -0,0 +1,106 @@
+package com.jnape.palatable.shoki.impl;
+
+import org.junit.Test;
+
+import static com.jnape.palatable.lambda.adt.Maybe.nothing;
+import static com.jnape.palatable.shoki.api.Natural.abs;
+import static com.jnape.palatable.shoki.api.Natural.one;
+import static com.jnape.palatable.shoki.api.Natural.zero;
+import static com.jnape.palatable.shoki.api.SizeInfo.known;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static testsupport.matchers.IterableMatcher.isEmpty;
+import static testsupport.matchers.IterableMatcher.iterates;
+
+public abstract class PrimitiveHashSetTest<A extends Number, S extends PrimitiveHashSet<A, ?, S>> {
+
+    protected abstract S empty();
+
+    protected abstract A element(int i);
+
+    protected abstract A minElement();
+
+    private S set(int... is) {
+        S set = empty();
+        for (int i : is) {
+            set = set.add(element(i));
+        }
+        return set;
+    }
+
+    @Test
+    public void add() {
+        assertEquals(set(1), empty().add(element(1)));
+        assertEquals(set(1), empty().add(element(1)).add(element(1)));
+        assertEquals(set(1, 2), empty().add(element(1)).add(element(2)));
+    }
+
+    @Test
+    public void remove() {
+        assertEquals(empty(), empty().remove(element(1)));
+        assertEquals(empty(), set(1).remove(element(1)));
+        assertEquals(set(2), set(1, 2).remove(element(1)));
+        S set = set(1, 2);
+        assertSame(set, set.remove(element(3)));
+    }
+
+    @Test
+    public void contains() {
+        assertFalse(empty().contains(element(1)));
+        assertTrue(set(1).add(minElement()).contains(minElement()));
+        assertTrue(set(1).contains(element(1)));
+        assertFalse(set(1).remove(element(1)).contains(element(1)));
+    }
+
+    @Test
+    public void headAndTail() {
+        assertEquals(nothing(), empty().head());
+        assertEquals(empty(), empty().tail());
+        S set = set(1, 2);
+        assertEquals(set.remove(set.head().orElseThrow(AssertionError::new)), set.tail());
+    }
+
+    @Test
+    public void setAlgebra() {
+        S xs = set(1, 2, 3);
+        S ys = set(2, 3, 4);
+        assertEquals(set(2, 3), xs.intersection(ys));
+        assertEquals(set(1, 2, 3, 4), xs.union(ys));
+        assertEquals(set(1), xs.difference(ys));
+        assertEquals(set(1, 4), xs.symmetricDifference(ys));
+        assertEquals(set(2, 3), xs.intersection(HashSet.of(element(2), element(3), element(4))));
+    }
+
+    @Test
+    public void iteration() {
+        assertThat(empty(), isEmpty());
+        assertThat(set(1), iterates(element(1)));
+    }
+
+    @Test
+    public void sizeInfo() {
+        assertEquals(known(zero()), empty().sizeInfo());
+        assertEquals(known(one()), set(1, 1).sizeInfo());
+        assertEquals(known(abs(2)), set(1, 2).sizeInfo());
+        assertTrue(set(1).remove(element(1)).isEmpty());
+    }
+
+    @Test
+    public void equalsAndHashCode() {
+        assertEquals(set(1, 2), set(2, 1));
+        assertEquals(set(1, 2).hashCode(), set(2, 1).hashCode());
+        assertNotEquals(set(1, 2), set(1));
+        assertNotEquals(set(1), HashSet.of(element(1)));
+    }
+
+    @Test
+    public void toStringIsUseful() {
+        String name = empty().getClass().getSimpleName();
+        assertEquals(name + "[]", empty().toString());
+        assertEquals(name + "[1]", set(1).toString());
+    }
+}